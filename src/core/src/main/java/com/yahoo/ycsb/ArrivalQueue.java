@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.generator.BurstyExponentialGenerator;
+import com.yahoo.ycsb.generator.ConstantIntegerGenerator;
+import com.yahoo.ycsb.generator.ExponentialGenerator;
+import com.yahoo.ycsb.generator.HistogramGenerator;
+import com.yahoo.ycsb.generator.NumberGenerator;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arrivals of an open-loop load, shared by all client threads.
+ * <p>
+ * With a target throughput the client threads by default each issue their
+ * operations at fixed ticks, so that a thread stuck on a slow operation
+ * delays its next ones. Under an arrival process the operations instead
+ * arrive at random times, independently of how fast they are served, and
+ * each free client thread takes the next arrival from this queue, waits
+ * until it is due and issues an operation for it. When all threads are busy
+ * the arrivals wait in the queue, so their waiting time is part of the
+ * latency measured from their arrival time (the intended start time of the
+ * operation), as it would be for the clients of a real service.
+ * <p>
+ * The arrivals are not materialized: the queue only keeps the time of the
+ * next one and draws the interval to the one after when it is taken.
+ * <p>
+ * Under a {@link TargetProfile} the intervals are drawn for the target and
+ * shortened or stretched by how far the profile is from the target while
+ * they pass, so that all threads follow the profile together; periodic
+ * arrivals are then shared by the threads as well.
+ */
+final class ArrivalQueue {
+  /**
+   * The name of the property for the arrival process of the operations: "periodic" (the default, each client
+   * thread issues its share of the target at fixed ticks), "poisson", "bursty" or "histogram".
+   */
+  public static final String ARRIVAL_PROCESS_PROPERTY = "arrival.process";
+
+  public static final String ARRIVAL_PROCESS_PROPERTY_DEFAULT = "periodic";
+
+  /**
+   * The name of the property for how many times faster than the target operations arrive during bursts.
+   */
+  public static final String BURST_FACTOR_PROPERTY = "arrival.burstfactor";
+
+  public static final String BURST_FACTOR_PROPERTY_DEFAULT = "4";
+
+  /**
+   * The name of the property for the fraction of the time spent in bursts.
+   */
+  public static final String BURST_FRACTION_PROPERTY = "arrival.burstfraction";
+
+  public static final String BURST_FRACTION_PROPERTY_DEFAULT = "0.1";
+
+  /**
+   * The name of the property for the mean length of a burst in milliseconds.
+   */
+  public static final String BURST_LENGTH_PROPERTY = "arrival.burstlength";
+
+  public static final String BURST_LENGTH_PROPERTY_DEFAULT = "1000";
+
+  /**
+   * The name of the property for the histogram file of the intervals between arrivals in microseconds, in the
+   * format of {@link HistogramGenerator}.
+   */
+  public static final String HISTOGRAM_PROPERTY = "arrival.histogram";
+
+  /**
+   * The steps in nanoseconds in which an interval follows a target profile.
+   */
+  private static final long PROFILE_STEP_NS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final NumberGenerator intervals;
+
+  /** The nanoseconds per unit of the intervals. */
+  private final double scale;
+
+  /** The target the intervals are drawn for and the profile it follows, null for none. */
+  private final double target;
+  private final TargetProfile profile;
+
+  /** The System.nanoTime() of the next arrival, 0 before the first one is taken. */
+  private long next;
+
+  ArrivalQueue(NumberGenerator intervals, TimeUnit unit) {
+    this(intervals, unit, 0, null);
+  }
+
+  ArrivalQueue(NumberGenerator intervals, TimeUnit unit, double target, TargetProfile profile) {
+    this.intervals = intervals;
+    this.scale = unit.toNanos(1);
+    this.target = target;
+    this.profile = profile;
+  }
+
+  /**
+   * The arrivals configured by the properties, or null for periodic ticks.
+   *
+   * @param target The target number of operations per second.
+   * @param profile The profile the target follows, null for a constant target.
+   */
+  static ArrivalQueue fromProperties(Properties props, int target, TargetProfile profile) throws IOException {
+    String process = props.getProperty(ARRIVAL_PROCESS_PROPERTY, ARRIVAL_PROCESS_PROPERTY_DEFAULT);
+    if (process.equals("periodic") && profile == null) {
+      return null;
+    }
+    if (process.equals("histogram")) {
+      if (profile != null) {
+        throw new IllegalArgumentException("Histogram arrivals do not follow a target profile");
+      }
+      String file = props.getProperty(HISTOGRAM_PROPERTY);
+      if (file == null) {
+        throw new IllegalArgumentException(ARRIVAL_PROCESS_PROPERTY + "=histogram needs " + HISTOGRAM_PROPERTY);
+      }
+      return new ArrivalQueue(new HistogramGenerator(file), TimeUnit.MICROSECONDS);
+    }
+
+    // a profile read from a file does not need a target, the intervals are drawn for where it starts instead
+    double rate = target <= 0 && profile != null ? profile.at(0) : target;
+    if (rate <= 0) {
+      throw new IllegalArgumentException(ARRIVAL_PROCESS_PROPERTY + "=" + process + " needs a target");
+    }
+    double mean = TimeUnit.SECONDS.toNanos(1) / rate;
+    switch (process) {
+    case "periodic":
+      return new ArrivalQueue(new ConstantIntegerGenerator((int) mean), TimeUnit.NANOSECONDS, rate, profile);
+    case "poisson":
+      return new ArrivalQueue(new ExponentialGenerator(mean), TimeUnit.NANOSECONDS, rate, profile);
+    case "bursty":
+      double factor = Double.parseDouble(props.getProperty(BURST_FACTOR_PROPERTY, BURST_FACTOR_PROPERTY_DEFAULT));
+      double fraction =
+          Double.parseDouble(props.getProperty(BURST_FRACTION_PROPERTY, BURST_FRACTION_PROPERTY_DEFAULT));
+      double length = TimeUnit.MILLISECONDS.toNanos(
+          Long.parseLong(props.getProperty(BURST_LENGTH_PROPERTY, BURST_LENGTH_PROPERTY_DEFAULT)));
+      return new ArrivalQueue(new BurstyExponentialGenerator(mean, factor, fraction, length), TimeUnit.NANOSECONDS,
+          rate, profile);
+    default:
+      throw new IllegalArgumentException("Unknown arrival process \"" + process + "\"");
+    }
+  }
+
+  /**
+   * Take the next arrival.
+   *
+   * @return Its System.nanoTime(), which may be in the past when the client threads fall behind.
+   */
+  synchronized long take() {
+    if (next == 0) {
+      next = System.nanoTime();
+    }
+    double interval = intervals.nextValue().doubleValue() * scale;
+    if (profile == null) {
+      next += (long) interval;
+      return next;
+    }
+
+    // pass the interval in short steps at the target of the profile at each, so that a long interval drawn while
+    // the target is low is cut short when it rises
+    double work = interval * target;
+    while (true) {
+      double rate = profile.at(next);
+      if (work <= PROFILE_STEP_NS * rate) {
+        next += (long) (work / rate);
+        return next;
+      }
+      next += PROFILE_STEP_NS;
+      work -= PROFILE_STEP_NS * rate;
+    }
+  }
+}
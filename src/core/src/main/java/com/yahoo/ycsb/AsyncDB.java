@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A database binding that can have several requests in flight. Every operation
+ * returns as soon as the request was sent and completes the returned stage
+ * with its status once the reply arrived; result maps and vectors are only
+ * filled by then. The stages may complete on threads of the binding, so
+ * whatever runs on completion must be quick and must not block.
+ * <p>
+ * With {@link ClientThread#OUTSTANDING_REQUESTS_PROPERTY} above 1, each client
+ * thread keeps that many requests of such a binding in flight instead of
+ * waiting for every reply. The blocking operations of {@link DB} wait for the
+ * asynchronous ones.
+ */
+public abstract class AsyncDB extends DB {
+
+  /**
+   * The asynchronous operations of a DB: those of an AsyncDB, or those of any other DB run synchronously and
+   * returning a completed stage, for callers written against the asynchronous operations only.
+   */
+  public static AsyncDB of(DB db) {
+    return db instanceof AsyncDB ? (AsyncDB) db : new Blocking(db);
+  }
+
+  /**
+   * Read a record, see {@link DB#read}.
+   */
+  public abstract CompletionStage<Status> readAsync(String table, String key, Set<String> fields,
+                                                    Map<String, ByteIterator> result);
+
+  /**
+   * Read the records whose metadata field matches a condition, see {@link DB#readMeta}.
+   */
+  public abstract CompletionStage<Status> readMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                        Vector<HashMap<String, ByteIterator>> result);
+
+  /**
+   * Perform a range scan, see {@link DB#scan}.
+   */
+  public abstract CompletionStage<Status> scanAsync(String table, String startkey, int recordcount,
+                                                    Set<String> fields, Vector<HashMap<String, ByteIterator>> result);
+
+  /**
+   * Update a record, see {@link DB#update}.
+   */
+  public abstract CompletionStage<Status> updateAsync(String table, String key, Map<String, ByteIterator> values);
+
+  /**
+   * Update a field of the records whose metadata field matches a condition, see {@link DB#updateMeta}.
+   */
+  public abstract CompletionStage<Status> updateMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                          String fieldkey, String fieldvalue);
+
+  /**
+   * Insert a record, see {@link DB#insert}.
+   */
+  public abstract CompletionStage<Status> insertAsync(String table, String key, Map<String, ByteIterator> values);
+
+  /**
+   * Insert a record that expires after ttl seconds, see {@link DB#insertTTL}.
+   */
+  public abstract CompletionStage<Status> insertTTLAsync(String table, String key, Map<String, ByteIterator> values,
+                                                         int ttl);
+
+  /**
+   * Delete a record, see {@link DB#delete}.
+   */
+  public abstract CompletionStage<Status> deleteAsync(String table, String key);
+
+  /**
+   * Delete the records whose metadata field matches a condition, see {@link DB#deleteMeta}.
+   */
+  public abstract CompletionStage<Status> deleteMetaAsync(String table, int fieldnum, String cond, String keymatch);
+
+  @Override
+  public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    return readAsync(table, key, fields, result).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status readMeta(String table, int fieldnum, String cond, String keymatch,
+                         Vector<HashMap<String, ByteIterator>> result) {
+    return readMetaAsync(table, fieldnum, cond, keymatch, result).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                     Vector<HashMap<String, ByteIterator>> result) {
+    return scanAsync(table, startkey, recordcount, fields, result).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status update(String table, String key, Map<String, ByteIterator> values) {
+    return updateAsync(table, key, values).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status updateMeta(String table, int fieldnum, String cond, String keymatch, String fieldkey,
+                           String fieldvalue) {
+    return updateMetaAsync(table, fieldnum, cond, keymatch, fieldkey, fieldvalue).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status insert(String table, String key, Map<String, ByteIterator> values) {
+    return insertAsync(table, key, values).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status insertTTL(String table, String key, Map<String, ByteIterator> values, int ttl) {
+    return insertTTLAsync(table, key, values, ttl).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status delete(String table, String key) {
+    return deleteAsync(table, key).toCompletableFuture().join();
+  }
+
+  @Override
+  public Status deleteMeta(String table, int fieldnum, String cond, String keymatch) {
+    return deleteMetaAsync(table, fieldnum, cond, keymatch).toCompletableFuture().join();
+  }
+
+  /**
+   * A synchronous DB behind the asynchronous operations.
+   */
+  private static final class Blocking extends AsyncDB {
+    private final DB db;
+
+    private Blocking(DB db) {
+      this.db = db;
+    }
+
+    @Override
+    public void setProperties(Properties p) {
+      db.setProperties(p);
+    }
+
+    @Override
+    public Properties getProperties() {
+      return db.getProperties();
+    }
+
+    @Override
+    public void init() throws DBException {
+      db.init();
+    }
+
+    @Override
+    public void cleanup() throws DBException {
+      db.cleanup();
+    }
+
+    @Override
+    public CompletionStage<Status> readAsync(String table, String key, Set<String> fields,
+                                             Map<String, ByteIterator> result) {
+      return CompletableFuture.completedFuture(db.read(table, key, fields, result));
+    }
+
+    @Override
+    public CompletionStage<Status> readMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                 Vector<HashMap<String, ByteIterator>> result) {
+      return CompletableFuture.completedFuture(db.readMeta(table, fieldnum, cond, keymatch, result));
+    }
+
+    @Override
+    public CompletionStage<Status> scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                             Vector<HashMap<String, ByteIterator>> result) {
+      return CompletableFuture.completedFuture(db.scan(table, startkey, recordcount, fields, result));
+    }
+
+    @Override
+    public CompletionStage<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+      return CompletableFuture.completedFuture(db.update(table, key, values));
+    }
+
+    @Override
+    public CompletionStage<Status> updateMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                   String fieldkey, String fieldvalue) {
+      return CompletableFuture.completedFuture(db.updateMeta(table, fieldnum, cond, keymatch, fieldkey, fieldvalue));
+    }
+
+    @Override
+    public CompletionStage<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+      return CompletableFuture.completedFuture(db.insert(table, key, values));
+    }
+
+    @Override
+    public CompletionStage<Status> insertTTLAsync(String table, String key, Map<String, ByteIterator> values,
+                                                  int ttl) {
+      return CompletableFuture.completedFuture(db.insertTTL(table, key, values, ttl));
+    }
+
+    @Override
+    public CompletionStage<Status> deleteAsync(String table, String key) {
+      return CompletableFuture.completedFuture(db.delete(table, key));
+    }
+
+    @Override
+    public CompletionStage<Status> deleteMetaAsync(String table, int fieldnum, String cond, String keymatch) {
+      return CompletableFuture.completedFuture(db.deleteMeta(table, fieldnum, cond, keymatch));
+    }
+
+    @Override
+    public Status readLog(String table, int logcount) {
+      return db.readLog(table, logcount);
+    }
+
+    @Override
+    public Status verifyTTL(String table, long recordcount) {
+      return db.verifyTTL(table, recordcount);
+    }
+  }
+}
@@ -30,7 +30,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -209,9 +208,10 @@ public final class Client {
    * Exports the measurements to either sysout or a file using the exporter
    * loaded from conf.
    *
+   * @param search The saturation search run instead of the transaction phase, or null.
    * @throws IOException Either failed to write to output stream or failed to close it.
    */
-  private static void exportMeasurements(Properties props, int opcount, long runtime)
+  private static void exportMeasurements(Properties props, int opcount, long runtime, SaturationSearch search)
       throws IOException {
     MeasurementsExporter exporter = null;
     try {
@@ -265,6 +265,10 @@ public final class Client {
         exporter.write("MIN_SYS_LOAD_AVG", "Load", statusthread.getMinLoadAvg());
       }
 
+      if (search != null) {
+        search.export(exporter);
+      }
+
       Measurements.getMeasurements().exportMeasurements(exporter);
     } finally {
       if (exporter != null) {
@@ -286,12 +290,19 @@ public final class Client {
     int threadcount = Integer.parseInt(props.getProperty(THREAD_COUNT_PROPERTY, "1"));
     String dbname = props.getProperty(DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
     int target = Integer.parseInt(props.getProperty(TARGET_PROPERTY, "0"));
+    ClientThreadFactory threadfactory = getThreadFactory(props);
+
+    TargetProfile profile = getTargetProfile(props, target);
+    ArrivalQueue arrivals = getArrivals(props, target, profile);
 
-    //compute the target throughput
-    double targetperthreadperms = -1;
-    if (target > 0) {
-      double targetperthread = ((double) target) / ((double) threadcount);
-      targetperthreadperms = targetperthread / 1000.0;
+    SaturationSearch search = null;
+    if (SaturationSearch.isEnabled(props)) {
+      try {
+        search = new SaturationSearch(props);
+      } catch (IllegalArgumentException e) {
+        System.err.println("Cannot search for saturation: " + e.getMessage());
+        System.exit(-1);
+      }
     }
 
     Thread warningthread = setupWarningThread();
@@ -305,11 +316,18 @@ public final class Client {
 
     initWorkload(props, warningthread, workload, tracer);
 
+    if (search != null) {
+      searchSaturation(props, search, workload, tracer, threadfactory);
+    }
+
     System.err.println("Starting test.");
-    final CountDownLatch completeLatch = new CountDownLatch(threadcount);
+    final RunSettings run = new RunSettings(target, threadcount, arrivals);
+
+    final List<ClientThread> clients = initDb(dbname, props, threadcount, run, workload, tracer);
 
-    final List<ClientThread> clients = initDb(dbname, props, threadcount, targetperthreadperms,
-        workload, tracer, completeLatch);
+    if (profile != null) {
+      profile.start();
+    }
 
     if (status) {
       boolean standardstatus = false;
@@ -319,8 +337,9 @@ public final class Client {
       int statusIntervalSeconds = Integer.parseInt(props.getProperty("status.interval", "10"));
       boolean trackJVMStats = props.getProperty(Measurements.MEASUREMENT_TRACK_JVM_PROPERTY,
           Measurements.MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT).equals("true");
-      statusthread = new StatusThread(completeLatch, clients, label, standardstatus, statusIntervalSeconds,
+      statusthread = new StatusThread(run.getCompleteLatch(), clients, label, standardstatus, statusIntervalSeconds,
           trackJVMStats);
+      statusthread.setTargetProfile(profile);
       statusthread.start();
     }
 
@@ -333,7 +352,7 @@ public final class Client {
 
       final Map<Thread, ClientThread> threads = new HashMap<>(threadcount);
       for (ClientThread client : clients) {
-        threads.put(new Thread(tracer.wrap(client, "ClientThread")), client);
+        threads.put(threadfactory.newThread(tracer.wrap(client, "ClientThread")), client);
       }
 
       st = System.currentTimeMillis();
@@ -389,7 +408,7 @@ public final class Client {
 
     try {
       try (final TraceScope span = tracer.newScope(CLIENT_EXPORT_MEASUREMENTS_SPAN)) {
-        exportMeasurements(props, opsDone, en - st);
+        exportMeasurements(props, opsDone, en - st, null);
       }
     } catch (IOException e) {
       System.err.println("Could not export measurements, error: " + e.getMessage());
@@ -400,9 +419,115 @@ public final class Client {
     System.exit(0);
   }
 
-  private static List<ClientThread> initDb(String dbname, Properties props, int threadcount,
-                                           double targetperthreadperms, Workload workload, Tracer tracer,
-                                           CountDownLatch completeLatch) {
+  /**
+   * Runs the transaction phase in steps until the highest throughput meeting the SLO is found, exports the steps
+   * and exits. The measurements of the latencies are those of the last step.
+   */
+  private static void searchSaturation(Properties props, SaturationSearch search, Workload workload, Tracer tracer,
+                                       ClientThreadFactory threadfactory) {
+    if (props.getProperty(ArrivalQueue.ARRIVAL_PROCESS_PROPERTY, "").equals("histogram")
+        || !props.getProperty(TargetProfile.TARGET_PROFILE_PROPERTY, "constant").equals("constant")) {
+      System.err.println("The saturation search sets the target itself, it cannot replay histogram arrivals "
+          + "or follow a target profile.");
+      System.exit(-1);
+    }
+
+    System.err.println("Starting saturation search.");
+    long st = System.currentTimeMillis();
+    int sustained = 0;
+    try (final TraceScope span = tracer.newScope(CLIENT_WORKLOAD_SPAN)) {
+      sustained = search.search(target -> runSaturationStep(props, target, search, workload, tracer, threadfactory));
+    } catch (IllegalArgumentException e) {
+      System.err.println("Cannot search for saturation: " + e.getMessage());
+      System.exit(-1);
+    }
+    long en = System.currentTimeMillis();
+    System.err.println("Highest throughput meeting the SLO: " + sustained + " ops/sec.");
+
+    int opsDone = 0;
+    for (SaturationSearch.Step step : search.getSteps()) {
+      opsDone += step.getOperations();
+    }
+
+    try {
+      try (final TraceScope span = tracer.newScope(CLIENT_CLEANUP_SPAN)) {
+        workload.cleanup();
+      }
+    } catch (WorkloadException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      System.exit(0);
+    }
+
+    try {
+      try (final TraceScope span = tracer.newScope(CLIENT_EXPORT_MEASUREMENTS_SPAN)) {
+        exportMeasurements(props, opsDone, en - st, search);
+      }
+    } catch (IOException e) {
+      System.err.println("Could not export measurements, error: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(-1);
+    }
+
+    System.exit(0);
+  }
+
+  /**
+   * Runs the transaction phase for the step time of the search at a target and measures it. The step is bounded
+   * by time like a run with a maximum execution time, not by a number of operations, so that a step whose target
+   * the database cannot reach does not run longer than the others.
+   */
+  private static SaturationSearch.Step runSaturationStep(Properties props, int target, SaturationSearch search,
+                                                         Workload workload, Tracer tracer,
+                                                         ClientThreadFactory threadfactory) {
+    Measurements.getMeasurements().reset();
+    String dbname = props.getProperty(DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
+    int threadcount = Integer.parseInt(props.getProperty(THREAD_COUNT_PROPERTY, "1"));
+
+    ArrivalQueue arrivals = getArrivals(props, target, null);
+
+    Properties stepprops = (Properties) props.clone();
+    stepprops.setProperty(DO_TRANSACTIONS_PROPERTY, String.valueOf(true));
+    stepprops.setProperty(OPERATION_COUNT_PROPERTY, "0");
+    final List<ClientThread> clients = initDb(dbname, stepprops, threadcount,
+        new RunSettings(target, threadcount, arrivals), workload, tracer);
+
+    final List<Thread> threads = new ArrayList<>(threadcount);
+    for (ClientThread client : clients) {
+      threads.add(threadfactory.newThread(tracer.wrap(client, "ClientThread")));
+    }
+    long st = System.currentTimeMillis();
+    for (Thread t : threads) {
+      t.start();
+    }
+    Thread terminator = new TerminatorThread(search.getStepTime(), threads, workload);
+    terminator.start();
+    int opsDone = 0;
+    for (int i = 0; i < threads.size(); i++) {
+      try {
+        threads.get(i).join();
+        opsDone += clients.get(i).getOpsDone();
+      } catch (InterruptedException ignored) {
+        // ignored
+      }
+    }
+    long en = System.currentTimeMillis();
+
+    // the next step runs the same workload, so its stop request must be over and withdrawn
+    terminator.interrupt();
+    try {
+      terminator.join();
+    } catch (InterruptedException ignored) {
+      // ignored
+    }
+    workload.clearStopRequest();
+
+    return new SaturationSearch.Step(target, opsDone, en - st,
+        Measurements.getMeasurements().getPercentiles(search.getPercentile()));
+  }
+
+  private static List<ClientThread> initDb(String dbname, Properties props, int threadcount, RunSettings run,
+                                           Workload workload, Tracer tracer) {
     boolean initFailed = false;
     boolean dotransactions = Boolean.valueOf(props.getProperty(DO_TRANSACTIONS_PROPERTY, String.valueOf(true)));
 
@@ -436,8 +561,7 @@ public final class Client {
           ++threadopcount;
         }
 
-        ClientThread t = new ClientThread(db, dotransactions, workload, props, threadopcount, targetperthreadperms,
-            completeLatch);
+        ClientThread t = new ClientThread(db, dotransactions, workload, props, threadopcount, run);
         t.setThreadId(threadid);
         t.setThreadCount(threadcount);
         clients.add(t);
@@ -497,6 +621,45 @@ public final class Client {
     };
   }
 
+  private static TargetProfile getTargetProfile(Properties props, int target) {
+    try {
+      return TargetProfile.fromProperties(props, target);
+    } catch (IOException e) {
+      System.err.println("Could not read the target profile, error: " + e.getMessage());
+      System.exit(-1);
+    } catch (IllegalArgumentException e) {
+      System.err.println("Cannot set up the target profile: " + e.getMessage());
+      System.exit(-1);
+    }
+
+    return null;
+  }
+
+  private static ArrivalQueue getArrivals(Properties props, int target, TargetProfile profile) {
+    try {
+      return ArrivalQueue.fromProperties(props, target, profile);
+    } catch (IOException e) {
+      System.err.println("Could not read the arrivals, error: " + e.getMessage());
+      System.exit(-1);
+    } catch (IllegalArgumentException e) {
+      System.err.println("Cannot set up the arrivals: " + e.getMessage());
+      System.exit(-1);
+    }
+
+    return null;
+  }
+
+  private static ClientThreadFactory getThreadFactory(Properties props) {
+    try {
+      return ClientThreadFactory.fromProperties(props);
+    } catch (IllegalArgumentException e) {
+      System.err.println("Cannot create the client threads: " + e.getMessage());
+      System.exit(-1);
+    }
+
+    return null;
+  }
+
   private static Workload getWorkload(Properties props) {
     ClassLoader classLoader = Client.class.getClassLoader();
 
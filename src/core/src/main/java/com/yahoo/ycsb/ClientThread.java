@@ -2,14 +2,37 @@ package com.yahoo.ycsb;
 
 import com.yahoo.ycsb.measurements.Measurements;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 /**
  * A thread for executing transactions or data inserts to the database.
+ * <p>
+ * Against a DB supporting asynchronous requests (see {@link AsyncDB}) the thread can keep several requests in
+ * flight: each has its own workload thread state, and the next operation is issued as soon as one of them
+ * completes. Otherwise every operation waits for the previous one.
+ * <p>
+ * With a target the thread issues its operations at fixed ticks, or, under an open-loop {@link ArrivalQueue}
+ * shared with the other threads, once for each arrival it takes from the queue.
  */
 public class ClientThread implements Runnable {
+  /**
+   * The name of the property for the number of requests each client thread keeps in flight against a DB
+   * supporting asynchronous requests.
+   */
+  public static final String OUTSTANDING_REQUESTS_PROPERTY = "outstandingrequests";
+
+  /**
+   * The default number of requests in flight, one operation at a time.
+   */
+  public static final String OUTSTANDING_REQUESTS_PROPERTY_DEFAULT = "1";
+
   // Counts down each of the clients completing.
   private final CountDownLatch completeLatch;
 
@@ -28,6 +51,13 @@ public class ClientThread implements Runnable {
   private long targetOpsTickNs;
   private final Measurements measurements;
 
+  private final int outstanding;
+  private boolean async;
+  private final AtomicInteger asyncopsdone = new AtomicInteger();
+
+  /** The arrivals the operations are issued at, null for the ticks of the target. */
+  private ArrivalQueue arrivals;
+
   /**
    * Constructor.
    *
@@ -53,9 +83,26 @@ public class ClientThread implements Runnable {
     this.props = props;
     measurements = Measurements.getMeasurements();
     spinSleep = Boolean.valueOf(this.props.getProperty("spin.sleep", "false"));
+    outstanding = Integer.parseInt(
+        this.props.getProperty(OUTSTANDING_REQUESTS_PROPERTY, OUTSTANDING_REQUESTS_PROPERTY_DEFAULT));
     this.completeLatch = completeLatch;
   }
 
+  /**
+   * Constructor for a thread of a run, issuing its operations at the pace of the run.
+   *
+   * @param db             the DB implementation to use
+   * @param dotransactions true to do transactions, false to insert data
+   * @param workload       the workload to use
+   * @param props          the properties defining the experiment
+   * @param opcount        the number of operations (transactions or inserts) to do
+   * @param run            the pace of the run and the latch tracking the completion of all clients
+   */
+  ClientThread(DB db, boolean dotransactions, Workload workload, Properties props, int opcount, RunSettings run) {
+    this(db, dotransactions, workload, props, opcount, run.getTargetPerThreadPerMs(), run.getCompleteLatch());
+    this.arrivals = run.getArrivals();
+  }
+
   public void setThreadId(final int threadId) {
     threadid = threadId;
   }
@@ -65,7 +112,7 @@ public class ClientThread implements Runnable {
   }
 
   public int getOpsDone() {
-    return opsdone;
+    return async ? asyncopsdone.get() : opsdone;
   }
 
   @Override
@@ -78,8 +125,23 @@ public class ClientThread implements Runnable {
       return;
     }
 
+    async = outstanding > 1 && supportsAsync(db);
+    if (outstanding > 1 && !async && threadid == 0) {
+      System.err.println("The DB does not support asynchronous requests, ignoring "
+          + OUTSTANDING_REQUESTS_PROPERTY + "=" + outstanding + ".");
+    }
+
+    Object[] asyncstates = null;
     try {
-      workloadstate = workload.initThread(props, threadid, threadcount);
+      if (async) {
+        // every request in flight is a client thread of its own to the workload
+        asyncstates = new Object[outstanding];
+        for (int i = 0; i < outstanding; i++) {
+          asyncstates[i] = workload.initThread(props, threadid * outstanding + i, threadcount * outstanding);
+        }
+      } else {
+        workloadstate = workload.initThread(props, threadid, threadcount);
+      }
     } catch (WorkloadException e) {
       e.printStackTrace();
       e.printStackTrace(System.out);
@@ -97,10 +159,13 @@ public class ClientThread implements Runnable {
       sleepUntil(System.nanoTime() + randomMinorDelay);
     }
     try {
-      if (dotransactions) {
+      if (async) {
+        runAsync(asyncstates);
+      } else if (dotransactions) {
         long startTimeNanos = System.nanoTime();
 
         while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
+          awaitArrival();
 
           if (!workload.doTransaction(db, workloadstate)) {
             break;
@@ -108,12 +173,13 @@ public class ClientThread implements Runnable {
 
           opsdone++;
 
-          throttleNanos(startTimeNanos);
+          throttleNanos(startTimeNanos, opsdone);
         }
       } else {
         long startTimeNanos = System.nanoTime();
 
         while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
+          awaitArrival();
 
           if (!workload.doInsert(db, workloadstate)) {
             break;
@@ -121,7 +187,7 @@ public class ClientThread implements Runnable {
 
           opsdone++;
 
-          throttleNanos(startTimeNanos);
+          throttleNanos(startTimeNanos, opsdone);
         }
       }
     } catch (Exception e) {
@@ -149,21 +215,80 @@ public class ClientThread implements Runnable {
     }
   }
 
-  private void throttleNanos(long startTimeNanos) {
+  private void throttleNanos(long startTimeNanos, int issued) {
     //throttle the operations
     if (targetOpsPerMs > 0) {
       // delay until next tick
-      long deadline = startTimeNanos + opsdone * targetOpsTickNs;
+      long deadline = startTimeNanos + issued * targetOpsTickNs;
       sleepUntil(deadline);
       measurements.setIntendedStartTimeNs(deadline);
     }
   }
 
+  private void awaitArrival() {
+    if (arrivals != null) {
+      long arrival = arrivals.take();
+      sleepUntil(arrival);
+      measurements.setIntendedStartTimeNs(arrival);
+    }
+  }
+
+  private static boolean supportsAsync(DB db) {
+    return db instanceof DBWrapper ? ((DBWrapper) db).isAsync() : db instanceof AsyncDB;
+  }
+
+  /**
+   * Issue the operations of this thread with up to one request in flight per workload state. A state is handed
+   * to the next operation once the request it was used for completed; the thread waits for all of them before
+   * returning.
+   */
+  private void runAsync(Object[] states) throws InterruptedException {
+    AsyncDB asyncdb = (AsyncDB) db;
+    BlockingQueue<Object> idle = new ArrayBlockingQueue<>(states.length);
+    for (Object state : states) {
+      idle.add(state);
+    }
+    AtomicBoolean done = new AtomicBoolean();
+    long startTimeNanos = System.nanoTime();
+    int issued = 0;
+
+    while (((opcount == 0) || (issued < opcount)) && !workload.isStopRequested() && !done.get()) {
+      Object state = idle.take();
+      if (done.get()) {
+        idle.add(state);
+        break;
+      }
+      awaitArrival();
+
+      CompletionStage<Boolean> operation = dotransactions ? workload.doTransactionAsync(asyncdb, state)
+          : workload.doInsertAsync(asyncdb, state);
+      operation.whenComplete((more, error) -> {
+          if (error != null) {
+            error.printStackTrace();
+            done.set(true);
+          } else if (!more) {
+            done.set(true);
+          } else {
+            asyncopsdone.incrementAndGet();
+          }
+          idle.add(state);
+        });
+      issued++;
+
+      throttleNanos(startTimeNanos, issued);
+    }
+
+    // wait for the requests still in flight
+    for (int i = 0; i < states.length; i++) {
+      idle.take();
+    }
+  }
+
   /**
    * The total amount of work this thread is still expected to do.
    */
   int getOpsTodo() {
-    int todo = opcount - opsdone;
+    int todo = opcount - getOpsDone();
     return todo < 0 ? 0 : todo;
   }
 }
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Properties;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the threads the {@link ClientThread}s run on.
+ * <p>
+ * By default every client thread is a platform thread, optionally with a
+ * smaller stack than the JVM default so that many of them fit in memory. In
+ * the "virtual" mode they are virtual threads scheduled on a pool of carrier
+ * threads, so that tens of thousands of concurrent clients cost little more
+ * than their heap state. Virtual threads need a JVM of version 21 or later
+ * and are created reflectively, as the client is built for older versions;
+ * on older JVMs the platform mode is used instead.
+ * <p>
+ * Throttling parks the client threads until their next tick, which releases
+ * the carrier of a virtual thread, and the intended start times are thread
+ * locals, which virtual threads have too. Busy-wait throttling (spin.sleep)
+ * would keep carriers from running other clients and is switched off in the
+ * virtual mode.
+ */
+final class ClientThreadFactory implements ThreadFactory {
+  /**
+   * The name of the property for the kind of threads the client threads run on, "platform" or "virtual".
+   */
+  public static final String THREAD_MODE_PROPERTY = "threadmode";
+
+  public static final String THREAD_MODE_PROPERTY_DEFAULT = "platform";
+
+  /**
+   * The name of the property for the number of carrier threads virtual client threads are scheduled on (default:
+   * the number of processors).
+   */
+  public static final String VIRTUAL_CARRIERS_PROPERTY = "virtualcarriers";
+
+  /**
+   * The name of the property for the stack size of platform client threads in bytes, 0 for the JVM default.
+   */
+  public static final String THREAD_STACK_SIZE_PROPERTY = "threadstacksize";
+
+  public static final String THREAD_STACK_SIZE_PROPERTY_DEFAULT = "0";
+
+  private static final String SCHEDULER_PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+  private static final String SCHEDULER_MAX_POOL_SIZE = "jdk.virtualThreadScheduler.maxPoolSize";
+
+  private final long stacksize;
+
+  /** Thread.ofVirtual() and Thread.Builder#unstarted(Runnable), null in the platform mode. */
+  private final Method ofVirtual;
+  private final Method unstarted;
+
+  private ClientThreadFactory(long stacksize, Method ofVirtual, Method unstarted) {
+    this.stacksize = stacksize;
+    this.ofVirtual = ofVirtual;
+    this.unstarted = unstarted;
+  }
+
+  /**
+   * The factory configured by the properties. In the virtual mode this sizes the carrier pool, so it must be
+   * called before any virtual thread is started in the JVM; it also switches off spin.sleep in the properties.
+   */
+  static ClientThreadFactory fromProperties(Properties props) {
+    long stacksize =
+        Long.parseLong(props.getProperty(THREAD_STACK_SIZE_PROPERTY, THREAD_STACK_SIZE_PROPERTY_DEFAULT));
+    String mode = props.getProperty(THREAD_MODE_PROPERTY, THREAD_MODE_PROPERTY_DEFAULT);
+    if (mode.equals("platform")) {
+      return new ClientThreadFactory(stacksize, null, null);
+    }
+    if (!mode.equals("virtual")) {
+      throw new IllegalArgumentException("Unknown thread mode \"" + mode + "\"");
+    }
+
+    Method ofVirtual;
+    Method unstarted;
+    try {
+      ofVirtual = Thread.class.getMethod("ofVirtual");
+      unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+    } catch (NoSuchMethodException | ClassNotFoundException e) {
+      System.err.println("Virtual threads need Java 21 or later, running the clients on platform threads.");
+      return new ClientThreadFactory(stacksize, null, null);
+    }
+
+    int carriers = Integer.parseInt(props.getProperty(VIRTUAL_CARRIERS_PROPERTY,
+        String.valueOf(Runtime.getRuntime().availableProcessors())));
+    if (carriers <= 0) {
+      throw new IllegalArgumentException(VIRTUAL_CARRIERS_PROPERTY + " must be positive");
+    }
+    // the scheduler reads these once, when the first virtual thread starts; explicit JVM options win
+    if (System.getProperty(SCHEDULER_PARALLELISM) == null) {
+      System.setProperty(SCHEDULER_PARALLELISM, String.valueOf(carriers));
+    }
+    if (System.getProperty(SCHEDULER_MAX_POOL_SIZE) == null) {
+      System.setProperty(SCHEDULER_MAX_POOL_SIZE, String.valueOf(carriers));
+    }
+    if (Boolean.parseBoolean(props.getProperty("spin.sleep", "false"))) {
+      System.err.println("Ignoring spin.sleep, busy waiting would block the carriers of virtual client threads.");
+      props.setProperty("spin.sleep", "false");
+    }
+    return new ClientThreadFactory(stacksize, ofVirtual, unstarted);
+  }
+
+  boolean isVirtual() {
+    return ofVirtual != null;
+  }
+
+  /**
+   * An unstarted thread running the client.
+   */
+  @Override
+  public Thread newThread(Runnable client) {
+    if (ofVirtual == null) {
+      return new Thread(null, client, "ClientThread", stacksize);
+    }
+    try {
+      return (Thread) unstarted.invoke(ofVirtual.invoke(null), client);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Could not create a virtual thread", e);
+    }
+  }
+}
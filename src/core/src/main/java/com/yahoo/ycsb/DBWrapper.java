@@ -23,12 +23,19 @@ import org.apache.htrace.core.TraceScope;
 import org.apache.htrace.core.Tracer;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
 /**
  * Wrapper around a "real" DB that measures latencies and counts return codes.
  * Also reports latency separately between OK and failed operations.
+ * <p>
+ * The asynchronous operations of an {@link AsyncDB} are measured from the
+ * time they were issued to their completion. Those of any other DB run
+ * synchronously and return a completed stage.
  */
-public class DBWrapper extends DB {
+public class DBWrapper extends AsyncDB {
   private final DB db;
   private final Measurements measurements;
   private final Tracer tracer;
@@ -329,4 +336,112 @@ public class DBWrapper extends DB {
       return res;
     }
   }
+
+  /**
+   * Whether the wrapped DB keeps several requests in flight, see {@link AsyncDB}.
+   */
+  public boolean isAsync() {
+    return db instanceof AsyncDB;
+  }
+
+  /**
+   * Issue an asynchronous operation in its trace scope and measure it from now until it completes. A failed stage
+   * completes the returned one with an error status.
+   */
+  private CompletionStage<Status> measureAsync(String scope, final String op,
+                                               Supplier<CompletionStage<Status>> operation) {
+    try (final TraceScope span = tracer.newScope(scope)) {
+      final long ist = measurements.getIntendedtartTimeNs();
+      final long st = System.nanoTime();
+      return operation.get().handle((res, error) -> {
+          long en = System.nanoTime();
+          Status status = error == null && res != null ? res : Status.ERROR;
+          measure(op, status, ist, st, en);
+          measurements.reportStatus(op, status);
+          return status;
+        });
+    }
+  }
+
+  @Override
+  public CompletionStage<Status> readAsync(String table, String key, Set<String> fields,
+                                           Map<String, ByteIterator> result) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(read(table, key, fields, result));
+    }
+    return measureAsync(scopeStringRead, "READ", () -> ((AsyncDB) db).readAsync(table, key, fields, result));
+  }
+
+  @Override
+  public CompletionStage<Status> readMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                               Vector<HashMap<String, ByteIterator>> result) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(readMeta(table, fieldnum, cond, keymatch, result));
+    }
+    return measureAsync(scopeStringReadMeta, "READMETA",
+        () -> ((AsyncDB) db).readMetaAsync(table, fieldnum, cond, keymatch, result));
+  }
+
+  @Override
+  public CompletionStage<Status> scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                           Vector<HashMap<String, ByteIterator>> result) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(scan(table, startkey, recordcount, fields, result));
+    }
+    return measureAsync(scopeStringScan, "SCAN",
+        () -> ((AsyncDB) db).scanAsync(table, startkey, recordcount, fields, result));
+  }
+
+  @Override
+  public CompletionStage<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(update(table, key, values));
+    }
+    return measureAsync(scopeStringUpdate, "UPDATE", () -> ((AsyncDB) db).updateAsync(table, key, values));
+  }
+
+  @Override
+  public CompletionStage<Status> updateMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                 String fieldkey, String fieldvalue) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(updateMeta(table, fieldnum, cond, keymatch, fieldkey, fieldvalue));
+    }
+    return measureAsync(scopeStringUpdateMeta, "UPDATEMETA",
+        () -> ((AsyncDB) db).updateMetaAsync(table, fieldnum, cond, keymatch, fieldkey, fieldvalue));
+  }
+
+  @Override
+  public CompletionStage<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(insert(table, key, values));
+    }
+    return measureAsync(scopeStringInsert, "INSERT", () -> ((AsyncDB) db).insertAsync(table, key, values));
+  }
+
+  @Override
+  public CompletionStage<Status> insertTTLAsync(String table, String key, Map<String, ByteIterator> values,
+                                                int ttl) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(insertTTL(table, key, values, ttl));
+    }
+    return measureAsync(scopeStringInsert, "INSERT",
+        () -> ((AsyncDB) db).insertTTLAsync(table, key, values, ttl));
+  }
+
+  @Override
+  public CompletionStage<Status> deleteAsync(String table, String key) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(delete(table, key));
+    }
+    return measureAsync(scopeStringDelete, "DELETE", () -> ((AsyncDB) db).deleteAsync(table, key));
+  }
+
+  @Override
+  public CompletionStage<Status> deleteMetaAsync(String table, int fieldnum, String cond, String keymatch) {
+    if (!isAsync()) {
+      return CompletableFuture.completedFuture(deleteMeta(table, fieldnum, cond, keymatch));
+    }
+    return measureAsync(scopeStringDeleteMeta, "DELETEMETA",
+        () -> ((AsyncDB) db).deleteMetaAsync(table, fieldnum, cond, keymatch));
+  }
 }
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-process equivalent of {@code tail -n}, used by bindings to read the last
+ * records of a database log (AOF, audit log, ...).
+ *
+ * The file is memory-mapped in fixed size windows starting from its end, so
+ * only the pages holding the requested lines are ever touched, however large
+ * the log has grown.
+ */
+public final class LogTail {
+  /**
+   * Size of the windows the file is mapped in while seeking backward.
+   */
+  static final int WINDOW_SIZE = 1 << 20;
+
+  private LogTail() {
+    // not used
+  }
+
+  /**
+   * Return the last lines of a file, oldest first, without line terminators.
+   *
+   * @param path The file to read.
+   * @param count The maximum number of lines to return.
+   * @return The last {@code count} lines, fewer if the file is shorter.
+   * @throws IOException if the file cannot be read.
+   */
+  public static List<String> tail(Path path, int count) throws IOException {
+    if (count <= 0) {
+      return Collections.emptyList();
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long end = channel.size();
+      if (end == 0) {
+        return Collections.emptyList();
+      }
+      long start = findStart(channel, end, count);
+      return split(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+    }
+  }
+
+  /*
+   * Offset of the first byte of the last count lines: just past the count-th
+   * newline from the end, not counting a newline terminating the last line.
+   */
+  private static long findStart(FileChannel channel, long end, int count) throws IOException {
+    int newlines = 0;
+    long windowEnd = end;
+    while (windowEnd > 0) {
+      long windowStart = Math.max(0, windowEnd - WINDOW_SIZE);
+      MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+      for (int i = window.limit() - 1; i >= 0; i--) {
+        if (window.get(i) == '\n' && windowStart + i != end - 1 && ++newlines == count) {
+          return windowStart + i + 1;
+        }
+      }
+      windowEnd = windowStart;
+    }
+    return 0;
+  }
+
+  private static List<String> split(MappedByteBuffer region) {
+    List<String> lines = new ArrayList<>();
+    byte[] bytes = new byte[region.remaining()];
+    region.get(bytes);
+    int from = 0;
+    for (int i = 0; i <= bytes.length; i++) {
+      if (i == bytes.length || bytes[i] == '\n') {
+        if (i == bytes.length && from == i) {
+          break;
+        }
+        int to = i > from && bytes[i - 1] == '\r' ? i - 1 : i;
+        lines.add(new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        from = i + 1;
+      }
+    }
+    return lines;
+  }
+}
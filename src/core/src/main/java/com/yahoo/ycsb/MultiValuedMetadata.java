@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The metadata fields of the GDPR workload that may hold a set of values per
+ * record (the purposes, the access list and the parties the data is shared
+ * with), and how such a set is stored and matched.
+ * <p>
+ * A set is stored as its values separated and enclosed by commas, as in
+ * ",purpose3,purpose17,". A metadata condition on a multi-valued field
+ * matches a record whose set contains the condition; on any other field it
+ * matches a record whose value equals it. Values are never empty and never
+ * contain a comma.
+ */
+public final class MultiValuedMetadata {
+  /**
+   * The name of the property for the maximum number of purposes of a record.
+   */
+  public static final String PURPOSE_MAX_VALUES_PROPERTY = "purmaxvalues";
+
+  /**
+   * The name of the property for the maximum number of entries of the access list of a record.
+   */
+  public static final String ACL_MAX_VALUES_PROPERTY = "aclmaxvalues";
+
+  /**
+   * The name of the property for the maximum number of parties a record is shared with.
+   */
+  public static final String SHARED_MAX_VALUES_PROPERTY = "shrmaxvalues";
+
+  /**
+   * The default maximum number of values, a single value per record.
+   */
+  public static final String MAX_VALUES_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The separator of the values of a set.
+   */
+  public static final char SEPARATOR = ',';
+
+  private static final String[] FIELDS = {"PUR", "ACL", "SHR"};
+
+  private static final String[] PROPERTIES =
+      {PURPOSE_MAX_VALUES_PROPERTY, ACL_MAX_VALUES_PROPERTY, SHARED_MAX_VALUES_PROPERTY};
+
+  private MultiValuedMetadata() {
+    // not used
+  }
+
+  /**
+   * The maximum number of values of a field per record, 1 for fields that
+   * are never multi-valued.
+   */
+  public static int maxValues(Properties p, String field) {
+    for (int i = 0; i < FIELDS.length; i++) {
+      if (FIELDS[i].equalsIgnoreCase(field)) {
+        return Math.max(1, Integer.parseInt(p.getProperty(PROPERTIES[i], MAX_VALUES_PROPERTY_DEFAULT)));
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * The fields holding sets of values under the given properties, in upper case.
+   */
+  public static Set<String> fields(Properties p) {
+    Set<String> fields = new LinkedHashSet<String>();
+    for (String field : FIELDS) {
+      if (maxValues(p, field) > 1) {
+        fields.add(field);
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Store a set of values.
+   */
+  public static String encode(Collection<String> values) {
+    StringBuilder sb = new StringBuilder().append(SEPARATOR);
+    for (String value : values) {
+      sb.append(value).append(SEPARATOR);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * The values of a stored field: the members of a set, or the value itself.
+   */
+  public static List<String> values(String stored) {
+    List<String> values = new ArrayList<String>();
+    int start = 0;
+    for (int end = stored.indexOf(SEPARATOR); end >= 0; end = stored.indexOf(SEPARATOR, start)) {
+      if (end > start) {
+        values.add(stored.substring(start, end));
+      }
+      start = end + 1;
+    }
+    if (start < stored.length()) {
+      values.add(stored.substring(start));
+    }
+    return values;
+  }
+
+  /**
+   * Whether a stored field matches a metadata condition.
+   */
+  public static boolean matches(String stored, String condition) {
+    if (stored == null) {
+      return false;
+    }
+    if (stored.equals(condition)) {
+      return true;
+    }
+    int at = stored.indexOf(condition);
+    while (at > 0) {
+      int end = at + condition.length();
+      if (stored.charAt(at - 1) == SEPARATOR && end < stored.length() && stored.charAt(end) == SEPARATOR) {
+        return true;
+      }
+      at = stored.indexOf(condition, at + 1);
+    }
+    return false;
+  }
+
+  /**
+   * The SQL LIKE pattern matching the sets containing a value.
+   */
+  public static String likePattern(String value) {
+    return "%" + SEPARATOR + value + SEPARATOR + "%";
+  }
+}
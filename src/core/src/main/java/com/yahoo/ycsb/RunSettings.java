@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The settings of a run of the client threads that are not properties: the
+ * pace at which they issue their operations, either the ticks of their share
+ * of the target throughput or the arrivals of a shared {@link ArrivalQueue},
+ * and the latch counting them down as they complete.
+ */
+final class RunSettings {
+  private final double targetperthreadperms;
+  private final ArrivalQueue arrivals;
+  private final CountDownLatch completeLatch;
+
+  /**
+   * @param target The target number of operations per second of all threads, 0 for none. Unused under arrivals.
+   * @param arrivals The arrivals to issue the operations at, null for the ticks of the target.
+   */
+  RunSettings(int target, int threadcount, ArrivalQueue arrivals) {
+    this.targetperthreadperms = target > 0 && arrivals == null ? target / (double) threadcount / 1000.0 : -1;
+    this.arrivals = arrivals;
+    this.completeLatch = new CountDownLatch(threadcount);
+  }
+
+  /**
+   * The target number of operations per thread per millisecond, -1 for none.
+   */
+  double getTargetPerThreadPerMs() {
+    return targetperthreadperms;
+  }
+
+  ArrivalQueue getArrivals() {
+    return arrivals;
+  }
+
+  CountDownLatch getCompleteLatch() {
+    return completeLatch;
+  }
+}
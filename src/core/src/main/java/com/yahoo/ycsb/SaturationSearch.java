@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Finds the highest throughput the database sustains under a latency SLO
+ * within a single run of the client: the transaction phase is run in short
+ * steps, each at a target throughput, and after each step the latencies are
+ * checked against the SLO. The target is doubled until a step misses the SLO
+ * and then bisected between the highest target that met it and the lowest
+ * that did not.
+ * <p>
+ * A step meets the SLO when the given percentile of the latency of each
+ * operation named in the SLO is within its limit, and the throughput reached
+ * at least {@link #MIN_THROUGHPUT_FRACTION} of the target, so that a database
+ * that cannot keep up is not judged by the latencies of the fewer operations
+ * it served. Each step is exported, making up the throughput/latency curve.
+ * <p>
+ * Only HdrHistogram measurements have percentiles, so the search needs one of
+ * the hdrhistogram measurement types, and a name in the SLO that a step
+ * reaching its target did not measure is taken for a mistake in the SLO.
+ */
+final class SaturationSearch {
+  /**
+   * The name of the property to search for the highest sustainable throughput instead of running the transaction
+   * phase once.
+   */
+  public static final String SATURATION_PROPERTY = "saturation";
+
+  public static final String SATURATION_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the property for the SLO, as comma separated measurement:milliseconds pairs, e.g.
+   * "READMETA:50,UPDATEMETA:100".
+   */
+  public static final String SLO_PROPERTY = "saturation.slo";
+
+  /**
+   * The name of the property for the percentile of the latencies the SLO limits.
+   */
+  public static final String PERCENTILE_PROPERTY = "saturation.percentile";
+
+  public static final String PERCENTILE_PROPERTY_DEFAULT = "99";
+
+  /**
+   * The name of the property for the target of the first step in operations per second.
+   */
+  public static final String START_PROPERTY = "saturation.start";
+
+  public static final String START_PROPERTY_DEFAULT = "1000";
+
+  /**
+   * The name of the property for the seconds each step runs at its target.
+   */
+  public static final String STEP_TIME_PROPERTY = "saturation.steptime";
+
+  public static final String STEP_TIME_PROPERTY_DEFAULT = "30";
+
+  /**
+   * The name of the property for how close, as a fraction of the target, the search gets to the highest
+   * sustainable throughput before it stops.
+   */
+  public static final String PRECISION_PROPERTY = "saturation.precision";
+
+  public static final String PRECISION_PROPERTY_DEFAULT = "0.05";
+
+  /**
+   * The name of the property for the most steps to run.
+   */
+  public static final String MAX_STEPS_PROPERTY = "saturation.maxsteps";
+
+  public static final String MAX_STEPS_PROPERTY_DEFAULT = "20";
+
+  /**
+   * The fraction of its target a step must reach to meet the SLO.
+   */
+  static final double MIN_THROUGHPUT_FRACTION = 0.9;
+
+  /**
+   * A step of the search.
+   */
+  static final class Step {
+    private final int target;
+    private final int operations;
+    private final long runtime;
+    private final Map<String, Double> latencies;
+    private boolean sustained;
+
+    /**
+     * @param operations The number of operations done in the step.
+     * @param runtime The milliseconds the step ran.
+     * @param latencies The percentile of the latencies in microseconds by measurement.
+     */
+    Step(int target, int operations, long runtime, Map<String, Double> latencies) {
+      this.target = target;
+      this.operations = operations;
+      this.runtime = runtime;
+      this.latencies = new TreeMap<>(latencies);
+    }
+
+    int getTarget() {
+      return target;
+    }
+
+    int getOperations() {
+      return operations;
+    }
+
+    double getThroughput() {
+      return 1000.0 * operations / runtime;
+    }
+
+    boolean isSustained() {
+      return sustained;
+    }
+  }
+
+  private final Map<String, Double> slo = new LinkedHashMap<>();
+  private final double percentile;
+  private final int start;
+  private final int steptime;
+  private final double precision;
+  private final int maxsteps;
+
+  private final List<Step> steps = new ArrayList<>();
+  private int sustained;
+
+  SaturationSearch(Properties props) {
+    String limits = props.getProperty(SLO_PROPERTY);
+    if (limits == null) {
+      throw new IllegalArgumentException(SATURATION_PROPERTY + " needs " + SLO_PROPERTY);
+    }
+    for (String limit : limits.split(",")) {
+      String[] pair = limit.trim().split(":");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Cannot read \"" + limit + "\" of " + SLO_PROPERTY
+            + ", expected measurement:milliseconds");
+      }
+      // the latencies are measured in microseconds
+      slo.put(pair[0].trim(), Double.parseDouble(pair[1].trim()) * 1000);
+    }
+    percentile = Double.parseDouble(props.getProperty(PERCENTILE_PROPERTY, PERCENTILE_PROPERTY_DEFAULT));
+    start = Integer.parseInt(props.getProperty(START_PROPERTY, START_PROPERTY_DEFAULT));
+    steptime = Integer.parseInt(props.getProperty(STEP_TIME_PROPERTY, STEP_TIME_PROPERTY_DEFAULT));
+    precision = Double.parseDouble(props.getProperty(PRECISION_PROPERTY, PRECISION_PROPERTY_DEFAULT));
+    maxsteps = Integer.parseInt(props.getProperty(MAX_STEPS_PROPERTY, MAX_STEPS_PROPERTY_DEFAULT));
+    if (start <= 0 || steptime <= 0) {
+      throw new IllegalArgumentException(START_PROPERTY + " and " + STEP_TIME_PROPERTY + " must be positive");
+    }
+    String type = props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY,
+        Measurements.MEASUREMENT_TYPE_PROPERTY_DEFAULT);
+    if (!type.startsWith("hdrhistogram")) {
+      throw new IllegalArgumentException(SATURATION_PROPERTY + " needs the percentiles of "
+          + Measurements.MEASUREMENT_TYPE_PROPERTY + "=hdrhistogram, hdrhistogram+histogram or hdrhistogram+raw, "
+          + "not " + type);
+    }
+  }
+
+  static boolean isEnabled(Properties props) {
+    return Boolean.parseBoolean(props.getProperty(SATURATION_PROPERTY, SATURATION_PROPERTY_DEFAULT));
+  }
+
+  double getPercentile() {
+    return percentile;
+  }
+
+  int getStepTime() {
+    return steptime;
+  }
+
+  /**
+   * Run the steps of the search.
+   *
+   * @param runner Runs a step at the given target and returns what it measured.
+   * @return The highest target that met the SLO, 0 if none did.
+   * @throws IllegalArgumentException If a step reaching its target did not measure an operation of the SLO.
+   */
+  int search(IntFunction<Step> runner) {
+    // the highest target that met the SLO and the lowest that did not, 0 for none yet
+    int low = 0;
+    int high = 0;
+    int target = start;
+    while (steps.size() < maxsteps) {
+      Step step = runner.apply(target);
+      step.sustained = meetsSlo(step);
+      steps.add(step);
+      System.err.println("Saturation search: " + target + " ops/sec " + (step.sustained ? "met" : "missed")
+          + " the SLO at " + new DecimalFormat("#.##").format(step.getThroughput()) + " ops/sec.");
+
+      if (step.sustained) {
+        low = target;
+      } else {
+        high = target;
+      }
+      if (high == 0) {
+        if (low == Integer.MAX_VALUE) {
+          break;
+        }
+        target = (int) Math.min(2L * low, Integer.MAX_VALUE);
+      } else if (high - low <= Math.max(1, precision * high)) {
+        break;
+      } else {
+        target = low + (high - low) / 2;
+      }
+    }
+    sustained = low;
+    return low;
+  }
+
+  private boolean meetsSlo(Step step) {
+    if (step.getThroughput() < MIN_THROUGHPUT_FRACTION * step.target) {
+      return false;
+    }
+    for (Map.Entry<String, Double> limit : slo.entrySet()) {
+      Double latency = step.latencies.get(limit.getKey());
+      if (latency == null) {
+        throw new IllegalArgumentException("The step at " + step.target + " ops/sec did not measure "
+            + limit.getKey() + " of " + SLO_PROPERTY + ", only " + step.latencies.keySet());
+      }
+      if (latency > limit.getValue()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  List<Step> getSteps() {
+    return Collections.unmodifiableList(steps);
+  }
+
+  /**
+   * Export the result and the throughput and latencies of every step, in the order they ran.
+   */
+  void export(MeasurementsExporter exporter) throws IOException {
+    String latency = new DecimalFormat("#.##").format(percentile) + "PercentileLatency(us)";
+    exporter.write("SATURATION", "MaxSustainedThroughput(ops/sec)", sustained);
+    for (int i = 0; i < steps.size(); i++) {
+      Step step = steps.get(i);
+      String metric = "SATURATION-STEP-" + (i + 1);
+      exporter.write(metric, "Target(ops/sec)", step.target);
+      exporter.write(metric, "RunTime(ms)", step.runtime);
+      exporter.write(metric, "Throughput(ops/sec)", step.getThroughput());
+      exporter.write(metric, "MetSLO", step.sustained ? 1 : 0);
+      for (Map.Entry<String, Double> entry : step.latencies.entrySet()) {
+        exporter.write(metric, entry.getKey() + "-" + latency, entry.getValue());
+      }
+    }
+  }
+}
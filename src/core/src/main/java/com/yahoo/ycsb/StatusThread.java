@@ -30,6 +30,9 @@ public class StatusThread extends Thread {
   // The interval for reporting status.
   private long sleeptimeNs;
 
+  // The target throughput over time, null for a constant one.
+  private TargetProfile profile;
+
   // JVM max/mins
   private int maxThreads;
   private int minThreads = Integer.MAX_VALUE;
@@ -78,6 +81,13 @@ public class StatusThread extends Thread {
     this.trackJVMStats = trackJVMStats;
   }
 
+  /**
+   * Report the current target of a profile with each status.
+   */
+  void setTargetProfile(TargetProfile targetProfile) {
+    profile = targetProfile;
+  }
+
   /**
    * Run and periodically report status.
    */
@@ -153,6 +163,9 @@ public class StatusThread extends Thread {
     if (totalops != 0) {
       msg.append(d.format(curthroughput)).append(" current ops/sec; ");
     }
+    if (profile != null) {
+      msg.append(d.format(profile.current())).append(" target ops/sec; ");
+    }
     if (todoops != 0) {
       msg.append("est completion in ").append(RemainingFormatter.format(estremaining));
     }
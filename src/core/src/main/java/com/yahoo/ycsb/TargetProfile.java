@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A target throughput that changes over the run, so that a single run can
+ * sweep the load across the knee of the latency curve. The profile is a
+ * function of the seconds since the run started:
+ * <ul>
+ * <li>ramp: rising linearly from a start to the target over a duration, then
+ * staying at the target</li>
+ * <li>step: rising from a start by a step at a fixed interval, up to the
+ * target</li>
+ * <li>sine: swinging around the target by an amplitude with a period, as a
+ * compressed day of load</li>
+ * <li>csv: read from a file of "seconds,target" lines, each target holding
+ * from its time to the next</li>
+ * </ul>
+ * The client threads follow the profile together through the shared
+ * {@link ArrivalQueue}, and the status thread reports the current target.
+ */
+final class TargetProfile {
+  /**
+   * The name of the property for the shape of the target over time: "constant" (the default), "ramp", "step",
+   * "sine" or "csv".
+   */
+  public static final String TARGET_PROFILE_PROPERTY = "targetprofile";
+
+  public static final String TARGET_PROFILE_PROPERTY_DEFAULT = "constant";
+
+  /**
+   * The name of the property for the target a ramp or a step ladder starts at.
+   */
+  public static final String START_PROPERTY = "targetprofile.start";
+
+  public static final String START_PROPERTY_DEFAULT = "0";
+
+  /**
+   * The name of the property for the seconds a ramp takes to reach the target.
+   */
+  public static final String DURATION_PROPERTY = "targetprofile.duration";
+
+  public static final String DURATION_PROPERTY_DEFAULT = "600";
+
+  /**
+   * The name of the property for the increase of the target at each step (default: a tenth of the target).
+   */
+  public static final String STEP_PROPERTY = "targetprofile.step";
+
+  /**
+   * The name of the property for the seconds between steps.
+   */
+  public static final String STEP_TIME_PROPERTY = "targetprofile.steptime";
+
+  public static final String STEP_TIME_PROPERTY_DEFAULT = "60";
+
+  /**
+   * The name of the property for how far a sine swings above and below the target (default: half the target).
+   */
+  public static final String AMPLITUDE_PROPERTY = "targetprofile.amplitude";
+
+  /**
+   * The name of the property for the seconds of a period of a sine.
+   */
+  public static final String PERIOD_PROPERTY = "targetprofile.period";
+
+  public static final String PERIOD_PROPERTY_DEFAULT = "600";
+
+  /**
+   * The name of the property for the file of a csv profile.
+   */
+  public static final String FILE_PROPERTY = "targetprofile.file";
+
+  /**
+   * The lowest target, so that the next operation of a profile starting from nothing is not put off forever.
+   */
+  private static final double MIN_TARGET = 1;
+
+  private final DoubleUnaryOperator target;
+
+  /** The System.nanoTime() the run started at, 0 before. */
+  private volatile long start;
+
+  TargetProfile(DoubleUnaryOperator target) {
+    this.target = target;
+  }
+
+  /**
+   * The profile configured by the properties, or null for a constant target.
+   *
+   * @param target The target number of operations per second, the top or the middle of the profile.
+   */
+  static TargetProfile fromProperties(Properties props, int target) throws IOException {
+    String shape = props.getProperty(TARGET_PROFILE_PROPERTY, TARGET_PROFILE_PROPERTY_DEFAULT);
+    if (shape.equals("constant")) {
+      return null;
+    }
+    if (shape.equals("csv")) {
+      String file = props.getProperty(FILE_PROPERTY);
+      if (file == null) {
+        throw new IllegalArgumentException(TARGET_PROFILE_PROPERTY + "=csv needs " + FILE_PROPERTY);
+      }
+      return schedule(file);
+    }
+
+    if (target <= 0) {
+      throw new IllegalArgumentException(TARGET_PROFILE_PROPERTY + "=" + shape + " needs a target");
+    }
+    double from = Double.parseDouble(props.getProperty(START_PROPERTY, START_PROPERTY_DEFAULT));
+    switch (shape) {
+    case "ramp":
+      double duration = Double.parseDouble(props.getProperty(DURATION_PROPERTY, DURATION_PROPERTY_DEFAULT));
+      return new TargetProfile(t -> t >= duration ? target : from + (target - from) * t / duration);
+    case "step":
+      double step = Double.parseDouble(props.getProperty(STEP_PROPERTY, String.valueOf(target / 10.0)));
+      double steptime = Double.parseDouble(props.getProperty(STEP_TIME_PROPERTY, STEP_TIME_PROPERTY_DEFAULT));
+      return new TargetProfile(t -> Math.min(target, from + step * Math.floor(t / steptime)));
+    case "sine":
+      double amplitude = Double.parseDouble(props.getProperty(AMPLITUDE_PROPERTY, String.valueOf(target / 2.0)));
+      double period = Double.parseDouble(props.getProperty(PERIOD_PROPERTY, PERIOD_PROPERTY_DEFAULT));
+      return new TargetProfile(t -> target + amplitude * Math.sin(2 * Math.PI * t / period));
+    default:
+      throw new IllegalArgumentException("Unknown target profile \"" + shape + "\"");
+    }
+  }
+
+  private static TargetProfile schedule(String file) throws IOException {
+    List<double[]> lines = new ArrayList<>();
+    try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split(",");
+        double time = Double.parseDouble(fields[0].trim());
+        if (!lines.isEmpty() && time <= lines.get(lines.size() - 1)[0]) {
+          throw new IOException("The times of " + file + " do not increase at \"" + line + "\"");
+        }
+        lines.add(new double[]{time, Double.parseDouble(fields[1].trim())});
+      }
+    }
+    if (lines.isEmpty()) {
+      throw new IOException("Empty target profile " + file);
+    }
+    double[] times = new double[lines.size()];
+    double[] targets = new double[lines.size()];
+    for (int i = 0; i < times.length; i++) {
+      times[i] = lines.get(i)[0];
+      targets[i] = lines.get(i)[1];
+    }
+    return new TargetProfile(t -> {
+        int at = Arrays.binarySearch(times, t);
+        return targets[Math.max(0, at >= 0 ? at : -at - 2)];
+      });
+  }
+
+  /**
+   * Start following the profile, if not started yet.
+   */
+  synchronized void start() {
+    if (start == 0) {
+      start = System.nanoTime();
+    }
+  }
+
+  /**
+   * The target in operations per second at a System.nanoTime(), the start of the profile before it started.
+   */
+  double at(long nanos) {
+    long started = start;
+    double seconds = started == 0 ? 0 : Math.max(0, nanos - started) / (double) TimeUnit.SECONDS.toNanos(1);
+    return Math.max(MIN_TARGET, target.applyAsDouble(seconds));
+  }
+
+  /**
+   * The current target in operations per second.
+   */
+  double current() {
+    return at(System.nanoTime());
+  }
+}
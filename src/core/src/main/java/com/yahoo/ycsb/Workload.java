@@ -17,6 +17,8 @@
 
 package com.yahoo.ycsb;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.Properties;
 
@@ -107,6 +109,26 @@ public abstract class Workload {
    */
   public abstract boolean doTransaction(DB db, Object threadstate);
 
+  /**
+   * Do one insert operation through the asynchronous operations of the DB, see {@link AsyncDB}. A client thread
+   * keeping several requests in flight initializes a threadstate for each of them, as if each was a client
+   * thread of its own, and never passes one to a second call before the stage returned by the first completed.
+   * The stage must be completed with what {@link #doInsert} would return once the operation is done.
+   * <p>
+   * By default the insert is done synchronously, through {@link #doInsert}.
+   */
+  public CompletionStage<Boolean> doInsertAsync(AsyncDB db, Object threadstate) {
+    return CompletableFuture.completedFuture(doInsert(db, threadstate));
+  }
+
+  /**
+   * Do one transaction operation through the asynchronous operations of the DB, like {@link #doInsertAsync}
+   * does an insert. By default the transaction is done synchronously, through {@link #doTransaction}.
+   */
+  public CompletionStage<Boolean> doTransactionAsync(AsyncDB db, Object threadstate) {
+    return CompletableFuture.completedFuture(doTransaction(db, threadstate));
+  }
+
   /**
    * Allows scheduling a request to stop the workload.
    */
@@ -114,6 +136,13 @@ public abstract class Workload {
     stopRequested.set(true);
   }
 
+  /**
+   * Withdraw a stop request, for the client to run the workload again.
+   */
+  void clearStopRequest() {
+    stopRequested.set(false);
+  }
+
   /**
    * Check the status of the stop request flag.
    * @return true if stop was requested, false otherwise.
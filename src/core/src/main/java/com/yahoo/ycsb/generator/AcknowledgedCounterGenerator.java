@@ -16,11 +16,19 @@
  */
 package com.yahoo.ycsb.generator;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A CounterGenerator that reports generated integers via lastInt()
  * only after they have been acknowledged.
+ * <p>
+ * Acknowledged values are published in a ring of {@link #WINDOW_SIZE} slots,
+ * each holding the last value acknowledged in it, and the limit is advanced
+ * over them with compare-and-set, so acknowledging never takes a lock. A value
+ * is only handed out once the value sharing its slot has been passed by the
+ * limit: when too many values are unacknowledged, {@link #nextValue()} waits
+ * for the oldest of them instead of failing.
  */
 public class AcknowledgedCounterGenerator extends CounterGenerator {
   /** The size of the window of pending id ack's. 2^20 = {@value} */
@@ -29,18 +37,33 @@ public class AcknowledgedCounterGenerator extends CounterGenerator {
   /** The mask to use to turn an id into a slot in {@link #window}. */
   private static final int WINDOW_MASK = WINDOW_SIZE - 1;
 
-  private final ReentrantLock lock;
-  private final boolean[] window;
-  private volatile long limit;
+  private final AtomicLongArray window;
+  private final AtomicLong limit;
 
   /**
    * Create a counter that starts at countstart.
    */
   public AcknowledgedCounterGenerator(long countstart) {
     super(countstart);
-    lock = new ReentrantLock();
-    window = new boolean[WINDOW_SIZE];
-    limit = countstart - 1;
+    window = new AtomicLongArray(WINDOW_SIZE);
+    limit = new AtomicLong(countstart - 1);
+    // a value that is never checked, as the limit only moves past it
+    for (int i = 0; i < WINDOW_SIZE; i++) {
+      window.lazySet(i, countstart - 1);
+    }
+  }
+
+  /**
+   * Generate the next value, waiting while its slot in the window is still
+   * needed for a value that has not been acknowledged.
+   */
+  @Override
+  public Long nextValue() {
+    long value = super.nextValue();
+    while (value - WINDOW_SIZE > limit.get()) {
+      Thread.yield();
+    }
+    return value;
   }
 
   /**
@@ -49,39 +72,28 @@ public class AcknowledgedCounterGenerator extends CounterGenerator {
    */
   @Override
   public Long lastValue() {
-    return limit;
+    return limit.get();
   }
 
   /**
    * Make a generated counter value available via lastInt().
    */
   public void acknowledge(long value) {
-    final int currentSlot = (int)(value & WINDOW_MASK);
-    if (window[currentSlot]) {
-      throw new RuntimeException("Too many unacknowledged insertion keys.");
-    }
-
-    window[currentSlot] = true;
+    window.set((int)(value & WINDOW_MASK), value);
 
-    if (lock.tryLock()) {
-      // move a contiguous sequence from the window
-      // over to the "limit" variable
-      try {
-        // Only loop through the entire window at most once.
-        long beforeFirstSlot = (limit & WINDOW_MASK);
-        long index;
-        for (index = limit + 1; index != beforeFirstSlot; ++index) {
-          int slot = (int)(index & WINDOW_MASK);
-          if (!window[slot]) {
-            break;
-          }
-
-          window[slot] = false;
-        }
-
-        limit = index - 1;
-      } finally {
-        lock.unlock();
+    // move a contiguous sequence from the window over to the limit. Whichever
+    // of the threads acknowledging neighbouring values publishes last sees
+    // the other's value, so the limit never stops short of an acknowledged run.
+    long current = limit.get();
+    while (true) {
+      long next = current + 1;
+      if (window.get((int)(next & WINDOW_MASK)) != next) {
+        break;
+      }
+      if (limit.compareAndSet(current, next)) {
+        current = next;
+      } else {
+        current = limit.get();
       }
     }
   }
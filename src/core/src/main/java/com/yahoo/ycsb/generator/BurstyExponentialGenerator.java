@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A generator of the intervals between the events of a bursty process: a
+ * Markov-modulated Poisson process that alternates between calm periods and
+ * bursts, during which events occur a number of times faster than on average.
+ * The lengths of the periods are exponentially distributed, and the rate of
+ * the calm periods is chosen so that the mean interval is the given one.
+ * <p>
+ * Each interval continues from where the previous one ended, so the
+ * intervals must be drawn in sequence, not concurrently.
+ */
+public class BurstyExponentialGenerator extends NumberGenerator {
+
+  private final double mean;
+  private final double calmrate;
+  private final double burstrate;
+  private final double calmlength;
+  private final double burstlength;
+
+  private boolean bursting;
+
+  /** The time left in the current period. */
+  private double remaining;
+
+  /**
+   * @param mean The mean interval.
+   * @param burstfactor How many times faster than on average events occur during bursts.
+   * @param burstfraction The fraction of the time spent in bursts.
+   * @param burstlength The mean length of a burst, in the unit of the intervals.
+   */
+  public BurstyExponentialGenerator(double mean, double burstfactor, double burstfraction, double burstlength) {
+    if (burstfactor < 1 || burstfraction <= 0 || burstfraction * burstfactor >= 1 || burstlength <= 0) {
+      throw new IllegalArgumentException("Bursts must be at least as fast as the average, take up a fraction of the "
+          + "time short enough for the calm periods to make up the average, and have a length");
+    }
+    this.mean = mean;
+    this.burstrate = burstfactor / mean;
+    this.calmrate = (1 - burstfraction * burstfactor) / (1 - burstfraction) / mean;
+    this.burstlength = burstlength;
+    this.calmlength = burstlength * (1 - burstfraction) / burstfraction;
+
+    bursting = ThreadLocalRandom.current().nextDouble() < burstfraction;
+    remaining = exponential(bursting ? burstlength : calmlength);
+  }
+
+  @Override
+  public Double nextValue() {
+    double interval = 0;
+    while (true) {
+      double draw = exponential(1 / (bursting ? burstrate : calmrate));
+      if (draw < remaining) {
+        remaining -= draw;
+        interval += draw;
+        break;
+      }
+      // the process is memoryless, so the draw simply starts over in the next period
+      interval += remaining;
+      bursting = !bursting;
+      remaining = exponential(bursting ? burstlength : calmlength);
+    }
+    setLastValue(interval);
+    return interval;
+  }
+
+  @Override
+  public double mean() {
+    return mean;
+  }
+
+  private static double exponential(double mean) {
+    return -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean;
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates a distribution by choosing from the constants of an enum, like {@link DiscreteGenerator} does from a
+ * set of strings.
+ * <p>
+ * Values are drawn in constant time from an alias table indexed by ordinal (Vose's alias method): a uniformly chosen
+ * slot either yields its own constant or the alias it was paired with. The table is built on the first draw after
+ * values were added. Like {@link DiscreteGenerator}, instances are not safe to add values to concurrently.
+ */
+public class EnumDiscreteGenerator<E extends Enum<E>> extends Generator<E> {
+  private final E[] constants;
+  private final double[] weights;
+  private double[] probability;
+  private int[] alias;
+  private E lastvalue;
+
+  public EnumDiscreteGenerator(Class<E> type) {
+    constants = type.getEnumConstants();
+    weights = new double[constants.length];
+  }
+
+  /**
+   * Generate the next constant in the distribution, or null if no value has a positive weight.
+   */
+  @Override
+  public E nextValue() {
+    if (probability == null && !build()) {
+      return null;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int slot = random.nextInt(constants.length);
+    lastvalue = random.nextDouble() < probability[slot] ? constants[slot] : constants[alias[slot]];
+    return lastvalue;
+  }
+
+  /**
+   * Return the previous constant generated by the distribution, see {@link Generator#lastValue()}.
+   */
+  @Override
+  public E lastValue() {
+    if (lastvalue == null) {
+      lastvalue = nextValue();
+    }
+    return lastvalue;
+  }
+
+  public void addValue(double weight, E value) {
+    weights[requireNonNull(value).ordinal()] += weight;
+    probability = null;
+  }
+
+  /**
+   * Build the alias table from the weights.
+   *
+   * @return False if no value has a positive weight.
+   */
+  private boolean build() {
+    int n = constants.length;
+    double sum = 0;
+    int positive = -1;
+    for (int i = 0; i < n; i++) {
+      sum += weights[i];
+      if (weights[i] > 0) {
+        positive = i;
+      }
+    }
+    if (positive < 0) {
+      return false;
+    }
+
+    double[] scaled = new double[n];
+    int[] small = new int[n];
+    int[] large = new int[n];
+    int smallcount = 0;
+    int largecount = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = weights[i] * n / sum;
+      if (scaled[i] < 1) {
+        small[smallcount++] = i;
+      } else {
+        large[largecount++] = i;
+      }
+    }
+
+    double[] newprobability = new double[n];
+    int[] newalias = new int[n];
+    while (smallcount > 0 && largecount > 0) {
+      int less = small[--smallcount];
+      int more = large[--largecount];
+      newprobability[less] = scaled[less];
+      newalias[less] = more;
+      scaled[more] = scaled[more] + scaled[less] - 1;
+      if (scaled[more] < 1) {
+        small[smallcount++] = more;
+      } else {
+        large[largecount++] = more;
+      }
+    }
+    // what is left is 1 up to rounding, except that a value without weight must never be drawn
+    while (largecount > 0) {
+      int i = large[--largecount];
+      newprobability[i] = 1;
+      newalias[i] = i;
+    }
+    while (smallcount > 0) {
+      int i = small[--smallcount];
+      newprobability[i] = weights[i] > 0 ? 1 : 0;
+      newalias[i] = weights[i] > 0 ? i : positive;
+    }
+
+    probability = newprobability;
+    alias = newalias;
+    return true;
+  }
+}
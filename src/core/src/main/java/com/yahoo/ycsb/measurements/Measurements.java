@@ -21,8 +21,11 @@ import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Properties;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Collects latency measurements, and reports them when requested.
@@ -41,7 +44,7 @@ public class Measurements {
   }
 
   public static final String MEASUREMENT_TYPE_PROPERTY = "measurementtype";
-  private static final String MEASUREMENT_TYPE_PROPERTY_DEFAULT = "hdrhistogram";
+  public static final String MEASUREMENT_TYPE_PROPERTY_DEFAULT = "hdrhistogram";
 
   public static final String MEASUREMENT_INTERVAL = "measurement.interval";
   private static final String MEASUREMENT_INTERVAL_DEFAULT = "op";
@@ -68,6 +71,7 @@ public class Measurements {
 
   private final ConcurrentHashMap<String, OneMeasurement> opToMesurementMap;
   private final ConcurrentHashMap<String, OneMeasurement> opToIntendedMesurementMap;
+  private final ConcurrentHashMap<String, LongAdder> counterMap;
   private final MeasurementType measurementType;
   private final int measurementInterval;
   private final Properties props;
@@ -78,6 +82,7 @@ public class Measurements {
   public Measurements(Properties props) {
     opToMesurementMap = new ConcurrentHashMap<>();
     opToIntendedMesurementMap = new ConcurrentHashMap<>();
+    counterMap = new ConcurrentHashMap<>();
 
     this.props = props;
 
@@ -214,6 +219,22 @@ public class Measurements {
     }
   }
 
+  /**
+   * Report a single value of a metric kept in an HdrHistogram whatever the measurement type, for metrics whose
+   * percentiles are always wanted, e.g. how long records outlive their TTL.
+   */
+  public void measureHdrHistogram(String name, int value) {
+    OneMeasurement m = opToMesurementMap.get(name);
+    if (m == null) {
+      m = new OneMeasurementHdrHistogram(name, props);
+      OneMeasurement oldM = opToMesurementMap.putIfAbsent(name, m);
+      if (oldM != null) {
+        m = oldM;
+      }
+    }
+    m.measure(value);
+  }
+
   private OneMeasurement getOpMeasurement(String operation) {
     OneMeasurement m = opToMesurementMap.get(operation);
     if (m == null) {
@@ -249,6 +270,14 @@ public class Measurements {
     m.reportStatus(status);
   }
 
+  /**
+   * Return the counter with the given name, e.g. of how often an operation was chosen. Counters are exported under
+   * the "COUNTERS" metric. Callers on a hot path should look their counter up once and keep it.
+   */
+  public LongAdder getCounter(String name) {
+    return counterMap.computeIfAbsent(name, k -> new LongAdder());
+  }
+
   /**
    * Export the current measurements to a suitable format.
    *
@@ -262,6 +291,40 @@ public class Measurements {
     for (OneMeasurement measurement : opToIntendedMesurementMap.values()) {
       measurement.exportMeasurements(exporter);
     }
+    for (Map.Entry<String, LongAdder> counter : counterMap.entrySet()) {
+      exporter.write("COUNTERS", counter.getKey(), counter.getValue().sum());
+    }
+  }
+
+  /**
+   * Return the given percentile of the latencies of each measurement that keeps their distribution, by the name of
+   * the measurement.
+   */
+  public synchronized Map<String, Double> getPercentiles(double percentile) {
+    Map<String, Double> percentiles = new HashMap<>();
+    for (OneMeasurement m : opToMesurementMap.values()) {
+      addPercentile(percentiles, m, percentile);
+    }
+    for (OneMeasurement m : opToIntendedMesurementMap.values()) {
+      addPercentile(percentiles, m, percentile);
+    }
+    return percentiles;
+  }
+
+  private static void addPercentile(Map<String, Double> percentiles, OneMeasurement m, double percentile) {
+    double value = m.getPercentile(percentile);
+    if (!Double.isNaN(value)) {
+      percentiles.put(m.getName(), value);
+    }
+  }
+
+  /**
+   * Forget the latencies measured so far, e.g. between the steps of a run. Must not be called while operations
+   * are measured.
+   */
+  public synchronized void reset() {
+    opToMesurementMap.clear();
+    opToIntendedMesurementMap.clear();
   }
 
   /**
@@ -49,6 +49,14 @@ public abstract class OneMeasurement {
 
   public abstract String getSummary();
 
+  /**
+   * The latency the given percentage of the operations measured so far did not exceed, or NaN if the measurement
+   * does not keep the distribution of the latencies.
+   */
+  public double getPercentile(double percentile) {
+    return Double.NaN;
+  }
+
   /**
    * No need for synchronization, using CHM to deal with that.
    */
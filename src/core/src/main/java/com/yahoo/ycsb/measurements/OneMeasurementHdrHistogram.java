@@ -164,6 +164,15 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
         + d.format(intervalHistogram.getValueAtPercentile(99.99)) + "]";
   }
 
+  @Override
+  public double getPercentile(double percentile) {
+    Histogram intervalHistogram = getIntervalHistogramAndAccumulate();
+    if (histogramLogWriter != null) {
+      histogramLogWriter.outputIntervalHistogram(intervalHistogram);
+    }
+    return totalHistogram.getValueAtPercentile(percentile);
+  }
+
   private Histogram getIntervalHistogramAndAccumulate() {
     Histogram intervalHistogram = histogram.getIntervalHistogram();
     // add this to the total time histogram.
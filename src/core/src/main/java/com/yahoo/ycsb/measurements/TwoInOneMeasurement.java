@@ -73,4 +73,9 @@ public class TwoInOneMeasurement extends OneMeasurement {
     return thing1.getSummary() + "\n" + thing2.getSummary();
   }
 
+  @Override
+  public double getPercentile(double percentile) {
+    return thing1.getPercentile(percentile);
+  }
+
 }
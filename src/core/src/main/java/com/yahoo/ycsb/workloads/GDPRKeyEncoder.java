@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.Utils;
+
+/**
+ * Encodes the key names of the records used by one client thread of the
+ * {@link GDPRWorkload}: "key", zero padding, then the record number, hashed
+ * unless inserts are ordered.
+ * <p>
+ * Names are written into a buffer reused for every key, so the only
+ * allocation is the returned String. Optionally the names of recently used
+ * records are kept in a direct-mapped cache, where a record number always
+ * takes the slot given by its low bits and replaces what was there, so hot
+ * keys of skewed distributions are encoded once.
+ */
+final class GDPRKeyEncoder {
+
+  private static final String PREFIX = "key";
+
+  /** The longest decimal representation of a long, with its sign. */
+  private static final int MAX_DIGITS = 20;
+
+  private final boolean orderedinserts;
+  private final int zeropadding;
+  private final char[] buf;
+
+  private final long[] cachedkeynums;
+  private final String[] cachedkeys;
+  private final int cachemask;
+
+  /**
+   * @param cachesize The number of key names cached, rounded up to a power of
+   *        two; 0 disables the cache.
+   */
+  GDPRKeyEncoder(boolean orderedinserts, int zeropadding, int cachesize) {
+    this.orderedinserts = orderedinserts;
+    this.zeropadding = zeropadding;
+    this.buf = new char[PREFIX.length() + Math.max(zeropadding, MAX_DIGITS)];
+    PREFIX.getChars(0, PREFIX.length(), buf, 0);
+    if (cachesize > 0) {
+      int slots = Integer.highestOneBit(cachesize);
+      if (slots < cachesize) {
+        slots <<= 1;
+      }
+      cachedkeynums = new long[slots];
+      cachedkeys = new String[slots];
+      cachemask = slots - 1;
+    } else {
+      cachedkeynums = null;
+      cachedkeys = null;
+      cachemask = 0;
+    }
+  }
+
+  /**
+   * The key name of a record.
+   */
+  String encode(long keynum) {
+    if (cachedkeys == null) {
+      return build(keynum);
+    }
+    int slot = (int) keynum & cachemask;
+    String key = cachedkeys[slot];
+    if (key == null || cachedkeynums[slot] != keynum) {
+      key = build(keynum);
+      cachedkeys[slot] = key;
+      cachedkeynums[slot] = keynum;
+    }
+    return key;
+  }
+
+  private String build(long keynum) {
+    if (!orderedinserts) {
+      keynum = Utils.hash(keynum);
+    }
+    // digits are taken from the negative value, as not every negative long has a positive counterpart
+    boolean negative = keynum < 0;
+    long value = negative ? keynum : -keynum;
+    int digits = 1;
+    for (long rest = value / 10; rest != 0; rest /= 10) {
+      digits++;
+    }
+    int pos = PREFIX.length();
+    // like the concatenation this replaces, the sign counts towards the padded width
+    int width = negative ? digits + 1 : digits;
+    for (int i = width; i < zeropadding; i++) {
+      buf[pos++] = '0';
+    }
+    if (negative) {
+      buf[pos++] = '-';
+    }
+    int end = pos + digits;
+    for (int i = end - 1; i >= pos; i--) {
+      buf[i] = (char) ('0' - value % 10);
+      value /= 10;
+    }
+    return new String(buf, 0, end);
+  }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.MultiValuedMetadata;
+import com.yahoo.ycsb.generator.ZipfianGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chooses the values of one metadata field of the records of the
+ * {@link GDPRWorkload} when they are not simply taken in turn: every record
+ * gets between 1 and a maximum number of distinct values, each drawn
+ * uniformly or from a zipfian over the values of the field, so that a
+ * predicate on a popular value matches many more records than one on a rare
+ * value.
+ * <p>
+ * The values of a record are a function of its number, drawn from a random
+ * sequence seeded by the record and field numbers, so they are the same in
+ * every thread and every run, and when the field is read back for checking.
+ * Sets of several values are stored as by {@link MultiValuedMetadata}.
+ */
+final class GDPRMetadataSets {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final List<String> values;
+  private final int maxvalues;
+  private final boolean multivalued;
+  private final long seed;
+
+  /** The cumulative probabilities of the values, null when they are drawn uniformly. */
+  private final double[] cdf;
+
+  /**
+   * @param maxvalues The maximum number of values per record; with more
+   *        than 1, the field is stored as a set even when a record has one
+   *        value.
+   */
+  GDPRMetadataSets(List<String> values, int fieldnum, int maxvalues, boolean zipfian) {
+    this.values = values;
+    this.maxvalues = Math.min(maxvalues, values.size());
+    this.multivalued = maxvalues > 1;
+    this.seed = mix(fieldnum * GOLDEN_GAMMA);
+    if (zipfian) {
+      cdf = new double[values.size()];
+      double sum = 0;
+      for (int i = 0; i < cdf.length; i++) {
+        sum += 1 / Math.pow(i + 1, ZipfianGenerator.ZIPFIAN_CONSTANT);
+        cdf[i] = sum;
+      }
+      for (int i = 0; i < cdf.length; i++) {
+        cdf[i] /= sum;
+      }
+    } else {
+      cdf = null;
+    }
+  }
+
+  /**
+   * The stored value of the field of a record.
+   */
+  String value(long keynum) {
+    int[] chosen = choose(keynum);
+    if (!multivalued) {
+      return values.get(chosen[0]);
+    }
+    List<String> set = new ArrayList<String>(chosen.length);
+    for (int index : chosen) {
+      set.add(values.get(index));
+    }
+    return MultiValuedMetadata.encode(set);
+  }
+
+  /**
+   * A metadata condition matching a record: one of its values.
+   */
+  String condition(long keynum) {
+    int[] chosen = choose(keynum);
+    long state = seed ^ ~keynum;
+    return values.get(chosen[index(next(state), chosen.length)]);
+  }
+
+  /**
+   * The indexes of the values of a record, in increasing order.
+   */
+  private int[] choose(long keynum) {
+    long state = seed ^ keynum * GOLDEN_GAMMA;
+    state += GOLDEN_GAMMA;
+    int count = 1 + index(mix(state), maxvalues);
+    boolean[] taken = new boolean[values.size()];
+    int found = 0;
+    // with a steep zipfian the last rare values take long to draw, so give up after a while and take the first
+    // values not taken yet
+    for (int attempt = 0; found < count && attempt < 8 * count; attempt++) {
+      state += GOLDEN_GAMMA;
+      int index = draw(mix(state));
+      if (!taken[index]) {
+        taken[index] = true;
+        found++;
+      }
+    }
+    for (int i = 0; found < count; i++) {
+      if (!taken[i]) {
+        taken[i] = true;
+        found++;
+      }
+    }
+    int[] chosen = new int[count];
+    for (int i = 0, j = 0; j < count; i++) {
+      if (taken[i]) {
+        chosen[j++] = i;
+      }
+    }
+    return chosen;
+  }
+
+  private int draw(long random) {
+    if (cdf == null) {
+      return index(random, values.size());
+    }
+    double u = (random >>> 11) * 0x1.0p-53;
+    int at = Arrays.binarySearch(cdf, u);
+    return Math.min(at >= 0 ? at + 1 : -at - 1, cdf.length - 1);
+  }
+
+  private static long next(long state) {
+    return mix(state + GOLDEN_GAMMA);
+  }
+
+  private static int index(long random, int bound) {
+    return (int) ((random >>> 1) % bound);
+  }
+
+  /**
+   * The output function of SplitMix64.
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
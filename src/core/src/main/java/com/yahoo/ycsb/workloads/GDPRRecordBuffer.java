@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.ByteArrayByteIterator;
+import com.yahoo.ycsb.ByteIterator;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The deterministic field values of the records written by one client thread
+ * of the {@link GDPRWorkload}, built without allocating per record.
+ * <p>
+ * The metadata values come from fixed lists, so their bytes are encoded once
+ * by the workload and handed out through one iterator per value, reset on
+ * every use. The data field is filled into a buffer reused for every record.
+ * Iterators returned for one record are only valid until the next record is
+ * built by the same thread.
+ */
+final class GDPRRecordBuffer {
+
+  /** The longest decimal representation of a long, with its sign. */
+  private static final int MAX_DIGITS = 20;
+
+  private final byte[][][] metadata;
+  private final ByteArrayByteIterator[][] metadataiterators;
+  private byte[] data;
+  private ByteArrayByteIterator dataiterator;
+  private int datasize = -1;
+
+  /**
+   * @param metadata The encoded values of every metadata field, by field
+   *        number and value index; null for fields without fixed values.
+   */
+  GDPRRecordBuffer(byte[][][] metadata) {
+    this.metadata = metadata;
+    this.metadataiterators = new ByteArrayByteIterator[metadata.length][];
+    for (int i = 0; i < metadata.length; i++) {
+      if (metadata[i] != null) {
+        metadataiterators[i] = new ByteArrayByteIterator[metadata[i].length];
+      }
+    }
+  }
+
+  /**
+   * The value of a metadata field, by the index of the value in its list.
+   */
+  ByteIterator metadata(int fieldnum, int index) {
+    ByteArrayByteIterator iterator = metadataiterators[fieldnum][index];
+    if (iterator == null) {
+      iterator = new ByteArrayByteIterator(metadata[fieldnum][index]);
+      metadataiterators[fieldnum][index] = iterator;
+    } else {
+      iterator.reset();
+    }
+    return iterator;
+  }
+
+  /**
+   * The data field of a record, see {@link #fill(byte[], long, int)}.
+   */
+  ByteIterator data(long keynum, int size) {
+    if (size != datasize) {
+      data = new byte[size + 2 * MAX_DIGITS];
+      dataiterator = new ByteArrayByteIterator(data, 0, size);
+      datasize = size;
+    } else {
+      dataiterator.reset();
+    }
+    fill(data, keynum, size);
+    return dataiterator;
+  }
+
+  /**
+   * The data field of a record as a string, e.g. to verify what was read.
+   */
+  static String dataString(long keynum, int size) {
+    byte[] buf = new byte[size + 2 * MAX_DIGITS];
+    fill(buf, keynum, size);
+    return new String(buf, 0, size, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Fill the first {@code size} bytes of a buffer with the data field of a
+   * record: the key number followed by the hash code of everything written so
+   * far, repeated. The hash code is that of the equivalent String, kept up to
+   * date as digits are written rather than recomputed, so filling takes linear
+   * time. The buffer needs room for {@code 2 * MAX_DIGITS} more bytes, as the
+   * last repetition is written completely.
+   */
+  static void fill(byte[] buf, long keynum, int size) {
+    int pos = 0;
+    int hash = 0;
+    while (pos < size) {
+      int start = pos;
+      pos = writeLong(buf, pos, keynum);
+      hash = hash(hash, buf, start, pos);
+      start = pos;
+      pos = writeLong(buf, pos, hash);
+      hash = hash(hash, buf, start, pos);
+    }
+  }
+
+  /**
+   * Continue the String hash code of some ASCII text with more of it.
+   */
+  private static int hash(int hash, byte[] buf, int from, int to) {
+    for (int i = from; i < to; i++) {
+      hash = 31 * hash + buf[i];
+    }
+    return hash;
+  }
+
+  /**
+   * Write the decimal representation of a number, like Long.toString.
+   *
+   * @return The position after the last digit.
+   */
+  private static int writeLong(byte[] buf, int pos, long value) {
+    // digits are taken from the negative value, as not every negative long has a positive counterpart
+    if (value < 0) {
+      buf[pos++] = '-';
+    } else {
+      value = -value;
+    }
+    int digits = 1;
+    for (long rest = value / 10; rest != 0; rest /= 10) {
+      digits++;
+    }
+    int end = pos + digits;
+    for (int i = end - 1; i >= pos; i--) {
+      buf[i] = (byte) ('0' - value % 10);
+      value /= 10;
+    }
+    return end;
+  }
+}
@@ -23,7 +23,11 @@ import com.yahoo.ycsb.generator.UniformLongGenerator;
 import com.yahoo.ycsb.measurements.Measurements;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The core benchmark scenario. Represents a set of clients doing simple CRUD operations. The
@@ -63,6 +67,15 @@ import java.util.*;
  * For example for row 5, with zeropadding=1 you get 'user5' key and with zeropading=8 you get
  * 'user00000005' key. In order to see its impact, zeropadding needs to be bigger than number of
  * digits in the record number.
+ * <LI><b>keycachesize</b>: the number of key names each client thread keeps encoded, for skewed
+ * request distributions that keep returning to the same records; 0 disables the cache (default: 0)
+ * <LI><b>purmaxvalues</b>, <b>aclmaxvalues</b>, <b>shrmaxvalues</b>: the maximum number of purposes,
+ * access list entries and parties shared with of a record; with more than 1, every record gets a set of
+ * 1 to that many distinct values, and a metadata condition on the field matches the records whose set
+ * contains it (default: 1)
+ * <LI><b>metavaluedistribution</b>: how the purposes, access list entries and parties shared with of
+ * the records are drawn from their values, "uniform" or "zipfian". With a single uniform value per
+ * record, records take the values in turn as before (default: uniform)
  * <LI><b>insertorder</b>: should records be inserted in order by key ("ordered"), or in hashed
  * order ("hashed") (default: hashed)
  * <LI><b>fieldnameprefix</b>: what should be a prefix for field names, the shorter may decrease the
@@ -70,6 +83,14 @@ import java.util.*;
  * </ul>
  */
 public class GDPRWorkload extends Workload {
+  /**
+   * The operations chosen by the operation generator.
+   */
+  public enum Operation {
+    READ, READMETAPURPOSE, READMETAUSER, UPDATE, UPDATEMETAPURPOSE, UPDATEMETAUSER, INSERT, DELETE,
+    DELETEMETAPURPOSE, DELETEMETAUSER, SCAN, READMODIFYWRITE
+  }
+
   /**
    * The name of the database table to run queries against.
    */
@@ -95,6 +116,15 @@ public class GDPRWorkload extends Workload {
   private List<String> fieldnames;
 
   private List<String>[] fieldvalues;
+
+  /** The bytes of the fieldvalues, encoded once for the record buffers of the threads. */
+  private byte[][][] fieldvaluebytes;
+
+  /**
+   * The values of the metadata fields not taken in turn by the records, by field number; null for the
+   * fields that are.
+   */
+  private GDPRMetadataSets[] metadatasets;
   /**
    * The name of the property for the field length distribution. Options are "uniform", "zipfian"
    * (favouring short records), "constant", and "histogram".
@@ -141,12 +171,6 @@ public class GDPRWorkload extends Workload {
    */
   public static final String FIELD_LENGTH_HISTOGRAM_FILE_PROPERTY_DEFAULT = "hist.txt";
 
-  /**
-   * Generator object that produces field lengths.  The value of this depends on the properties that
-   * start with "FIELD_LENGTH_".
-   */
-  protected NumberGenerator fieldlengthgenerator;
-
   /**
    * The name of the property for deciding whether to read one field (false) or all fields (true) of
    * a record.
@@ -376,6 +400,27 @@ public class GDPRWorkload extends Workload {
    */
   public static final String ZERO_PADDING_PROPERTY_DEFAULT = "1";
 
+  /**
+   * The name of the property for the number of key names cached by each client thread.
+   */
+  public static final String KEY_CACHE_SIZE_PROPERTY = "keycachesize";
+
+  /**
+   * The default key name cache size. The cache is disabled.
+   */
+  public static final String KEY_CACHE_SIZE_PROPERTY_DEFAULT = "0";
+
+  /**
+   * The name of the property for the distribution of the purposes, access list entries and parties
+   * shared with over the records. Options are "uniform" and "zipfian".
+   */
+  public static final String METADATA_VALUE_DISTRIBUTION_PROPERTY = "metavaluedistribution";
+
+  /**
+   * The default metadata value distribution.
+   */
+  public static final String METADATA_VALUE_DISTRIBUTION_PROPERTY_DEFAULT = "uniform";
+
 
   /**
    * The name of the property for the min scan length (number of records).
@@ -460,23 +505,35 @@ public class GDPRWorkload extends Workload {
    */
   public static final String FIELD_NAME_PREFIX_DEFAULT = "myfield";
 
+  /*
+   * The generators shared by all client threads, as their sequence is global. Generators without such
+   * state are created per thread, see ThreadState.
+   */
   protected NumberGenerator keysequence;
-  protected DiscreteGenerator operationchooser;
   protected NumberGenerator keychooser;
-  protected NumberGenerator metadatachooser;
-  protected NumberGenerator fieldchooser;
   protected AcknowledgedCounterGenerator transactioninsertkeysequence;
-  protected NumberGenerator scanlength;
+
+  /**
+   * Whether the calling client thread has yet to run its first transaction. It is per thread rather than per
+   * thread state, as a thread keeping several requests in flight has a state for each.
+   */
+  private final ThreadLocal<Boolean> first = ThreadLocal.withInitial(() -> true);
   protected boolean orderedinserts;
   protected long fieldcount;
   protected long recordcount;
+  protected long insertstart;
+  protected long insertcount;
   protected int zeropadding;
+  protected int keycachesize;
   protected int insertionRetryLimit;
   protected int insertionRetryInterval;
 
-  private boolean isFirst = true;
+  private Properties properties;
   private Measurements measurements = Measurements.getMeasurements();
 
+  /** How often each operation was chosen, by ordinal. */
+  private LongAdder[] operationcounters;
+
   protected static NumberGenerator getFieldLengthGenerator(Properties p) throws WorkloadException {
     NumberGenerator fieldlengthgenerator;
     String fieldlengthdistribution = p.getProperty(
@@ -507,19 +564,43 @@ public class GDPRWorkload extends Workload {
     return fieldlengthgenerator;
   }
 
+  protected static NumberGenerator getScanLengthGenerator(Properties p) throws WorkloadException {
+    int minscanlength =
+        Integer.parseInt(p.getProperty(MIN_SCAN_LENGTH_PROPERTY, MIN_SCAN_LENGTH_PROPERTY_DEFAULT));
+    int maxscanlength =
+        Integer.parseInt(p.getProperty(MAX_SCAN_LENGTH_PROPERTY, MAX_SCAN_LENGTH_PROPERTY_DEFAULT));
+    String scanlengthdistrib =
+        p.getProperty(SCAN_LENGTH_DISTRIBUTION_PROPERTY, SCAN_LENGTH_DISTRIBUTION_PROPERTY_DEFAULT);
+    if (scanlengthdistrib.compareTo("uniform") == 0) {
+      return new UniformLongGenerator(minscanlength, maxscanlength);
+    } else if (scanlengthdistrib.compareTo("zipfian") == 0) {
+      return new ZipfianGenerator(minscanlength, maxscanlength);
+    }
+    throw new WorkloadException(
+        "Distribution \"" + scanlengthdistrib + "\" not allowed for scan length");
+  }
+
   /**
    * Initialize the scenario.
    * Called once, in the main client thread, before any operations are started.
    */
   @Override
   public void init(Properties p) throws WorkloadException {
+    properties = p;
+    operationcounters = new LongAdder[Operation.values().length];
+    for (Operation operation : Operation.values()) {
+      operationcounters[operation.ordinal()] = measurements.getCounter(operation.name());
+    }
     table = p.getProperty(TABLENAME_PROPERTY, TABLENAME_PROPERTY_DEFAULT);
 
     fieldcount =
         Long.parseLong(p.getProperty(FIELD_COUNT_PROPERTY, FIELD_COUNT_PROPERTY_DEFAULT));
     final String fieldnameprefix = p.getProperty(FIELD_NAME_PREFIX, FIELD_NAME_PREFIX_DEFAULT);
     populateValues(p);
-    fieldlengthgenerator = GDPRWorkload.getFieldLengthGenerator(p);
+    populateMetadataSets(p);
+    // the generators of the threads are created later, fail early on invalid properties
+    GDPRWorkload.getFieldLengthGenerator(p);
+    GDPRWorkload.getScanLengthGenerator(p);
 
     recordcount =
         Long.parseLong(p.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT));
@@ -528,16 +609,10 @@ public class GDPRWorkload extends Workload {
     }
     String requestdistrib =
         p.getProperty(REQUEST_DISTRIBUTION_PROPERTY, REQUEST_DISTRIBUTION_PROPERTY_DEFAULT);
-    int minscanlength =
-        Integer.parseInt(p.getProperty(MIN_SCAN_LENGTH_PROPERTY, MIN_SCAN_LENGTH_PROPERTY_DEFAULT));
-    int maxscanlength =
-        Integer.parseInt(p.getProperty(MAX_SCAN_LENGTH_PROPERTY, MAX_SCAN_LENGTH_PROPERTY_DEFAULT));
-    String scanlengthdistrib =
-        p.getProperty(SCAN_LENGTH_DISTRIBUTION_PROPERTY, SCAN_LENGTH_DISTRIBUTION_PROPERTY_DEFAULT);
 
-    long insertstart =
+    insertstart =
         Long.parseLong(p.getProperty(INSERT_START_PROPERTY, INSERT_START_PROPERTY_DEFAULT));
-    long insertcount=
+    insertcount=
         Integer.parseInt(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
     // Confirm valid values for insertstart and insertcount in relation to recordcount
     if (recordcount < (insertstart + insertcount)) {
@@ -547,6 +622,8 @@ public class GDPRWorkload extends Workload {
     }
     zeropadding =
         Integer.parseInt(p.getProperty(ZERO_PADDING_PROPERTY, ZERO_PADDING_PROPERTY_DEFAULT));
+    keycachesize =
+        Integer.parseInt(p.getProperty(KEY_CACHE_SIZE_PROPERTY, KEY_CACHE_SIZE_PROPERTY_DEFAULT));
 
     readallfields = Boolean.parseBoolean(
         p.getProperty(READ_ALL_FIELDS_PROPERTY, READ_ALL_FIELDS_PROPERTY_DEFAULT));
@@ -584,7 +661,6 @@ public class GDPRWorkload extends Workload {
     }
 
     keysequence = new CounterGenerator(insertstart);
-    operationchooser = createOperationGenerator(p);
 
     transactioninsertkeysequence = new AcknowledgedCounterGenerator(recordcount);
     if (requestdistrib.compareTo("uniform") == 0) {
@@ -620,35 +696,22 @@ public class GDPRWorkload extends Workload {
       throw new WorkloadException("Unknown request distribution \"" + requestdistrib + "\"");
     }
 
-    fieldchooser = new UniformLongGenerator(0, fieldcount - 1);
-    metadatachooser = new UniformLongGenerator(1, 8);
-
-    if (scanlengthdistrib.compareTo("uniform") == 0) {
-      scanlength = new UniformLongGenerator(minscanlength, maxscanlength);
-    } else if (scanlengthdistrib.compareTo("zipfian") == 0) {
-      scanlength = new ZipfianGenerator(minscanlength, maxscanlength);
-    } else {
-      throw new WorkloadException(
-          "Distribution \"" + scanlengthdistrib + "\" not allowed for scan length");
-    }
-
     insertionRetryLimit = Integer.parseInt(p.getProperty(
         INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
     insertionRetryInterval = Integer.parseInt(p.getProperty(
         INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
   }
 
-  protected String buildKeyName(long keynum) {
-    if (!orderedinserts) {
-      keynum = Utils.hash(keynum);
-    }
-    String value = Long.toString(keynum);
-    int fill = zeropadding - value.length();
-    String prekey = "key";
-    for (int i = 0; i < fill; i++) {
-      prekey += '0';
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    if (properties == null) {
+      throw new WorkloadException("Workload has not been initialized.");
     }
-    return prekey + value;
+    return new ThreadState();
+  }
+
+  protected String buildKeyName(ThreadState state, long keynum) {
+    return state.keyencoder.encode(keynum);
   }
 
 
@@ -760,22 +823,60 @@ public class GDPRWorkload extends Workload {
               break;
       }
     }
+    // field10 is data, built per record rather than taken from its values
+    fieldvaluebytes = new byte[fieldvalues.length][][];
+    for (int i = 0; i < fieldvalues.length && i < 9; i++) {
+      if (fieldvalues[i] != null) {
+        fieldvaluebytes[i] = new byte[fieldvalues[i].size()][];
+        for (x = 0; x < fieldvalues[i].size(); x++) {
+          fieldvaluebytes[i][x] = fieldvalues[i].get(x).getBytes(StandardCharsets.US_ASCII);
+        }
+      }
+    }
+  }
+
+  /**
+   * Choose how the multi-valued or skewed metadata fields get their values.
+   */
+  private void populateMetadataSets(final Properties p) throws WorkloadException {
+    String distribution =
+        p.getProperty(METADATA_VALUE_DISTRIBUTION_PROPERTY, METADATA_VALUE_DISTRIBUTION_PROPERTY_DEFAULT);
+    boolean zipfian;
+    if (distribution.equals("uniform")) {
+      zipfian = false;
+    } else if (distribution.equals("zipfian")) {
+      zipfian = true;
+    } else {
+      throw new WorkloadException("Unknown metadata value distribution \"" + distribution + "\"");
+    }
+    metadatasets = new GDPRMetadataSets[fieldvalues.length];
+    // the purposes, access list entries and parties shared with
+    for (int i : new int[] {0, 5, 6}) {
+      if (i >= fieldnames.size()) {
+        continue;
+      }
+      int maxvalues = MultiValuedMetadata.maxValues(p, fieldnames.get(i));
+      if (maxvalues > 1 || zipfian) {
+        metadatasets[i] = new GDPRMetadataSets(fieldvalues[i], i, maxvalues, zipfian);
+      }
+    }
   }
 
   /**
    * Builds a value for a randomly chosen field.
    */
-  private HashMap<String, ByteIterator> buildSingleValue(long keynum, String key) {
-    HashMap<String, ByteIterator> value = new HashMap<>();
+  private HashMap<String, ByteIterator> buildSingleValue(ThreadState state, long keynum, String key) {
+    HashMap<String, ByteIterator> value = state.values;
+    value.clear();
 
-    int fieldnum = fieldchooser.nextValue().intValue();
+    int fieldnum = state.fieldchooser.nextValue().intValue();
     String fieldkey = fieldnames.get(fieldnum);
     ByteIterator data;
     if (dataintegrity) {
-      data = new StringByteIterator(buildDeterministicValue(keynum, fieldnum, fieldkey));
+      data = buildDeterministicIterator(state, keynum, fieldnum);
     } else {
       // fill with random data
-      data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+      data = new RandomByteIterator(state.fieldlengthgenerator.nextValue().longValue());
     }
     value.put(fieldkey, data);
 
@@ -785,17 +886,21 @@ public class GDPRWorkload extends Workload {
   /**
    * Builds values for all fields.
    */
-  private HashMap<String, ByteIterator> buildValues(long keynum, String key) {
-    HashMap<String, ByteIterator> values = new HashMap<>();
+  private HashMap<String, ByteIterator> buildValues(ThreadState state, long keynum, String key) {
+    HashMap<String, ByteIterator> values = state.values;
+    // a map already holding every field has its entries replaced in place
+    if (values.size() != fieldnames.size()) {
+      values.clear();
+    }
 
     for (int i=0; i< fieldnames.size(); i++) {
       ByteIterator data;
       String fieldkey = fieldnames.get(i);
       if (dataintegrity) {
-        data = new StringByteIterator(buildDeterministicValue(keynum, i, fieldkey));
+        data = buildDeterministicIterator(state, keynum, i);
       } else {
         // fill with random data
-        data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+        data = new RandomByteIterator(state.fieldlengthgenerator.nextValue().longValue());
       }
       values.put(fieldkey, data);
     }
@@ -805,21 +910,39 @@ public class GDPRWorkload extends Workload {
   /**
    * Build a deterministic value given the key information.
    */
-  private String buildDeterministicValue(long keynum, int fieldnum, String fieldkey) {
-    int size = fieldlengthgenerator.nextValue().intValue();
-    StringBuilder sb = new StringBuilder(size);
-    //sb.append(fieldkey);
-    //sb.append('=');
+  private String buildDeterministicValue(ThreadState state, long keynum, int fieldnum, String fieldkey) {
+    int size = state.fieldlengthgenerator.nextValue().intValue();
     if (fieldnum == 9) { //field10 is data; rest are metadata
-      while (sb.length() < size) {
-        sb.append(String.valueOf(keynum));
-        sb.append(sb.toString().hashCode());
-      }
-      sb.setLength(size);
-    } else {
-      sb.append(fieldvalues[fieldnum].get((int)keynum%fieldvalues[fieldnum].size()));
+      return GDPRRecordBuffer.dataString(keynum, size);
+    }
+    if (metadatasets[fieldnum] != null) {
+      return metadatasets[fieldnum].value(keynum);
+    }
+    return fieldvalues[fieldnum].get((int)keynum%fieldvalues[fieldnum].size());
+  }
+
+  /**
+   * Build the same value as {@link #buildDeterministicValue}, in the record buffer of the thread.
+   */
+  private ByteIterator buildDeterministicIterator(ThreadState state, long keynum, int fieldnum) {
+    int size = state.fieldlengthgenerator.nextValue().intValue();
+    if (fieldnum == 9) { //field10 is data; rest are metadata
+      return state.record.data(keynum, size);
+    }
+    if (metadatasets[fieldnum] != null) {
+      return new StringByteIterator(metadatasets[fieldnum].value(keynum));
+    }
+    return state.record.metadata(fieldnum, (int)keynum%fieldvalues[fieldnum].size());
+  }
+
+  /**
+   * Build a metadata condition matching the record: its value, or one of the values of its set.
+   */
+  private String buildCondition(ThreadState state, long keynum, int fieldnum) {
+    if (metadatasets[fieldnum] != null) {
+      return metadatasets[fieldnum].condition(keynum);
     }
-    return sb.toString();
+    return buildDeterministicValue(state, keynum, fieldnum, fieldnames.get(fieldnum));
   }
 
   private int buildTTLValue(long keynum) {
@@ -835,10 +958,14 @@ public class GDPRWorkload extends Workload {
    */
   @Override
   public boolean doInsert(DB db, Object threadstate) {
+    if (threadstate == null) {
+      throw new IllegalStateException("Missing thread state.");
+    }
     int keynum = keysequence.nextValue().intValue();
-    String dbkey = buildKeyName(keynum);
+    ThreadState state = (ThreadState) threadstate;
+    String dbkey = buildKeyName(state, keynum);
     int ttl = buildTTLValue(keynum);
-    HashMap<String, ByteIterator> values = buildValues(keynum, dbkey);
+    HashMap<String, ByteIterator> values = buildValues(state, keynum, dbkey);
 
     Status status;
     int numOfRetries = 0;
@@ -871,6 +998,32 @@ public class GDPRWorkload extends Workload {
     return null != status && status.isOk();
   }
 
+  /**
+   * Do one insert operation without waiting for the database. Insertion retries sleep between the attempts, so
+   * with a retry limit the insert is done synchronously.
+   */
+  @Override
+  public CompletionStage<Boolean> doInsertAsync(AsyncDB db, Object threadstate) {
+    if (threadstate == null) {
+      throw new IllegalStateException("Missing thread state.");
+    }
+    if (insertionRetryLimit > 0) {
+      return super.doInsertAsync(db, threadstate);
+    }
+    int keynum = keysequence.nextValue().intValue();
+    ThreadState state = (ThreadState) threadstate;
+    String dbkey = buildKeyName(state, keynum);
+    int ttl = buildTTLValue(keynum);
+    HashMap<String, ByteIterator> values = buildValues(state, keynum, dbkey);
+    return db.insertTTLAsync(table, dbkey, values, ttl).thenApply(status -> {
+        if (null == status || !status.isOk()) {
+          System.err.println("Error inserting, insertion retries are disabled.");
+          return false;
+        }
+        return true;
+      });
+  }
+
   /**
    * Do one transaction operation. Because it will be called concurrently from multiple client
    * threads, this function must be thread safe. However, avoid synchronized, or the threads will block waiting
@@ -879,63 +1032,88 @@ public class GDPRWorkload extends Workload {
    */
   @Override
   public boolean doTransaction(DB db, Object threadstate) {
-    String operation = operationchooser.nextString();
-    if(operation == null) {
-      return false;
-    }
+    return doTransactionAsync(AsyncDB.of(db), threadstate).toCompletableFuture().join();
+  }
 
-    if (isFirst) {
-      if (checkcompliance) {
-        doTransactionCheckCompliance(db);
-      } 
-      if (readlog) {
-        doTransactionReadLog(db);
-      }
-      isFirst = false;
+  /**
+   * Do one transaction operation without waiting for the database; {@link #doTransaction} waits for it. The
+   * compliance check and log read of the first transaction of a thread are synchronous.
+   */
+  @Override
+  public CompletionStage<Boolean> doTransactionAsync(AsyncDB db, Object threadstate) {
+    if (threadstate == null) {
+      throw new IllegalStateException("Missing thread state.");
+    }
+    ThreadState state = (ThreadState) threadstate;
+    Operation operation = nextOperation(db, state);
+    if (operation == null) {
+      return CompletableFuture.completedFuture(false);
     }
 
+    CompletionStage<Status> pending;
     switch (operation) {
-    case "READMETAPURPOSE":
-      doTransactionReadMeta(db, 0);
+    case READMETAPURPOSE:
+      pending = doTransactionReadMetaAsync(db, state, 0);
       break;
-    case "READMETAUSER":
-      doTransactionReadMeta(db, 2);
+    case READMETAUSER:
+      pending = doTransactionReadMetaAsync(db, state, 2);
       break;
-    case "READ":
-      doTransactionRead(db);
+    case READ:
+      pending = doTransactionReadAsync(db, state);
       break;
-    case "UPDATEMETAPURPOSE":
-      doTransactionUpdateMeta(db, 0);
+    case UPDATEMETAPURPOSE:
+      pending = doTransactionUpdateMetaAsync(db, state, 0);
       break;
-    case "UPDATEMETAUSER":
-      doTransactionUpdateMeta(db, 2);
+    case UPDATEMETAUSER:
+      pending = doTransactionUpdateMetaAsync(db, state, 2);
       break;
-    case "UPDATE":
-      doTransactionUpdate(db);
+    case UPDATE:
+      pending = doTransactionUpdateAsync(db, state);
       break;
-    case "INSERT":
-      doTransactionInsert(db);
+    case INSERT:
+      pending = doTransactionInsertAsync(db, state);
       break;
-    case "SCAN":
-      doTransactionScan(db);
+    case SCAN:
+      pending = doTransactionScanAsync(db, state);
       break;
-    case "DELETEMETAPURPOSE":
-      doTransactionDeleteMeta(db, 0);
+    case DELETEMETAPURPOSE:
+      pending = doTransactionDeleteMetaAsync(db, state, 0);
       break;
-    case "DELETEMETAUSER":
-      doTransactionDeleteMeta(db, 2);
+    case DELETEMETAUSER:
+      pending = doTransactionDeleteMetaAsync(db, state, 2);
       break;
-    case "DELETE":
-      doTransactionDelete(db);
+    case DELETE:
+      pending = doTransactionDeleteAsync(db, state);
       break;
-    /*case "CHECKCOMPLIANCE":
-      doTransactionCheckCompliance(db);
-      break;*/
     default:
-      doTransactionReadModifyWrite(db);
+      pending = doTransactionReadModifyWriteAsync(db, state);
     }
+    return pending.thenApply(status -> true);
+  }
 
-    return true;
+  /**
+   * Choose the next operation of a thread state and count it, running the compliance check and log read first if
+   * this is the first transaction of the calling thread.
+   *
+   * @return null if there are no operations to choose from.
+   */
+  private Operation nextOperation(DB db, ThreadState state) {
+    Operation operation = state.operationchooser.nextValue();
+    if (operation == null) {
+      return null;
+    }
+    operationcounters[operation.ordinal()].increment();
+
+    if (first.get()) {
+      first.set(false);
+      if (checkcompliance) {
+        doTransactionCheckCompliance(db);
+      }
+      if (readlog) {
+        doTransactionReadLog(db, state);
+      }
+    }
+    return operation;
   }
 
   /**
@@ -945,13 +1123,13 @@ public class GDPRWorkload extends Workload {
    * Bucket 1 means incorrect data was returned.
    * Bucket 2 means null data was returned when some data was expected.
    */
-  protected void verifyRow(long keynum, String key, HashMap<String, ByteIterator> cells) {
+  protected void verifyRow(ThreadState state, long keynum, String key, HashMap<String, ByteIterator> cells) {
     Status verifyStatus = Status.OK;
     long startTime = System.nanoTime();
     int i = 0;
     if (!cells.isEmpty()) {
       for (Map.Entry<String, ByteIterator> entry : cells.entrySet()) {
-        if (!entry.getValue().toString().equals(buildDeterministicValue(keynum, i++, entry.getKey()))) {
+        if (!entry.getValue().toString().equals(buildDeterministicValue(state, keynum, i++, entry.getKey()))) {
           verifyStatus = Status.UNEXPECTED_STATE;
           break;
         }
@@ -965,63 +1143,31 @@ public class GDPRWorkload extends Workload {
     measurements.reportStatus("VERIFY", verifyStatus);
   }
 
-  long nextKeynum() {
+  long nextKeynum(ThreadState state) {
     long keynum;
-    if (keychooser instanceof ExponentialGenerator) {
+    if (state.keychooser instanceof ExponentialGenerator) {
       do {
-        keynum = transactioninsertkeysequence.lastValue() - keychooser.nextValue().intValue();
+        keynum = transactioninsertkeysequence.lastValue() - state.keychooser.nextValue().intValue();
       } while (keynum < 0);
     } else {
       do {
-        keynum = keychooser.nextValue().intValue();
+        keynum = state.keychooser.nextValue().intValue();
       } while (keynum > transactioninsertkeysequence.lastValue());
     }
     return keynum;
   }
 
-  public void doTransactionRead(DB db) {
-    // choose a random key
-    long keynum = nextKeynum();
-
-    String keyname = buildKeyName(keynum);
-
-    HashSet<String> fields = null;
-
-    //System.err.println("Transaction read got called!");
-    if (!readallfields) {
-      // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
-    } else if (dataintegrity) {
-      // pass the full field list if dataintegrity is on for verification
-      fields = new HashSet<String>(fieldnames);
-    }
-
-    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
-    db.read(table, keyname, fields, cells);
-
-    /*if (dataintegrity) {
-      verifyRow(keynum, keyname, cells);
-    }*/
+  public void doTransactionRead(DB db, ThreadState state) {
+    doTransactionReadAsync(AsyncDB.of(db), state).toCompletableFuture().join();
   }
 
-  public void doTransactionReadMeta(DB db, int metadatanum) {
-
-    long keynum = nextKeynum();
-
-    // match on meta data field passed
-    String metadatacond = buildDeterministicValue(keynum, metadatanum, fieldnames.get(metadatanum));
-
-    //System.err.println("Read metadata called with cond: "+ metadatacond + " Field num: " + metadatanum);
-
-    db.readMeta(table, metadatanum, metadatacond, "key*", new Vector<HashMap<String, ByteIterator>>());
+  public void doTransactionReadMeta(DB db, ThreadState state, int metadatanum) {
+    doTransactionReadMetaAsync(AsyncDB.of(db), state, metadatanum).toCompletableFuture().join();
   }
 
-  public void doTransactionReadLog(DB db) {
+  public void doTransactionReadLog(DB db, ThreadState state) {
     // choose a random scan length
-    int len = scanlength.nextValue().intValue();
+    int len = state.scanlength.nextValue().intValue();
 
     System.err.println("Read log called with scan len: "+ len);
 
@@ -1037,166 +1183,154 @@ public class GDPRWorkload extends Workload {
     db.verifyTTL(table, count);
   }
 
-  public void doTransactionReadModifyWrite(DB db) {
-    // choose a random key
-    long keynum = nextKeynum();
-
-    String keyname = buildKeyName(keynum);
-
-    HashSet<String> fields = null;
-
-    if (!readallfields) {
-      // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
-    }
-
-    HashMap<String, ByteIterator> values;
-
-    if (writeallfields) {
-      // new data for all the fields
-      values = buildValues(keynum, keyname);
-    } else {
-      // update a random field
-      values = buildSingleValue(keynum, keyname);
-    }
-
-    // do the transaction
-
-    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+  public void doTransactionReadModifyWrite(DB db, ThreadState state) {
+    doTransactionReadModifyWriteAsync(AsyncDB.of(db), state).toCompletableFuture().join();
+  }
 
+  public void doTransactionScan(DB db, ThreadState state) {
+    doTransactionScanAsync(AsyncDB.of(db), state).toCompletableFuture().join();
+  }
 
-    long ist = measurements.getIntendedtartTimeNs();
-    long st = System.nanoTime();
-    db.read(table, keyname, fields, cells);
+  public void doTransactionUpdateMeta(DB db, ThreadState state, int metadatanum) {
+    doTransactionUpdateMetaAsync(AsyncDB.of(db), state, metadatanum).toCompletableFuture().join();
+  }
 
-    db.update(table, keyname, values);
+  public void doTransactionUpdate(DB db, ThreadState state) {
+    doTransactionUpdateAsync(AsyncDB.of(db), state).toCompletableFuture().join();
+  }
 
-    long en = System.nanoTime();
+  public void doTransactionDelete(DB db, ThreadState state) {
+    doTransactionDeleteAsync(AsyncDB.of(db), state).toCompletableFuture().join();
+  }
 
-    if (dataintegrity) {
-      verifyRow(keynum, keyname, cells);
-    }
+  public void doTransactionDeleteMeta(DB db, ThreadState state, int metadatanum) {
+    doTransactionDeleteMetaAsync(AsyncDB.of(db), state, metadatanum).toCompletableFuture().join();
+  }
 
-    measurements.measure("READ-MODIFY-WRITE", (int) ((en - st) / 1000));
-    measurements.measureIntended("READ-MODIFY-WRITE", (int) ((en - ist) / 1000));
+  public void doTransactionInsert(DB db, ThreadState state) {
+    doTransactionInsertAsync(AsyncDB.of(db), state).toCompletableFuture().join();
   }
 
-  public void doTransactionScan(DB db) {
+  public CompletionStage<Status> doTransactionReadAsync(AsyncDB db, ThreadState state) {
     // choose a random key
-    long keynum = nextKeynum();
-
-    String startkeyname = buildKeyName(keynum);
-
-    // choose a random scan length
-    int len = scanlength.nextValue().intValue();
-
-    HashSet<String> fields = null;
-
+    long keynum = nextKeynum(state);
+    String keyname = buildKeyName(state, keynum);
+    Set<String> fields = null;
     if (!readallfields) {
       // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
+      fields = state.chooseField();
+    } else if (dataintegrity) {
+      // pass the full field list if dataintegrity is on for verification
+      fields = state.allfields;
     }
+    state.cells.clear();
+    return db.readAsync(table, keyname, fields, state.cells);
+  }
 
-    db.scan(table, startkeyname, len, fields, new Vector<HashMap<String, ByteIterator>>());
+  public CompletionStage<Status> doTransactionReadMetaAsync(AsyncDB db, ThreadState state, int metadatanum) {
+    long keynum = nextKeynum(state);
+    // match on meta data field passed
+    String metadatacond = buildCondition(state, keynum, metadatanum);
+    state.results.clear();
+    return db.readMetaAsync(table, metadatanum, metadatacond, "key*", state.results);
   }
 
-  public void doTransactionUpdateMeta(DB db, int metadatanum) {
+  public CompletionStage<Status> doTransactionReadModifyWriteAsync(AsyncDB db, ThreadState state) {
+    long keynum = nextKeynum(state);
+    String keyname = buildKeyName(state, keynum);
+    Set<String> fields = null;
+    if (!readallfields) {
+      fields = state.chooseField();
+    }
+    HashMap<String, ByteIterator> values = writeallfields ? buildValues(state, keynum, keyname)
+        : buildSingleValue(state, keynum, keyname);
+    HashMap<String, ByteIterator> cells = state.cells;
+    cells.clear();
 
-    //String startkeyname = buildKeyName(0);
+    long ist = measurements.getIntendedtartTimeNs();
+    long st = System.nanoTime();
+    return db.readAsync(table, keyname, fields, cells)
+        .thenCompose(read -> db.updateAsync(table, keyname, values))
+        .whenComplete((status, error) -> {
+            long en = System.nanoTime();
+            if (dataintegrity) {
+              verifyRow(state, keynum, keyname, cells);
+            }
+            measurements.measure("READ-MODIFY-WRITE", (int) ((en - st) / 1000));
+            measurements.measureIntended("READ-MODIFY-WRITE", (int) ((en - ist) / 1000));
+          });
+  }
 
-    long keynum = nextKeynum();
+  public CompletionStage<Status> doTransactionScanAsync(AsyncDB db, ThreadState state) {
+    long keynum = nextKeynum(state);
+    String startkeyname = buildKeyName(state, keynum);
+    int len = state.scanlength.nextValue().intValue();
+    Set<String> fields = null;
+    if (!readallfields) {
+      fields = state.chooseField();
+    }
+    state.results.clear();
+    return db.scanAsync(table, startkeyname, len, fields, state.results);
+  }
 
+  public CompletionStage<Status> doTransactionUpdateMetaAsync(AsyncDB db, ThreadState state, int metadatanum) {
+    long keynum = nextKeynum(state);
     // match on metadata field
-    String metadatacond = buildDeterministicValue(keynum, metadatanum, fieldnames.get(metadatanum));
-
-    // pick another field to be updated
-    int fieldnum = metadatachooser.nextValue().intValue();
+    String metadatacond = buildCondition(state, keynum, metadatanum);
+    // pick another field to be updated, with a new value
+    int fieldnum = state.metadatachooser.nextValue().intValue();
     String fieldkey = fieldnames.get(fieldnum);
-
-    // new value for another meta data field
-    String metadatavalue = buildDeterministicValue(keynum, fieldnum, fieldkey);
-
-    //System.err.println("Update metadata called with cond: "+ metadatacond +
-    //                   " value: " + metadatavalue + " metadatanum " + metadatanum);
-    
-    db.updateMeta(table, metadatanum, metadatacond, "key*", fieldkey, metadatavalue);
+    String metadatavalue = buildDeterministicValue(state, keynum, fieldnum, fieldkey);
+    return db.updateMetaAsync(table, metadatanum, metadatacond, "key*", fieldkey, metadatavalue);
   }
 
-  public void doTransactionUpdate(DB db) {
-    // choose a random key
-    long keynum = nextKeynum();
-
-    String keyname = buildKeyName(keynum);
-
-    HashMap<String, ByteIterator> values;
-
-    if (writeallfields) {
-      // new data for all the fields
-      values = buildValues(keynum, keyname);
-    } else {
-      // update a random field
-      values = buildSingleValue(keynum, keyname);
-    }
-
-    db.update(table, keyname, values);
+  public CompletionStage<Status> doTransactionUpdateAsync(AsyncDB db, ThreadState state) {
+    long keynum = nextKeynum(state);
+    String keyname = buildKeyName(state, keynum);
+    HashMap<String, ByteIterator> values = writeallfields ? buildValues(state, keynum, keyname)
+        : buildSingleValue(state, keynum, keyname);
+    return db.updateAsync(table, keyname, values);
   }
 
-  public void doTransactionDelete(DB db) {
-    // choose a random key
-    long keynum = nextKeynum();
-    
-    String keyname = buildKeyName(keynum);
-    
-    //System.err.println("Transaction delete called for: "+ keyname);
-    
-    db.delete(table, keyname);
+  public CompletionStage<Status> doTransactionDeleteAsync(AsyncDB db, ThreadState state) {
+    long keynum = nextKeynum(state);
+    return db.deleteAsync(table, buildKeyName(state, keynum));
   }
 
-  public void doTransactionDeleteMeta(DB db, int metadatanum) {
-    // choose a random key
-    long keynum = nextKeynum();
-
-    // match on metadata field
-    String metadatacond = buildDeterministicValue(keynum, metadatanum, fieldnames.get(metadatanum));
-    
-    //System.err.println("Transaction delete meta called for: "+ metadatacond + " metadatanum: " + metadatanum);
-    
-    db.deleteMeta(table, metadatanum, metadatacond, "key*");
+  public CompletionStage<Status> doTransactionDeleteMetaAsync(AsyncDB db, ThreadState state, int metadatanum) {
+    long keynum = nextKeynum(state);
+    String metadatacond = buildCondition(state, keynum, metadatanum);
+    return db.deleteMetaAsync(table, metadatanum, metadatacond, "key*");
   }
 
-  public void doTransactionInsert(DB db) {
+  public CompletionStage<Status> doTransactionInsertAsync(AsyncDB db, ThreadState state) {
     // choose the next key
     long keynum = transactioninsertkeysequence.nextValue();
-
+    CompletionStage<Status> pending;
     try {
-      String dbkey = buildKeyName(keynum);
-
+      String dbkey = buildKeyName(state, keynum);
       int ttl = buildTTLValue(keynum);
-      HashMap<String, ByteIterator> values = buildValues(keynum, dbkey);
-      db.insertTTL(table, dbkey, values, ttl);
-    } finally {
+      HashMap<String, ByteIterator> values = buildValues(state, keynum, dbkey);
+      pending = db.insertTTLAsync(table, dbkey, values, ttl);
+    } catch (RuntimeException e) {
       transactioninsertkeysequence.acknowledge(keynum);
+      throw e;
     }
+    // the record becomes readable once the insert completed
+    return pending.whenComplete((status, error) -> transactioninsertkeysequence.acknowledge(keynum));
   }
 
   /**
    * Creates a weighted discrete values with database operations for a workload to perform.
    * Weights/proportions are read from the properties list and defaults are used
    * when values are not configured.
-   * Current operations are "READ", "READMETA", "UPDATE", "UPDATEMETA", 
-   *  "INSERT", "SCAN" and "READMODIFYWRITE".
+   * The operations are the constants of {@link Operation}.
    *
    * @param p The properties list to pull weights from.
    * @return A generator that can be used to determine the next operation to perform.
    * @throws IllegalArgumentException if the properties object was null.
    */
-  protected static DiscreteGenerator createOperationGenerator(final Properties p) {
+  protected static EnumDiscreteGenerator<Operation> createOperationGenerator(final Properties p) {
     if (p == null) {
       throw new IllegalArgumentException("Properties object cannot be null");
     }
@@ -1225,55 +1359,132 @@ public class GDPRWorkload extends Workload {
     final double readmodifywriteproportion = Double.parseDouble(p.getProperty(
         READMODIFYWRITE_PROPORTION_PROPERTY, READMODIFYWRITE_PROPORTION_PROPERTY_DEFAULT));
 
-    final DiscreteGenerator operationchooser = new DiscreteGenerator();
+    final EnumDiscreteGenerator<Operation> operationchooser = new EnumDiscreteGenerator<>(Operation.class);
     if (readproportion > 0) {
-      operationchooser.addValue(readproportion, "READ");
+      operationchooser.addValue(readproportion, Operation.READ);
     }
 
     if (readmetapurproportion > 0) {
-      operationchooser.addValue(readmetapurproportion, "READMETAPURPOSE");
+      operationchooser.addValue(readmetapurproportion, Operation.READMETAPURPOSE);
     }
 
     if (readmetauserproportion > 0) {
-      operationchooser.addValue(readmetauserproportion, "READMETAUSER");
+      operationchooser.addValue(readmetauserproportion, Operation.READMETAUSER);
     }
 
     if (updateproportion > 0) {
-      operationchooser.addValue(updateproportion, "UPDATE");
+      operationchooser.addValue(updateproportion, Operation.UPDATE);
     }
 
     if (updatemetapurproportion > 0) {
-      operationchooser.addValue(updatemetapurproportion, "UPDATEMETAPURPOSE");
+      operationchooser.addValue(updatemetapurproportion, Operation.UPDATEMETAPURPOSE);
     }
 
     if (updatemetauserproportion > 0) {
-      operationchooser.addValue(updatemetauserproportion, "UPDATEMETAUSER");
+      operationchooser.addValue(updatemetauserproportion, Operation.UPDATEMETAUSER);
     }
 
     if (insertproportion > 0) {
-      operationchooser.addValue(insertproportion, "INSERT");
+      operationchooser.addValue(insertproportion, Operation.INSERT);
     }
 
     if (deleteproportion > 0) {
-      operationchooser.addValue(deleteproportion, "DELETE");
+      operationchooser.addValue(deleteproportion, Operation.DELETE);
     }
 
     if (deletemetapurproportion > 0) {
-      operationchooser.addValue(deletemetapurproportion, "DELETEMETAPURPOSE");
+      operationchooser.addValue(deletemetapurproportion, Operation.DELETEMETAPURPOSE);
     }
 
     if (deletemetauserproportion > 0) {
-      operationchooser.addValue(deletemetauserproportion, "DELETEMETAUSER");
+      operationchooser.addValue(deletemetauserproportion, Operation.DELETEMETAUSER);
     }
 
     if (scanproportion > 0) {
-      operationchooser.addValue(scanproportion, "SCAN");
+      operationchooser.addValue(scanproportion, Operation.SCAN);
     }
 
     if (readmodifywriteproportion > 0) {
-      operationchooser.addValue(readmodifywriteproportion, "READMODIFYWRITE");
+      operationchooser.addValue(readmodifywriteproportion, Operation.READMODIFYWRITE);
     }
 
     return operationchooser;
   }
+
+  /**
+   * The state of one client thread. It holds its own instances of the generators that have no global
+   * sequence, so that client threads do not contend on their state, and containers reused by every
+   * operation of the thread instead of allocating new ones.
+   */
+  protected class ThreadState {
+    /** Chooses the operations of this thread. */
+    protected final EnumDiscreteGenerator<Operation> operationchooser;
+
+    /**
+     * Chooses the records operated on. The uniform and hotspot choosers are per thread, the others are
+     * shared as they follow the inserts or a global sequence, or are expensive to set up.
+     */
+    protected final NumberGenerator keychooser;
+
+    /** Chooses the field read or written by single field operations. */
+    protected final NumberGenerator fieldchooser;
+
+    /** Chooses the metadata field updated by meta updates. */
+    protected final NumberGenerator metadatachooser;
+
+    /** Chooses the scan length. */
+    protected final NumberGenerator scanlength;
+
+    /** Produces field lengths. */
+    protected final NumberGenerator fieldlengthgenerator;
+
+    /** The values written by an insert or update, refilled by every operation. */
+    protected final HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+
+    /** Encodes the key names of the records operated on. */
+    protected final GDPRKeyEncoder keyencoder = new GDPRKeyEncoder(orderedinserts, zeropadding, keycachesize);
+
+    /** The deterministic field values written by this thread. */
+    protected final GDPRRecordBuffer record = new GDPRRecordBuffer(fieldvaluebytes);
+
+    /** The cells returned by a read. */
+    protected final HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+
+    /** The records returned by a scan or meta read. */
+    protected final Vector<HashMap<String, ByteIterator>> results = new Vector<HashMap<String, ByteIterator>>();
+
+    /** The names of all fields. */
+    protected final Set<String> allfields;
+
+    /** The single field read by operations that do not read all fields. */
+    private final Set<String> field = new HashSet<String>();
+
+    protected ThreadState() throws WorkloadException {
+      NumberGenerator shared = GDPRWorkload.this.keychooser;
+      operationchooser = createOperationGenerator(properties);
+      if (shared instanceof UniformLongGenerator) {
+        keychooser = new UniformLongGenerator(insertstart, insertstart + insertcount - 1);
+      } else if (shared instanceof HotspotIntegerGenerator) {
+        HotspotIntegerGenerator hotspot = (HotspotIntegerGenerator) shared;
+        keychooser = new HotspotIntegerGenerator(hotspot.getLowerBound(), hotspot.getUpperBound(),
+            hotspot.getHotsetFraction(), hotspot.getHotOpnFraction());
+      } else {
+        keychooser = shared;
+      }
+      fieldchooser = new UniformLongGenerator(0, fieldcount - 1);
+      metadatachooser = new UniformLongGenerator(1, 8);
+      scanlength = getScanLengthGenerator(properties);
+      fieldlengthgenerator = getFieldLengthGenerator(properties);
+      allfields = Collections.unmodifiableSet(new HashSet<String>(fieldnames));
+    }
+
+    /**
+     * Choose a random field, returned as the single element of a set reused by the next call.
+     */
+    protected Set<String> chooseField() {
+      field.clear();
+      field.add(fieldnames.get(fieldchooser.nextValue().intValue()));
+      return field;
+    }
+  }
 }
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.generator.ConstantIntegerGenerator;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link ArrivalQueue}.
+ */
+public class TestArrivalQueue {
+
+  @Test
+  public void arrivalsAreSpacedByTheIntervals() {
+    ArrivalQueue arrivals = new ArrivalQueue(new ConstantIntegerGenerator(2), TimeUnit.MILLISECONDS);
+    long start = System.nanoTime();
+    long previous = arrivals.take();
+    assertTrue(previous >= start);
+    for (int i = 0; i < 10; i++) {
+      long arrival = arrivals.take();
+      assertEquals(arrival - previous, TimeUnit.MILLISECONDS.toNanos(2));
+      previous = arrival;
+    }
+  }
+
+  @Test
+  public void arrivalsFollowTheTargetProfile() {
+    TargetProfile twice = new TargetProfile(t -> 2000);
+    ArrivalQueue arrivals =
+        new ArrivalQueue(new ConstantIntegerGenerator(1000000), TimeUnit.NANOSECONDS, 1000, twice);
+    long previous = arrivals.take();
+    for (int i = 0; i < 10; i++) {
+      long arrival = arrivals.take();
+      assertEquals(arrival - previous, 500000L);
+      previous = arrival;
+    }
+  }
+
+  @Test
+  public void periodicTicksNeedNoQueue() throws IOException {
+    assertNull(ArrivalQueue.fromProperties(new Properties(), 1000, null));
+
+    Properties p = new Properties();
+    p.setProperty(ArrivalQueue.ARRIVAL_PROCESS_PROPERTY, "bursty");
+    assertNotNull(ArrivalQueue.fromProperties(p, 1000, null));
+
+    // periodic arrivals following a profile are shared by the threads
+    assertNotNull(ArrivalQueue.fromProperties(new Properties(), 1000, new TargetProfile(t -> 1000)));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void poissonArrivalsNeedATarget() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(ArrivalQueue.ARRIVAL_PROCESS_PROPERTY, "poisson");
+    ArrivalQueue.fromProperties(p, 0, null);
+  }
+}
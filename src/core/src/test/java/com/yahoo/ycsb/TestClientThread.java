@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Test class for {@link ClientThread}.
+ */
+public class TestClientThread {
+  private final ScheduledExecutorService replies = Executors.newSingleThreadScheduledExecutor();
+
+  @AfterClass
+  public void shutdown() {
+    replies.shutdownNow();
+  }
+
+  @Test
+  public void keepsTheOutstandingRequestsInFlight() {
+    Properties p = getProperties(4);
+    DelayedDB db = new DelayedDB();
+    CountingWorkload workload = new CountingWorkload();
+    ClientThread thread = new ClientThread(db, true, workload, p, 100, 0, new CountDownLatch(1));
+    thread.run();
+
+    assertEquals(thread.getOpsDone(), 100);
+    assertEquals(db.maxinflight.get(), 4);
+    assertEquals(db.inflight.get(), 0);
+    assertEquals(workload.states.get(), 4);
+  }
+
+  @Test
+  public void synchronousDBsRunOneRequestAtATime() {
+    Properties p = getProperties(4);
+    CountingWorkload workload = new CountingWorkload();
+    ClientThread thread = new ClientThread(new BasicDB(), true, workload, p, 10, 0, new CountDownLatch(1));
+    thread.run();
+
+    assertEquals(thread.getOpsDone(), 10);
+    assertEquals(workload.states.get(), 1);
+  }
+
+  private static Properties getProperties(int outstanding) {
+    Properties p = new Properties();
+    p.setProperty(ClientThread.OUTSTANDING_REQUESTS_PROPERTY, String.valueOf(outstanding));
+    Measurements.setProperties(p);
+    return p;
+  }
+
+  /**
+   * Reads through the asynchronous operations of the DB if it has them.
+   */
+  private static class CountingWorkload extends Workload {
+    private final AtomicInteger states = new AtomicInteger();
+
+    @Override
+    public Object initThread(Properties p, int mythreadid, int threadcount) {
+      states.incrementAndGet();
+      return new HashMap<String, ByteIterator>();
+    }
+
+    @Override
+    public boolean doInsert(DB db, Object threadstate) {
+      return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean doTransaction(DB db, Object threadstate) {
+      return db.read("usertable", "key", null, (Map<String, ByteIterator>) threadstate).isOk();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletionStage<Boolean> doTransactionAsync(AsyncDB db, Object threadstate) {
+      return db.readAsync("usertable", "key", null, (Map<String, ByteIterator>) threadstate).thenApply(Status::isOk);
+    }
+  }
+
+  /**
+   * Replies to every request a millisecond later, on another thread.
+   */
+  private class DelayedDB extends AsyncDB {
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxinflight = new AtomicInteger();
+
+    private CompletionStage<Status> reply() {
+      int requests = inflight.incrementAndGet();
+      maxinflight.accumulateAndGet(requests, Math::max);
+      CompletableFuture<Status> reply = new CompletableFuture<>();
+      replies.schedule(() -> {
+          inflight.decrementAndGet();
+          reply.complete(Status.OK);
+        }, 1, TimeUnit.MILLISECONDS);
+      return reply;
+    }
+
+    @Override
+    public CompletionStage<Status> readAsync(String table, String key, Set<String> fields,
+                                             Map<String, ByteIterator> result) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> readMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                 Vector<HashMap<String, ByteIterator>> result) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                             Vector<HashMap<String, ByteIterator>> result) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> updateMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                   String fieldkey, String fieldvalue) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> insertTTLAsync(String table, String key, Map<String, ByteIterator> values,
+                                                  int ttl) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> deleteAsync(String table, String key) {
+      return reply();
+    }
+
+    @Override
+    public CompletionStage<Status> deleteMetaAsync(String table, int fieldnum, String cond, String keymatch) {
+      return reply();
+    }
+
+    @Override
+    public Status readLog(String table, int logcount) {
+      return Status.OK;
+    }
+
+    @Override
+    public Status verifyTTL(String table, long recordcount) {
+      return Status.OK;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link ClientThreadFactory}.
+ */
+public class TestClientThreadFactory {
+
+  @Test
+  public void platformThreadsByDefault() throws InterruptedException {
+    ClientThreadFactory factory = ClientThreadFactory.fromProperties(new Properties());
+    assertFalse(factory.isVirtual());
+
+    final AtomicBoolean ran = new AtomicBoolean();
+    Thread thread = factory.newThread(() -> ran.set(true));
+    thread.start();
+    thread.join();
+    assertTrue(ran.get());
+  }
+
+  @Test
+  public void virtualModeRunsTheClientsWithoutSpinning() throws InterruptedException {
+    Properties p = new Properties();
+    p.setProperty(ClientThreadFactory.THREAD_MODE_PROPERTY, "virtual");
+    p.setProperty("spin.sleep", "true");
+    ClientThreadFactory factory = ClientThreadFactory.fromProperties(p);
+
+    final AtomicBoolean ran = new AtomicBoolean();
+    Thread thread = factory.newThread(() -> ran.set(true));
+    thread.start();
+    thread.join();
+    assertTrue(ran.get());
+    // on JVMs without virtual threads the clients fall back to platform threads, which may spin
+    assertEquals(p.getProperty("spin.sleep"), String.valueOf(!factory.isVirtual()));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unknownThreadModesAreRejected() {
+    Properties p = new Properties();
+    p.setProperty(ClientThreadFactory.THREAD_MODE_PROPERTY, "green");
+    ClientThreadFactory.fromProperties(p);
+  }
+}
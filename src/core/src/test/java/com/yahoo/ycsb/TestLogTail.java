@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class TestLogTail {
+
+  private static Path write(String content) throws Exception {
+    Path file = Files.createTempFile("ycsb-logtail", ".log");
+    file.toFile().deleteOnExit();
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  @Test
+  public void lastLines() throws Exception {
+    Path file = write("a\nb\nc\nd\n");
+    assertEquals(LogTail.tail(file, 2), Arrays.asList("c", "d"));
+    assertEquals(LogTail.tail(file, 4), Arrays.asList("a", "b", "c", "d"));
+    assertEquals(LogTail.tail(file, 10), Arrays.asList("a", "b", "c", "d"));
+  }
+
+  @Test
+  public void unterminatedLastLine() throws Exception {
+    Path file = write("a\r\nb\r\nc");
+    assertEquals(LogTail.tail(file, 2), Arrays.asList("b", "c"));
+  }
+
+  @Test
+  public void emptyFileAndCount() throws Exception {
+    assertTrue(LogTail.tail(write(""), 3).isEmpty());
+    assertTrue(LogTail.tail(write("a\n"), 0).isEmpty());
+  }
+
+  @Test
+  public void acrossWindows() throws Exception {
+    StringBuilder content = new StringBuilder();
+    List<String> expected = new ArrayList<>();
+    int lines = 3 * LogTail.WINDOW_SIZE / 10;
+    for (int i = 0; i < lines; i++) {
+      String line = String.format("%09d", i);
+      content.append(line).append('\n');
+      if (i >= lines - 200000) {
+        expected.add(line);
+      }
+    }
+    assertEquals(LogTail.tail(write(content.toString()), 200000), expected);
+  }
+}
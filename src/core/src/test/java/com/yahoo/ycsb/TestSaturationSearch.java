@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link SaturationSearch}.
+ */
+public class TestSaturationSearch {
+
+  @Test
+  public void findsTheHighestTargetMeetingTheSlo() {
+    SaturationSearch search = new SaturationSearch(getProperties());
+    // the p99 of READMETA exceeds 50 ms above 3000 ops/sec
+    int sustained = search.search(target -> step(target, target, target <= 3000 ? 20 : 80));
+
+    assertTrue(sustained <= 3000 && sustained >= 3000 * 0.95, "found " + sustained);
+    List<SaturationSearch.Step> steps = search.getSteps();
+    assertEquals(steps.get(0).getTarget(), 1000);
+    assertEquals(steps.get(1).getTarget(), 2000);
+    assertEquals(steps.get(2).getTarget(), 4000);
+    assertFalse(steps.get(2).isSustained());
+  }
+
+  @Test
+  public void targetsTheDatabaseCannotReachMissTheSlo() {
+    SaturationSearch search = new SaturationSearch(getProperties());
+    // the latencies stay low, but the database serves at most 1500 ops/sec
+    int sustained = search.search(target -> step(target, Math.min(target, 1500), 20));
+
+    assertTrue(sustained <= 1500 / SaturationSearch.MIN_THROUGHPUT_FRACTION, "found " + sustained);
+    assertTrue(sustained >= 1500, "found " + sustained);
+  }
+
+  @Test
+  public void stopsAfterTheMostSteps() {
+    Properties p = getProperties();
+    p.setProperty(SaturationSearch.MAX_STEPS_PROPERTY, "3");
+    SaturationSearch search = new SaturationSearch(p);
+    assertEquals(search.search(target -> step(target, target, 20)), 4000);
+    assertEquals(search.getSteps().size(), 3);
+  }
+
+  @Test
+  public void doublingStopsAtTheLargestTarget() {
+    Properties p = getProperties();
+    p.setProperty(SaturationSearch.START_PROPERTY, String.valueOf(1 << 30));
+    SaturationSearch search = new SaturationSearch(p);
+    assertEquals(search.search(target -> step(target, target, 20)), Integer.MAX_VALUE);
+    assertEquals(search.getSteps().size(), 2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rejectsOperationsNeverMeasured() {
+    Properties p = getProperties();
+    p.setProperty(SaturationSearch.SLO_PROPERTY, "READMETA:50,UPDATEMETA:100");
+    new SaturationSearch(p).search(target -> step(target, target, 20));
+  }
+
+  @Test
+  public void stepsMissingTheTargetNeedNotMeasureTheSlo() {
+    SaturationSearch search = new SaturationSearch(getProperties());
+    assertEquals(search.search(target -> new SaturationSearch.Step(target, 0, 1000,
+        Collections.<String, Double>emptyMap())), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rejectsMeasurementsWithoutPercentiles() {
+    Properties p = getProperties();
+    p.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "histogram");
+    new SaturationSearch(p);
+  }
+
+  private static Properties getProperties() {
+    Properties p = new Properties();
+    p.setProperty(SaturationSearch.SLO_PROPERTY, "READMETA:50");
+    return p;
+  }
+
+  /**
+   * A step of a second with the given throughput and p99 of READMETA in milliseconds.
+   */
+  private static SaturationSearch.Step step(int target, int throughput, int latency) {
+    return new SaturationSearch.Step(target, throughput, 1000,
+        Collections.singletonMap("READMETA", latency * 1000.0));
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Test class for {@link TargetProfile}.
+ */
+public class TestTargetProfile {
+
+  @Test
+  public void constantTargetsHaveNoProfile() throws IOException {
+    assertNull(TargetProfile.fromProperties(new Properties(), 1000));
+  }
+
+  @Test
+  public void rampsRiseToTheTarget() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(TargetProfile.TARGET_PROFILE_PROPERTY, "ramp");
+    p.setProperty(TargetProfile.START_PROPERTY, "100");
+    p.setProperty(TargetProfile.DURATION_PROPERTY, "10");
+    TargetProfile ramp = TargetProfile.fromProperties(p, 1100);
+
+    assertEquals(ramp.current(), 100, 0.001);
+    ramp.start();
+    assertEquals(ramp.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)), 600, 1);
+    assertEquals(ramp.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(20)), 1100, 0.001);
+  }
+
+  @Test
+  public void stepsClimbAtTheirInterval() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(TargetProfile.TARGET_PROFILE_PROPERTY, "step");
+    p.setProperty(TargetProfile.STEP_TIME_PROPERTY, "10");
+    TargetProfile steps = TargetProfile.fromProperties(p, 1000);
+    steps.start();
+
+    assertEquals(steps.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(15)), 100, 0.001);
+    assertEquals(steps.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(35)), 300, 0.001);
+    assertEquals(steps.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(500)), 1000, 0.001);
+  }
+
+  @Test
+  public void schedulesHoldEachTargetUntilTheNext() throws IOException {
+    File file = File.createTempFile("profile", ".csv");
+    file.deleteOnExit();
+    try (PrintWriter out = new PrintWriter(file)) {
+      out.println("# seconds,target");
+      out.println("0,500");
+      out.println("10,2000");
+      out.println("30,800");
+    }
+    Properties p = new Properties();
+    p.setProperty(TargetProfile.TARGET_PROFILE_PROPERTY, "csv");
+    p.setProperty(TargetProfile.FILE_PROPERTY, file.getPath());
+    TargetProfile schedule = TargetProfile.fromProperties(p, 0);
+    schedule.start();
+
+    assertEquals(schedule.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)), 500, 0.001);
+    assertEquals(schedule.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(10)), 2000, 0.001);
+    assertEquals(schedule.at(System.nanoTime() + TimeUnit.SECONDS.toNanos(100)), 800, 0.001);
+  }
+}
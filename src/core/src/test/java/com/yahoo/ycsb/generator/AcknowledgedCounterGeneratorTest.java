@@ -16,6 +16,11 @@
  */
 package com.yahoo.ycsb.generator;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -58,4 +63,60 @@ public class AcknowledgedCounterGeneratorTest {
     }
 
   }
+
+  /**
+   * Test that values acknowledged concurrently and out of order all reach the limit.
+   */
+  @Test
+  public void testConcurrentAcknowledgements() throws Exception {
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(0);
+    final int perThread = 50000;
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 8; t++) {
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < perThread; i++) {
+            generator.acknowledge(generator.nextValue());
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(generator.lastValue().longValue(), 8L * perThread - 1);
+  }
+
+  /**
+   * Test that a full window makes the generator wait for the oldest value instead of failing.
+   */
+  @Test
+  public void testFullWindowWaits() throws Exception {
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(0);
+    long oldest = generator.nextValue();
+    for (int i = 1; i < AcknowledgedCounterGenerator.WINDOW_SIZE; i++) {
+      generator.acknowledge(generator.nextValue());
+    }
+    assertEquals(generator.lastValue().longValue(), -1L);
+
+    final long[] next = new long[1];
+    Thread waiting = new Thread() {
+      @Override
+      public void run() {
+        next[0] = generator.nextValue();
+      }
+    };
+    waiting.start();
+    waiting.join(200);
+    assertTrue(waiting.isAlive());
+
+    generator.acknowledge(oldest);
+    waiting.join();
+    assertEquals(next[0], (long) AcknowledgedCounterGenerator.WINDOW_SIZE);
+    assertEquals(generator.lastValue().longValue(), AcknowledgedCounterGenerator.WINDOW_SIZE - 1L);
+  }
 }
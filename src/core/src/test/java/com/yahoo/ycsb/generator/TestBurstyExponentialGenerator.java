@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestBurstyExponentialGenerator {
+
+  @Test
+  public void intervalsAverageToTheMean() {
+    BurstyExponentialGenerator bursty = new BurstyExponentialGenerator(1, 4, 0.1, 100);
+    double sum = 0;
+    int count = 1000000;
+    for (int i = 0; i < count; i++) {
+      double interval = bursty.nextValue();
+      assertTrue(interval >= 0);
+      sum += interval;
+    }
+    assertEquals(sum / count, 1.0, 0.05);
+  }
+
+  @Test
+  public void burstsAreShorterIntervals() {
+    // a quarter of the time in bursts that are three times as fast, in which three quarters of the events occur
+    BurstyExponentialGenerator bursty = new BurstyExponentialGenerator(1, 3, 0.25, 1000);
+    int count = 1000000;
+    int shortintervals = 0;
+    for (int i = 0; i < count; i++) {
+      if (bursty.nextValue() < 0.1) {
+        shortintervals++;
+      }
+    }
+    // a Poisson process of the same rate has 1 - e^-0.1 = 9.5% of its intervals below 0.1
+    assertTrue(shortintervals > 0.13 * count, "only " + shortintervals + " short intervals");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void burstsMustLeaveRoomForCalmPeriods() {
+    new BurstyExponentialGenerator(1, 4, 0.25, 100);
+  }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.Test;
+
+public class TestEnumDiscreteGenerator {
+  private enum Color { RED, GREEN, BLUE, BLACK }
+
+  @Test
+  public void followsTheWeights() {
+    EnumDiscreteGenerator<Color> generator = new EnumDiscreteGenerator<>(Color.class);
+    generator.addValue(0.7, Color.RED);
+    generator.addValue(0.2, Color.GREEN);
+    generator.addValue(0.1, Color.BLUE);
+
+    int draws = 100000;
+    int[] counts = new int[Color.values().length];
+    for (int i = 0; i < draws; i++) {
+      counts[generator.nextValue().ordinal()]++;
+    }
+    assertEquals(counts[Color.RED.ordinal()] / (double) draws, 0.7, 0.02);
+    assertEquals(counts[Color.GREEN.ordinal()] / (double) draws, 0.2, 0.02);
+    assertEquals(counts[Color.BLUE.ordinal()] / (double) draws, 0.1, 0.02);
+    assertEquals(counts[Color.BLACK.ordinal()], 0);
+  }
+
+  @Test
+  public void singleValue() {
+    EnumDiscreteGenerator<Color> generator = new EnumDiscreteGenerator<>(Color.class);
+    generator.addValue(0.3, Color.BLACK);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(generator.nextValue(), Color.BLACK);
+    }
+    assertEquals(generator.lastValue(), Color.BLACK);
+  }
+
+  @Test
+  public void noValues() {
+    assertNull(new EnumDiscreteGenerator<>(Color.class).nextValue());
+  }
+}
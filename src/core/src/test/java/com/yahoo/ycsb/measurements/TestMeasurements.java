@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Test class for {@link Measurements}.
+ */
+public class TestMeasurements {
+
+  @Test
+  public void hdrHistogramWhateverTheMeasurementType() {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "histogram");
+    Measurements measurements = new Measurements(props);
+    for (int i = 1; i <= 100; i++) {
+      measurements.measure("READ", i);
+      measurements.measureHdrHistogram("LAG", i * 1000);
+    }
+
+    Map<String, Double> percentiles = measurements.getPercentiles(99);
+    // the histogram of the measurement type keeps no percentiles
+    assertFalse(percentiles.containsKey("READ"));
+    assertTrue(percentiles.containsKey("LAG"));
+    assertEquals(percentiles.get("LAG"), 99000, 1000);
+  }
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2017 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.yahoo.ycsb.BasicDB;
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.MultiValuedMetadata;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import org.testng.annotations.Test;
+
+public class TestGDPRWorkload {
+
+  @Test
+  public void threadStatesAreIndependent() throws Exception {
+    final Properties p = getUTProperties();
+    final GDPRWorkload wl = new GDPRWorkload();
+    wl.init(p);
+
+    GDPRWorkload.ThreadState first = (GDPRWorkload.ThreadState) wl.initThread(p, 0, 2);
+    GDPRWorkload.ThreadState second = (GDPRWorkload.ThreadState) wl.initThread(p, 1, 2);
+    assertNotSame(first, second);
+    assertNotSame(first.operationchooser, second.operationchooser);
+    assertNotSame(first.keychooser, second.keychooser);
+    assertNotSame(first.fieldlengthgenerator, second.fieldlengthgenerator);
+    assertNotSame(first.values, second.values);
+  }
+
+  @Test
+  public void firstTransactionWorkIsPerThread() throws Exception {
+    final Properties p = getUTProperties();
+    p.setProperty(GDPRWorkload.CHECK_COMPL_PROPERTY, "true");
+    p.setProperty(GDPRWorkload.READ_LOG_PROPERTY, "true");
+    final GDPRWorkload wl = new GDPRWorkload();
+    wl.init(p);
+    final RecordingDB db = new RecordingDB();
+    db.setProperties(p);
+    db.init();
+
+    // the states of the requests a thread keeps in flight share its first transaction
+    Object first = wl.initThread(p, 0, 2);
+    Object second = wl.initThread(p, 1, 2);
+    assertTrue(wl.doTransaction(db, first));
+    assertTrue(wl.doTransaction(db, second));
+    assertTrue(wl.doTransaction(db, first));
+    assertEquals(db.verified, 1);
+    assertEquals(db.logsRead, 1);
+
+    Thread other = new Thread(() -> {
+        try {
+          wl.doTransaction(db, wl.initThread(p, 2, 3));
+        } catch (WorkloadException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    other.start();
+    other.join();
+    assertEquals(db.verified, 2);
+    assertEquals(db.logsRead, 2);
+  }
+
+  @Test
+  public void insertsReuseTheValuesOfTheThread() throws Exception {
+    final Properties p = getUTProperties();
+    final GDPRWorkload wl = new GDPRWorkload();
+    wl.init(p);
+    Object threadState = wl.initThread(p, 0, 1);
+
+    RecordingDB db = new RecordingDB();
+    db.setProperties(p);
+    db.init();
+    assertTrue(wl.doInsert(db, threadState));
+    assertTrue(wl.doInsert(db, threadState));
+
+    assertEquals(db.inserted.size(), 2);
+    assertSame(db.inserted.get(0), db.inserted.get(1));
+    assertEquals(db.inserted.get(1).keySet(), new HashSet<String>(
+        Arrays.asList("PUR", "TTL", "USR", "OBJ", "DEC", "ACL", "SHR", "SRC", "CAT", "Data")));
+  }
+
+  @Test
+  public void dataMatchesTheStringBuiltValue() {
+    for (long keynum : new long[] {0, 7, 42, 123456789L, Long.MAX_VALUE}) {
+      for (int size : new int[] {1, 5, 100, 1000}) {
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+          sb.append(String.valueOf(keynum));
+          sb.append(sb.toString().hashCode());
+        }
+        sb.setLength(size);
+        assertEquals(GDPRRecordBuffer.dataString(keynum, size), sb.toString());
+      }
+    }
+  }
+
+  @Test
+  public void insertsWriteDeterministicValues() throws Exception {
+    final Properties p = getUTProperties();
+    final GDPRWorkload wl = new GDPRWorkload();
+    wl.init(p);
+    Object threadState = wl.initThread(p, 0, 1);
+
+    RecordingDB db = new RecordingDB();
+    db.setProperties(p);
+    db.init();
+    assertTrue(wl.doInsert(db, threadState));
+    Map<String, ByteIterator> values = db.inserted.get(0);
+    assertEquals(values.get("PUR").toString(), "purpose0");
+    assertEquals(values.get("TTL").toString(), "30");
+    assertEquals(values.get("Data").toString(), GDPRRecordBuffer.dataString(0, 100));
+
+    assertTrue(wl.doInsert(db, threadState));
+    assertEquals(values.get("USR").toString(), "user1");
+    assertEquals(values.get("Data").toString(), GDPRRecordBuffer.dataString(1, 100));
+  }
+
+  @Test
+  public void keyNamesArePadded() {
+    GDPRKeyEncoder encoder = new GDPRKeyEncoder(true, 8, 0);
+    assertEquals(encoder.encode(5), "key00000005");
+    assertEquals(encoder.encode(123456789L), "key123456789");
+    assertEquals(new GDPRKeyEncoder(false, 1, 0).encode(5), "key" + com.yahoo.ycsb.Utils.hash(5));
+  }
+
+  @Test
+  public void cachedKeyNamesAreReused() {
+    GDPRKeyEncoder encoder = new GDPRKeyEncoder(true, 1, 4);
+    String key = encoder.encode(3);
+    assertSame(encoder.encode(3), key);
+    // 7 takes the slot of 3
+    assertEquals(encoder.encode(7), "key7");
+    assertNotSame(encoder.encode(3), key);
+    assertEquals(encoder.encode(3), key);
+  }
+
+  @Test
+  public void multiValuedPurposesContainTheirConditions() throws Exception {
+    final Properties p = getUTProperties();
+    p.put(MultiValuedMetadata.PURPOSE_MAX_VALUES_PROPERTY, "4");
+    p.put(GDPRWorkload.METADATA_VALUE_DISTRIBUTION_PROPERTY, "zipfian");
+    final GDPRWorkload wl = new GDPRWorkload();
+    wl.init(p);
+    Object threadState = wl.initThread(p, 0, 1);
+
+    RecordingDB db = new RecordingDB();
+    db.setProperties(p);
+    db.init();
+    int[] sizes = new int[5];
+    for (int i = 0; i < 100; i++) {
+      assertTrue(wl.doInsert(db, threadState));
+      String purposes = db.inserted.get(i).get("PUR").toString();
+      assertTrue(purposes.startsWith(",") && purposes.endsWith(","), purposes);
+      List<String> values = MultiValuedMetadata.values(purposes);
+      assertEquals(new HashSet<String>(values).size(), values.size(), purposes);
+      sizes[values.size()]++;
+    }
+    assertEquals(sizes[0], 0);
+    for (int size = 1; size <= 4; size++) {
+      assertTrue(sizes[size] > 0, "no record with " + size + " purposes");
+    }
+
+    GDPRMetadataSets sets = new GDPRMetadataSets(Arrays.asList("a", "b", "c", "d", "e", "f"), 0, 3, true);
+    int popular = 0;
+    for (long keynum = 0; keynum < 1000; keynum++) {
+      assertEquals(sets.value(keynum), sets.value(keynum));
+      assertTrue(MultiValuedMetadata.matches(sets.value(keynum), sets.condition(keynum)));
+      if (MultiValuedMetadata.matches(sets.value(keynum), "a")) {
+        popular++;
+      }
+    }
+    // the first value is drawn most often, so it is in more sets than a uniform draw would put it in
+    assertTrue(popular > 500, "a is in " + popular + " sets");
+  }
+
+  @Test
+  public void singleValuesAreTakenInTurnByDefault() throws Exception {
+    final Properties p = getUTProperties();
+    final GDPRWorkload wl = new GDPRWorkload();
+    wl.init(p);
+    Object threadState = wl.initThread(p, 0, 1);
+
+    RecordingDB db = new RecordingDB();
+    db.setProperties(p);
+    db.init();
+    for (int i = 0; i < 12; i++) {
+      assertTrue(wl.doInsert(db, threadState));
+      assertEquals(db.inserted.get(i).get("ACL").toString(), "acl" + (i % 10));
+    }
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void missingThreadState() throws Exception {
+    final Properties p = getUTProperties();
+    final GDPRWorkload wl = new GDPRWorkload();
+    wl.init(p);
+    wl.doTransaction(new RecordingDB(), null);
+  }
+
+  private static Properties getUTProperties() {
+    final Properties p = new Properties();
+    p.put(Client.RECORD_COUNT_PROPERTY, "100");
+    p.put(BasicDB.VERBOSE, "false");
+    p.put(GDPRWorkload.DATA_INTEGRITY_PROPERTY, "true");
+    Measurements.setProperties(p);
+    return p;
+  }
+
+  /**
+   * Records the values maps it is asked to insert and counts compliance checks and log reads.
+   */
+  private static class RecordingDB extends BasicDB {
+    private final List<Map<String, ByteIterator>> inserted = new ArrayList<Map<String, ByteIterator>>();
+    private volatile int verified;
+    private volatile int logsRead;
+
+    @Override
+    public Status verifyTTL(String table, long recordcount) {
+      verified++;
+      return Status.OK;
+    }
+
+    @Override
+    public Status readLog(String table, int logcount) {
+      logsRead++;
+      return Status.OK;
+    }
+
+    @Override
+    public Status insertTTL(String table, String key, Map<String, ByteIterator> values, int ttl) {
+      inserted.add(values);
+      return Status.OK;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed size pool of connections per shard, shared by all client threads.
+ *
+ * Connections are opened lazily, up to the pool size per shard; once a shard
+ * has that many connections, borrowing blocks until one is released.
+ */
+class JdbcConnectionPool {
+  /** How long a borrower waits for a release before it looks for a free slot again. */
+  static final long RETRY_INTERVAL_MS = 100;
+
+  private final String[] urls;
+  private final String user;
+  private final String passwd;
+  private final boolean autoCommit;
+  private final int size;
+  private final List<BlockingQueue<ShardConnection>> idle = new ArrayList<BlockingQueue<ShardConnection>>();
+  private final List<AtomicInteger> opened = new ArrayList<AtomicInteger>();
+  private final List<ShardConnection> all = new ArrayList<ShardConnection>();
+
+  JdbcConnectionPool(String[] urls, String user, String passwd, boolean autoCommit, int size) {
+    this.urls = urls;
+    this.user = user;
+    this.passwd = passwd;
+    this.autoCommit = autoCommit;
+    this.size = size;
+    for (int i = 0; i < urls.length; i++) {
+      idle.add(new LinkedBlockingQueue<ShardConnection>());
+      opened.add(new AtomicInteger());
+    }
+  }
+
+  int getShardCount() {
+    return urls.length;
+  }
+
+  /**
+   * Take an idle connection to a shard, opening a new one if the shard has
+   * fewer than the pool size, or wait for one to be released otherwise.
+   */
+  ShardConnection borrow(int shardIndex) throws SQLException {
+    BlockingQueue<ShardConnection> shardIdle = idle.get(shardIndex);
+    AtomicInteger shardOpened = opened.get(shardIndex);
+    try {
+      while (true) {
+        ShardConnection conn = shardIdle.poll();
+        if (conn != null) {
+          return conn;
+        }
+        int count = shardOpened.get();
+        if (count < size) {
+          if (shardOpened.compareAndSet(count, count + 1)) {
+            return open(shardIndex);
+          }
+          continue;
+        }
+        // wait for a release, but look again from time to time: a connect
+        // failing in another thread frees its slot without releasing anything
+        conn = shardIdle.poll(RETRY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (conn != null) {
+          return conn;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a connection to shard " + shardIndex, e);
+    }
+  }
+
+  /**
+   * Open a connection to a shard in a slot already counted as opened.
+   */
+  private ShardConnection open(int shardIndex) throws SQLException {
+    Connection connection = null;
+    try {
+      connection = connect(shardIndex);
+      connection.setAutoCommit(autoCommit);
+    } catch (SQLException e) {
+      // give the slot back, or every failed connect would shrink the pool for good
+      opened.get(shardIndex).decrementAndGet();
+      if (connection != null) {
+        connection.close();
+      }
+      throw e;
+    }
+    ShardConnection conn = new ShardConnection(shardIndex, connection);
+    synchronized (all) {
+      all.add(conn);
+    }
+    return conn;
+  }
+
+  Connection connect(int shardIndex) throws SQLException {
+    return DriverManager.getConnection(urls[shardIndex], user, passwd);
+  }
+
+  void release(ShardConnection conn) {
+    idle.get(conn.getShardIndex()).add(conn);
+  }
+
+  /**
+   * All connections opened so far, e.g. to flush what is pending on them.
+   */
+  List<ShardConnection> getConnections() {
+    synchronized (all) {
+      return new ArrayList<ShardConnection>(all);
+    }
+  }
+
+  void close() throws SQLException {
+    for (ShardConnection conn : getConnections()) {
+      if (!autoCommit) {
+        conn.getConnection().commit();
+      }
+      conn.getConnection().close();
+    }
+  }
+}
@@ -16,36 +16,55 @@
  */
 package com.yahoo.ycsb.db;
 
-import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.AsyncDB;
 import com.yahoo.ycsb.DBException;
 import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.LogTail;
+import com.yahoo.ycsb.MultiValuedMetadata;
 import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.StringByteIterator;
+import com.yahoo.ycsb.measurements.Measurements;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import com.yahoo.ycsb.db.flavors.DBFlavor;
 
 /**
  * A class that wraps a JDBC compliant database to allow it to be interfaced
- * with YCSB. This class extends {@link DB} and implements the database
+ * with YCSB. This class extends {@link AsyncDB} and implements the database
  * interface used by YCSB client.
  *
  * <br>
  * Each client will have its own instance of this class. This client is not
- * thread safe.
+ * thread safe, but with {@link #JDBC_POOL_SIZE} set its asynchronous
+ * operations each run on a connection borrowed from the pool, so that a
+ * client thread can keep several requests in flight.
  *
  * <br>
- * This interface expects a schema <key> <field1> <field2> <field3> ... All
- * attributes are of type TEXT. All accesses are through the primary key.
- * Therefore, only one index on the primary key is needed.
+ * This interface expects a schema <key> <field1> <field2> <field3> ... as
+ * created by {@link JdbcDBCreateTable}. Record accesses are through the
+ * primary key, while the metadata operations filter on the GDPR metadata
+ * fields and the TTL reaper on the expiry timestamp, which should be indexed.
+ * With {@link #JDBC_LAYOUT} set to {@link #JDBC_LAYOUT_NORMALIZED}, the table
+ * is a view over separate data, owner and metadata tables, see
+ * {@link NormalizedLayout}.
  */
-public class JdbcDBClient extends DB {
+public class JdbcDBClient extends AsyncDB {
 
   /** The class to use as the jdbc driver. */
   public static final String DRIVER_CLASS = "db.driver";
@@ -68,8 +87,81 @@ public class JdbcDBClient extends DB {
   /** The JDBC connection auto-commit property for the driver. */
   public static final String JDBC_AUTO_COMMIT = "jdbc.autocommit";
 
+  /**
+   * Use the addBatch()/executeBatch() JDBC API for all writes (insert, update, delete and the meta
+   * mutations), batching db.batchsize rows per statement.
+   */
   public static final String JDBC_BATCH_UPDATES = "jdbc.batchupdateapi";
 
+  /**
+   * Buffer inserted rows and load them in bulk, through COPY on PostgreSQL and multi-row inserts elsewhere.
+   * Meant for the load phase.
+   */
+  public static final String JDBC_BULK_LOAD = "jdbc.bulkload";
+
+  /** The number of rows buffered per table and shard before they are loaded. */
+  public static final String JDBC_BULK_LOAD_SIZE = "jdbc.bulkloadsize";
+
+  /** Default number of rows per bulk load. */
+  public static final String JDBC_BULK_LOAD_SIZE_DEFAULT = "10000";
+
+  /**
+   * The most parameters a multi-row insert binds. MySQL and PostgreSQL send their count as 16 bits, which some
+   * PostgreSQL drivers read as signed.
+   */
+  static final int MAX_BIND_PARAMETERS = Short.MAX_VALUE;
+
+  /** Execute pending batches after they have been accumulating for this many milliseconds. */
+  public static final String JDBC_BATCH_TIMEOUT = "jdbc.batchtimeout";
+
+  /**
+   * The number of connections per shard in a pool shared by all client threads. Set to >0 to borrow a
+   * connection for each operation instead of opening dedicated connections per client thread.
+   */
+  public static final String JDBC_POOL_SIZE = "jdbc.poolsize";
+
+  /**
+   * Write the expiry timestamp of records inserted with a TTL to the EXPIRY column, which verifyTTL checks
+   * for compliance. Off by default, as the table needs the column.
+   */
+  public static final String JDBC_TTL_EXPIRY = "jdbc.ttlexpiry";
+
+  /** Run a background thread per client process deleting the records of the table whose expiry has passed. */
+  public static final String JDBC_TTL_REAPER = "jdbc.ttlreaper";
+
+  /** The milliseconds the reaper sleeps once no shard has expired records left. */
+  public static final String JDBC_TTL_REAPER_INTERVAL = "jdbc.ttlreaperinterval";
+
+  /** Default reaper interval. */
+  public static final String JDBC_TTL_REAPER_INTERVAL_DEFAULT = "1000";
+
+  /** The maximum number of expired records the reaper deletes per statement. */
+  public static final String JDBC_TTL_REAPER_BATCH_SIZE = "jdbc.ttlreaperbatchsize";
+
+  /** Default reaper batch size. */
+  public static final String JDBC_TTL_REAPER_BATCH_SIZE_DEFAULT = "1000";
+
+  /** Measurement holding the time each verifyTTL call took until no expired records were left. */
+  public static final String COMPLIANCE_MEASUREMENT = "TTL-COMPLIANCE";
+
+  /**
+   * The layout of the GDPR schema: "row" keeps every field of a record in one row of the table, "normalized" in
+   * separate data, owner and metadata tables joined by a view under the name of the table.
+   */
+  public static final String JDBC_LAYOUT = "jdbc.layout";
+
+  /** The layout keeping a record in one row. */
+  public static final String JDBC_LAYOUT_DEFAULT = "row";
+
+  /** The layout splitting a record across the tables of {@link NormalizedLayout}. */
+  public static final String JDBC_LAYOUT_NORMALIZED = "normalized";
+
+  /** The audit log read by readLog. */
+  public static final String LOG_PATH = "db.logpath";
+
+  /** Default audit log path. */
+  public static final String LOG_PATH_DEFAULT = "/home/audit_logs/audit_dump.xm";
+
   /** The name of the property for the number of fields in a record. */
   public static final String FIELD_COUNT_PROPERTY = "fieldcount";
 
@@ -85,16 +177,60 @@ public class JdbcDBClient extends DB {
   /** The field name prefix in the table. */
   public static final String COLUMN_PREFIX = "FIELD";
 
-  private List<Connection> conns;
+  /** The time to live column of the GDPR schema, an integer number of seconds. */
+  public static final String TTL_COLUMN = "TTL";
+
+  /** The expiry timestamp column of the GDPR schema, derived from the TTL. */
+  public static final String EXPIRY_COLUMN = "EXPIRY";
+
+  /** The data column of the GDPR schema. */
+  public static final String DATA_COLUMN = "Data";
+
+  /** The GDPR metadata columns, indexed by the field number of the meta operations. */
+  private static final String[] META_FIELDS = {
+      "PUR", TTL_COLUMN, "USR", "OBJ", "DEC", "ACL", "SHR", "SRC", "CAT", DATA_COLUMN
+  };
+
+  /** Connections shared by all client threads in pool mode, created by the first and closed by the last thread. */
+  private static final Object SHARED_LOCK = new Object();
+  private static int sharedReferences = 0;
+  private static JdbcConnectionPool pool;
+  /** The client threads using the pool; the last of them closes it, as others may not use it. */
+  private static int poolReferences = 0;
+  /** Runs the per-shard parts of meta operations in parallel, and the asynchronous operations in pool mode. */
+  private static ExecutorService fanout;
+  /** The reaper shared by the client threads that enabled it, stopped by the last of them. */
+  private static JdbcTTLReaper reaper;
+  private static int reaperReferences = 0;
+  /** Flushes the batches and uncommitted rows pending longer than jdbc.batchtimeout, on every connection. */
+  private static ScheduledExecutorService flusher;
+  private static int flusherReferences = 0;
+  /** The dedicated connections of the client threads, flushed by the flusher together with the pool's. */
+  private static final Set<ShardConnection> DEDICATED_CONNECTIONS =
+      Collections.newSetFromMap(new ConcurrentHashMap<ShardConnection, Boolean>());
+
+  /** How often verifyTTL counts the expired records left. */
+  private static final long VERIFY_POLL_MILLIS = 100;
+  /** Only one client thread waits for compliance at a time; the others find the table compliant already. */
+  private static final Object VERIFY_LOCK = new Object();
+
+  /** Dedicated connections of this client thread, one per shard, unless a pool is used. */
+  private List<ShardConnection> conns;
+  private int shardCount;
   private boolean initialized = false;
   private Properties props;
   private int jdbcFetchSize;
   private int batchSize;
   private boolean autoCommit;
   private boolean batchUpdates;
+  private long batchTimeoutNanos;
+  private boolean bulkLoad;
+  private int bulkLoadSize;
+  private boolean ttlExpiry;
+  private boolean ttlReaper;
+  private boolean normalized;
+  private Path logPath;
   private static final String DEFAULT_PROP = "";
-  private ConcurrentMap<StatementType, PreparedStatement> cachedStatements;
-  private long numRowsInBatch = 0;
   /** DB flavor defines DB-specific syntax and behavior for the
    * particular database. Current database flavors are: {default, phoenix} */
   private DBFlavor dbFlavor;
@@ -127,27 +263,253 @@ public class JdbcDBClient extends DB {
    * @return Shard index
    */
   private int getShardIndexByKey(String key) {
-    int ret = Math.abs(key.hashCode()) % conns.size();
+    int ret = Math.abs(key.hashCode()) % shardCount;
     return ret;
   }
 
   /**
-   * For the given key, returns Connection object that holds connection to the
-   * shard that contains this key.
+   * Returns a connection to the given shard: the dedicated one of this client thread, or one borrowed from the
+   * shared pool, which has to be handed back with {@link #release(ShardConnection)}.
+   */
+  private ShardConnection acquire(int shardIndex) throws SQLException {
+    if (conns != null) {
+      return conns.get(shardIndex);
+    }
+    return pool.borrow(shardIndex);
+  }
+
+  private void release(ShardConnection shard) {
+    if (shard != null && conns == null) {
+      pool.release(shard);
+    }
+  }
+
+  /**
+   * A part of a meta operation, executed on one shard.
+   */
+  private interface ShardTask<T> {
+    T run(ShardConnection shard) throws SQLException;
+  }
+
+  /**
+   * Runs a task on every shard, in parallel if there are several, and returns the per-shard results.
+   */
+  private <T> List<T> onAllShards(final ShardTask<T> task) throws SQLException {
+    List<T> results = new ArrayList<T>(shardCount);
+    if (shardCount == 1) {
+      ShardConnection shard = acquire(0);
+      try {
+        results.add(task.run(shard));
+      } finally {
+        release(shard);
+      }
+      return results;
+    }
+    List<Future<T>> futures = new ArrayList<Future<T>>(shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      final int shardIndex = i;
+      futures.add(fanout.submit(new Callable<T>() {
+          @Override
+          public T call() throws SQLException {
+            ShardConnection shard = acquire(shardIndex);
+            try {
+              return task.run(shard);
+            } finally {
+              release(shard);
+            }
+          }
+        }));
+    }
+    SQLException failure = null;
+    for (Future<T> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SQLException(e);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  /**
+   * Adds the current parameters of a write statement to its batch, executing the batch once it holds
+   * db.batchsize rows. A db.batchsize of -1 or a nonsense value is treated as an infinitely large batch.
+   * The flusher may execute the batches of the connection at any time, so writers hold its monitor from
+   * binding the parameters on.
+   */
+  private Status batch(ShardConnection shard, PreparedStatement statement) throws SQLException {
+    int rows = shard.addBatch(statement);
+    if (batchSize > 0 && rows >= batchSize) {
+      return checkBatch(shard, Arrays.asList(toObjects(shard.executeBatch(statement))));
+    }
+    return Status.BATCHED_OK;
+  }
+
+  /**
+   * Buffers a row to insert, loading the buffered rows of its table once there are jdbc.bulkloadsize of them.
+   */
+  private Status bulkInsert(ShardConnection shard, StatementType insertType, String[] row) throws SQLException {
+    if (shard.addBulkRow(insertType, row) < bulkLoadSize) {
+      return Status.BATCHED_OK;
+    }
+    loadRows(shard, insertType, shard.takeBulkRows(insertType));
+    return Status.OK;
+  }
+
+  private void loadRows(ShardConnection shard, StatementType insertType, List<String[]> rows) throws SQLException {
+    if (rows.isEmpty()) {
+      return;
+    }
+    if (!dbFlavor.bulkLoad(shard.getConnection(), insertType, rows)) {
+      String[] columns = getRowColumns(insertType);
+      int chunk = rowsPerInsert(columns.length, bulkLoadSize);
+      for (int from = 0; from < rows.size(); from += chunk) {
+        insertRows(shard, insertType, columns, rows.subList(from, Math.min(rows.size(), from + chunk)), chunk);
+      }
+    }
+    if (!autoCommit) {
+      shard.commit();
+    }
+  }
+
+  /**
+   * The number of rows of a bulk load inserted by each multi-row insert, as many as fit the parameters a
+   * statement binds.
+   */
+  static int rowsPerInsert(int columns, int bulkLoadSize) {
+    return Math.max(1, Math.min(bulkLoadSize, MAX_BIND_PARAMETERS / columns));
+  }
+
+  /**
+   * Inserts rows with a single multi-row insert if the database has them.
    *
-   * @param key Data key to get information for
-   * @return Connection object
+   * @param chunk The number of rows of the inserts of a full load.
    */
-  private Connection getShardConnectionByKey(String key) {
-    return conns.get(getShardIndexByKey(key));
+  private void insertRows(ShardConnection shard, StatementType insertType, String[] columns, List<String[]> rows,
+      int chunk) throws SQLException {
+    String insert = dbFlavor.createBulkInsertStatement(insertType, rows.size());
+    if (insert == null) {
+      // no multi-row inserts, send the rows as a batch of single row inserts
+      PreparedStatement insertStatement = shard.getStatements().get(insertType);
+      if (insertStatement == null) {
+        insertStatement = createAndCacheInsertStatement(shard, insertType, rows.get(0)[0]);
+      }
+      for (String[] row : rows) {
+        setRow(insertStatement, 0, columns, row);
+        insertStatement.addBatch();
+      }
+      insertStatement.executeBatch();
+      return;
+    }
+
+    // the inserts of full loads all look the same, so their statement is worth caching
+    StatementType bulkType = new StatementType(StatementType.Type.BULK_INSERT, insertType.getTableName(),
+        insertType.getNumFields(), insertType.getFieldString(), shard.getShardIndex());
+    PreparedStatement bulkStatement = rows.size() == chunk ? shard.getStatements().get(bulkType) : null;
+    if (bulkStatement == null) {
+      bulkStatement = shard.getConnection().prepareStatement(insert);
+      if (rows.size() == chunk) {
+        shard.getStatements().putIfAbsent(bulkType, bulkStatement);
+      }
+    }
+    int index = 0;
+    for (String[] row : rows) {
+      index = setRow(bulkStatement, index, columns, row);
+    }
+    bulkStatement.executeUpdate();
+    if (rows.size() != chunk) {
+      bulkStatement.close();
+    }
+  }
+
+  /**
+   * Binds the values of a row after the given number of already bound parameters.
+   *
+   * @return The number of parameters bound now.
+   */
+  private static int setRow(PreparedStatement statement, int index, String[] columns, String[] row)
+      throws SQLException {
+    for (int i = 0; i < row.length; i++) {
+      setValue(statement, ++index, columns[i], row[i]);
+    }
+    return index;
+  }
+
+  /**
+   * Binds a value of a column, as a number for the integer TTL column of the GDPR schema (databases like
+   * PostgreSQL do not cast a string parameter to an integer column), as a timestamp for the expiry column
+   * and as a string otherwise.
+   */
+  private static void setValue(PreparedStatement statement, int index, String column, String value)
+      throws SQLException {
+    if (value != null && EXPIRY_COLUMN.equalsIgnoreCase(column)) {
+      statement.setTimestamp(index, Timestamp.valueOf(value));
+      return;
+    }
+    if (value != null && TTL_COLUMN.equalsIgnoreCase(column)) {
+      try {
+        statement.setLong(index, Long.parseLong(value.trim()));
+        return;
+      } catch (NumberFormatException e) {
+        // not a number, leave it to the database
+      }
+    }
+    statement.setString(index, value);
+  }
+
+  /**
+   * The columns of the rows of an insert statement type, the key first.
+   */
+  private static String[] getRowColumns(StatementType insertType) {
+    return (PRIMARY_KEY + "," + insertType.getFieldString()).split(",");
+  }
+
+  private Status checkBatch(ShardConnection shard, List<Integer> results) throws SQLException {
+    // If autoCommit is off, make sure we commit the batch
+    if (!autoCommit) {
+      shard.commit();
+    }
+    boolean changed = false;
+    for (int r : results) {
+      if (r == Statement.EXECUTE_FAILED) {
+        return Status.ERROR;
+      }
+      // SUCCESS_NO_INFO (-2) comes e.g. from reWriteBatchedInserts=true
+      changed |= r != 0;
+    }
+    return changed ? Status.OK : Status.NOT_FOUND;
+  }
+
+  private static Integer[] toObjects(int[] results) {
+    Integer[] objects = new Integer[results.length];
+    for (int i = 0; i < results.length; i++) {
+      objects[i] = results[i];
+    }
+    return objects;
+  }
+
+  private void loadAllRows(ShardConnection shard) throws SQLException {
+    for (Map.Entry<StatementType, List<String[]>> entry : shard.takeAllBulkRows().entrySet()) {
+      loadRows(shard, entry.getKey(), entry.getValue());
+    }
   }
 
   private void cleanupAllConnections() throws SQLException {
-    for (Connection conn : conns) {
-      if (!autoCommit) {
-        conn.commit();
+    if (conns != null) {
+      for (ShardConnection conn : conns) {
+        if (!autoCommit) {
+          conn.commit();
+        }
+        conn.getConnection().close();
       }
-      conn.close();
     }
   }
 
@@ -191,33 +553,94 @@ public class JdbcDBClient extends DB {
 
     this.autoCommit = getBoolProperty(props, JDBC_AUTO_COMMIT, true);
     this.batchUpdates = getBoolProperty(props, JDBC_BATCH_UPDATES, false);
+    this.batchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(getIntProperty(props, JDBC_BATCH_TIMEOUT));
+    this.bulkLoad = getBoolProperty(props, JDBC_BULK_LOAD, false);
+    this.bulkLoadSize = Integer.parseInt(props.getProperty(JDBC_BULK_LOAD_SIZE, JDBC_BULK_LOAD_SIZE_DEFAULT));
+    if (bulkLoad && bulkLoadSize <= 0) {
+      throw new DBException(JDBC_BULK_LOAD_SIZE + " must be positive");
+    }
+    this.logPath = Paths.get(props.getProperty(LOG_PATH, LOG_PATH_DEFAULT));
+    this.ttlExpiry = getBoolProperty(props, JDBC_TTL_EXPIRY, false);
+    this.ttlReaper = getBoolProperty(props, JDBC_TTL_REAPER, false);
+    if (ttlReaper && !ttlExpiry) {
+      throw new DBException(JDBC_TTL_REAPER + " needs " + JDBC_TTL_EXPIRY + ", or no record would ever expire");
+    }
+    String layout = props.getProperty(JDBC_LAYOUT, JDBC_LAYOUT_DEFAULT);
+    if (!layout.equals(JDBC_LAYOUT_DEFAULT) && !layout.equals(JDBC_LAYOUT_NORMALIZED)) {
+      throw new DBException("Unknown " + JDBC_LAYOUT + " " + layout);
+    }
+    this.normalized = layout.equals(JDBC_LAYOUT_NORMALIZED);
 
     try {
       if (driver != null) {
         Class.forName(driver);
       }
-      int shardCount = 0;
-      conns = new ArrayList<Connection>(3);
       final String[] urlArr = urls.split(",");
-      for (String url : urlArr) {
-        System.out.println("Adding shard node URL: " + url);
-        Connection conn = DriverManager.getConnection(url, user, passwd);
+      shardCount = urlArr.length;
+      int poolSize = getIntProperty(props, JDBC_POOL_SIZE);
+      synchronized (SHARED_LOCK) {
+        if (poolSize > 0) {
+          if (pool == null) {
+            pool = new JdbcConnectionPool(urlArr, user, passwd, autoCommit, poolSize);
+          }
+          poolReferences++;
+        }
+        if (fanout == null) {
+          fanout = Executors.newCachedThreadPool(new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jdbc-fanout");
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+        }
+        sharedReferences++;
+      }
+
+      if (poolSize <= 0) {
+        conns = new ArrayList<ShardConnection>(shardCount);
+        for (String url : urlArr) {
+          System.out.println("Adding shard node URL: " + url);
+          Connection conn = DriverManager.getConnection(url, user, passwd);
 
-        // Since there is no explicit commit method in the DB interface, all
-        // operations should auto commit, except when explicitly told not to
-        // (this is necessary in cases such as for PostgreSQL when running a
-        // scan workload with fetchSize)
-        conn.setAutoCommit(autoCommit);
+          // Since there is no explicit commit method in the DB interface, all
+          // operations should auto commit, except when explicitly told not to
+          // (this is necessary in cases such as for PostgreSQL when running a
+          // scan workload with fetchSize)
+          conn.setAutoCommit(autoCommit);
 
-        shardCount++;
-        conns.add(conn);
+          conns.add(new ShardConnection(conns.size(), conn));
+        }
       }
 
-      System.out.println("Using shards: " + shardCount + ", batchSize:" + batchSize + ", fetchSize: " + jdbcFetchSize);
+      if (batchTimeoutNanos > 0) {
+        synchronized (SHARED_LOCK) {
+          if (conns != null) {
+            DEDICATED_CONNECTIONS.addAll(conns);
+          }
+          if (flusher == null) {
+            flusher = startFlusher(batchTimeoutNanos);
+          }
+          flusherReferences++;
+        }
+      }
 
-      cachedStatements = new ConcurrentHashMap<StatementType, PreparedStatement>();
+      System.out.println("Using shards: " + shardCount + ", batchSize:" + batchSize + ", fetchSize: " + jdbcFetchSize
+          + (conns == null ? ", poolSize: " + poolSize : ""));
 
       this.dbFlavor = DBFlavor.fromJdbcUrl(urlArr[0]);
+      dbFlavor.setMultiValuedColumns(MultiValuedMetadata.fields(props));
+
+      if (ttlReaper) {
+        synchronized (SHARED_LOCK) {
+          if (reaper == null) {
+            reaper = new JdbcTTLReaper(urlArr, user, passwd, dbFlavor, normalized, props);
+            reaper.start();
+          }
+          reaperReferences++;
+        }
+      }
     } catch (ClassNotFoundException e) {
       System.err.println("Error in initializing the JDBS driver: " + e);
       throw new DBException(e);
@@ -234,12 +657,13 @@ public class JdbcDBClient extends DB {
 
   @Override
   public void cleanup() throws DBException {
-    if (batchSize > 0) {
+    if (conns != null) {
       try {
-        // commit un-finished batches
-        for (PreparedStatement st : cachedStatements.values()) {
-          if (!st.getConnection().isClosed() && !st.isClosed() && (numRowsInBatch % batchSize != 0)) {
-            st.executeBatch();
+        // commit un-finished batches, on every shard
+        for (ShardConnection conn : conns) {
+          if (!conn.getConnection().isClosed()) {
+            loadAllRows(conn);
+            conn.executeBatches();
           }
         }
       } catch (SQLException e) {
@@ -249,82 +673,188 @@ public class JdbcDBClient extends DB {
     }
 
     try {
+      synchronized (SHARED_LOCK) {
+        if (batchTimeoutNanos > 0) {
+          if (conns != null) {
+            DEDICATED_CONNECTIONS.removeAll(conns);
+          }
+          if (--flusherReferences == 0) {
+            flusher.shutdownNow();
+            flusher = null;
+          }
+        }
+      }
       cleanupAllConnections();
+      synchronized (SHARED_LOCK) {
+        if (ttlReaper && --reaperReferences == 0) {
+          reaper.stop();
+          reaper = null;
+        }
+        if (conns == null && --poolReferences == 0) {
+          // the pool's batches are shared by all threads, so only the last one can flush them
+          for (ShardConnection conn : pool.getConnections()) {
+            loadAllRows(conn);
+            conn.executeBatches();
+          }
+          pool.close();
+          pool = null;
+        }
+        if (--sharedReferences == 0) {
+          fanout.shutdown();
+          fanout = null;
+        }
+      }
     } catch (SQLException e) {
       System.err.println("Error in closing the connection. " + e);
       throw new DBException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DBException(e);
     }
   }
 
-  private PreparedStatement createAndCacheInsertStatement(StatementType insertType, String key)
-      throws SQLException {
+  /**
+   * Starts flushing the batches and uncommitted rows that have been pending for the timeout, checking twice per
+   * timeout so that nothing waits much longer for a write that may never come.
+   */
+  private static ScheduledExecutorService startFlusher(final long timeoutNanos) {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "jdbc-flusher");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    long period = Math.max(1, timeoutNanos / 2);
+    executor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          // the lock keeps cleanup from closing the connections meanwhile
+          synchronized (SHARED_LOCK) {
+            List<ShardConnection> connections = new ArrayList<ShardConnection>(DEDICATED_CONNECTIONS);
+            if (pool != null) {
+              connections.addAll(pool.getConnections());
+            }
+            for (ShardConnection conn : connections) {
+              try {
+                conn.flushOlderThan(timeoutNanos);
+              } catch (SQLException e) {
+                System.err.println("Error in flushing the pending batches. " + e);
+              }
+            }
+          }
+        }
+      }, period, period, TimeUnit.NANOSECONDS);
+    return executor;
+  }
+
+  private PreparedStatement createAndCacheInsertStatement(ShardConnection shard,
+      StatementType insertType, String key) throws SQLException {
     String insert = dbFlavor.createInsertStatement(insertType, key);
-    PreparedStatement insertStatement = getShardConnectionByKey(key).prepareStatement(insert);
-    PreparedStatement stmt = cachedStatements.putIfAbsent(insertType, insertStatement);
+    PreparedStatement insertStatement = shard.getConnection().prepareStatement(insert);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(insertType, insertStatement);
     if (stmt == null) {
       return insertStatement;
     }
     return stmt;
   }
 
-  private PreparedStatement createAndCacheReadStatement(StatementType readType, String key)
-      throws SQLException {
+  private PreparedStatement createAndCacheCountExpiredStatement(ShardConnection shard,
+      StatementType countType) throws SQLException {
+    String count = dbFlavor.createCountExpiredStatement(countType);
+    PreparedStatement countStatement = shard.getConnection().prepareStatement(count);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(countType, countStatement);
+    if (stmt == null) {
+      return countStatement;
+    }
+    return stmt;
+  }
+
+  private PreparedStatement createAndCacheReadStatement(ShardConnection shard,
+      StatementType readType, String key) throws SQLException {
     String read = dbFlavor.createReadStatement(readType, key);
-    PreparedStatement readStatement = getShardConnectionByKey(key).prepareStatement(read);
-    PreparedStatement stmt = cachedStatements.putIfAbsent(readType, readStatement);
+    PreparedStatement readStatement = shard.getConnection().prepareStatement(read);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(readType, readStatement);
     if (stmt == null) {
       return readStatement;
     }
     return stmt;
   }
 
-  private PreparedStatement createAndCacheReadMetaStatement(StatementType readType, String key)
-      throws SQLException {
+  private PreparedStatement createAndCacheReadMetaStatement(ShardConnection shard,
+      StatementType readType, String key) throws SQLException {
     String read = dbFlavor.createReadMetaStatement(readType, key);
-    PreparedStatement readStatement = getShardConnectionByKey(key).prepareStatement(read);
-    return readStatement;
+    PreparedStatement readStatement = shard.getConnection().prepareStatement(read);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(readType, readStatement);
+    if (stmt == null) {
+      return readStatement;
+    }
+    return stmt;
   }
 
-  private PreparedStatement createAndCacheDeleteStatement(StatementType deleteType, String key)
-      throws SQLException {
+  private PreparedStatement createAndCacheDeleteStatement(ShardConnection shard,
+      StatementType deleteType, String key) throws SQLException {
     String delete = dbFlavor.createDeleteStatement(deleteType, key);
-    PreparedStatement deleteStatement = getShardConnectionByKey(key).prepareStatement(delete);
-    return deleteStatement;
+    PreparedStatement deleteStatement = shard.getConnection().prepareStatement(delete);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(deleteType, deleteStatement);
+    if (stmt == null) {
+      return deleteStatement;
+    }
+    return stmt;
   }
 
-  private PreparedStatement createAndCacheDeleteMetaStatement(StatementType deleteType, String key)
-      throws SQLException {
-    String delete = dbFlavor.createDeleteMetaStatement(deleteType, key);
-    PreparedStatement deleteStatement = getShardConnectionByKey(key).prepareStatement(delete);
-    return deleteStatement;
+  /**
+   * @param predicateTable The table of the normalized layout holding the metadata field, if not the one deleted
+   *        from; null otherwise.
+   */
+  private PreparedStatement createAndCacheDeleteMetaStatement(ShardConnection shard,
+      StatementType deleteType, String key, String predicateTable) throws SQLException {
+    String delete = predicateTable == null ? dbFlavor.createDeleteMetaStatement(deleteType, key)
+        : dbFlavor.createDeleteMetaByKeyStatement(deleteType, predicateTable);
+    PreparedStatement deleteStatement = shard.getConnection().prepareStatement(delete);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(deleteType, deleteStatement);
+    if (stmt == null) {
+      return deleteStatement;
+    }
+    return stmt;
   }
 
-  private PreparedStatement createAndCacheUpdateStatement(StatementType updateType, String key)
-      throws SQLException {
+  private PreparedStatement createAndCacheUpdateStatement(ShardConnection shard,
+      StatementType updateType, String key) throws SQLException {
     String update = dbFlavor.createUpdateStatement(updateType, key);
-    PreparedStatement insertStatement = getShardConnectionByKey(key).prepareStatement(update);
-    PreparedStatement stmt = cachedStatements.putIfAbsent(updateType, insertStatement);
+    PreparedStatement insertStatement = shard.getConnection().prepareStatement(update);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(updateType, insertStatement);
     if (stmt == null) {
       return insertStatement;
     }
     return stmt;
   }
 
-  private PreparedStatement createAndCacheUpdateMetaStatement(StatementType updateType, String key)
-      throws SQLException {
-    String update = dbFlavor.createUpdateMetaStatement(updateType, key);
-    PreparedStatement insertStatement = getShardConnectionByKey(key).prepareStatement(update);
-    return insertStatement;
+  /**
+   * @param predicateTable The table of the normalized layout holding the predicate field, if not the one updated;
+   *        null otherwise.
+   */
+  private PreparedStatement createAndCacheUpdateMetaStatement(ShardConnection shard,
+      StatementType updateType, String key, String predicateTable) throws SQLException {
+    String update = predicateTable == null ? dbFlavor.createUpdateMetaStatement(updateType, key)
+        : dbFlavor.createUpdateMetaByKeyStatement(updateType, predicateTable);
+    PreparedStatement updateStatement = shard.getConnection().prepareStatement(update);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(updateType, updateStatement);
+    if (stmt == null) {
+      return updateStatement;
+    }
+    return stmt;
   }
 
-  private PreparedStatement createAndCacheScanStatement(StatementType scanType, String key)
-      throws SQLException {
+  private PreparedStatement createAndCacheScanStatement(ShardConnection shard,
+      StatementType scanType, String key) throws SQLException {
     String select = dbFlavor.createScanStatement(scanType, key);
-    PreparedStatement scanStatement = getShardConnectionByKey(key).prepareStatement(select);
+    PreparedStatement scanStatement = shard.getConnection().prepareStatement(select);
     if (this.jdbcFetchSize > 0) {
       scanStatement.setFetchSize(this.jdbcFetchSize);
     }
-    PreparedStatement stmt = cachedStatements.putIfAbsent(scanType, scanStatement);
+    PreparedStatement stmt = shard.getStatements().putIfAbsent(scanType, scanStatement);
     if (stmt == null) {
       return scanStatement;
     }
@@ -333,11 +863,13 @@ public class JdbcDBClient extends DB {
 
   @Override
   public Status read(String tableName, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    ShardConnection shard = null;
     try {
-      StatementType type = new StatementType(StatementType.Type.READ, tableName, 1, "", getShardIndexByKey(key));
-      PreparedStatement readStatement = cachedStatements.get(type);
+      shard = acquire(getShardIndexByKey(key));
+      StatementType type = new StatementType(StatementType.Type.READ, tableName, 1, "", shard.getShardIndex());
+      PreparedStatement readStatement = shard.getStatements().get(type);
       if (readStatement == null) {
-        readStatement = createAndCacheReadStatement(type, key);
+        readStatement = createAndCacheReadStatement(shard, type, key);
       }
       readStatement.setString(1, key);
       ResultSet resultSet = readStatement.executeQuery();
@@ -366,68 +898,61 @@ public class JdbcDBClient extends DB {
     } catch (SQLException e) {
       System.err.println("Error in processing read of table " + tableName + ": " + e);
       return Status.ERROR;
+    } finally {
+      release(shard);
     }
   }
 
   @Override
-  public Status readLog(String table, int logcount){
+  public Status readLog(String table, int logcount) {
     try {
-      String s = null;
-      String query = null;
-      query = "tail -n " + logcount + " /home/audit_logs/audit_dump.xm";
-      Process p = Runtime.getRuntime().exec(query);
-      BufferedReader stdInput = new BufferedReader(new
-           InputStreamReader(p.getInputStream()));
-      BufferedReader stdError = new BufferedReader(new
-           InputStreamReader(p.getErrorStream()));
-      // read the output from the command
-      while ((s = stdInput.readLine()) != null) {
-        System.out.println(s);
-      }
-      // read any errors from the attempted command
-      while ((s = stdError.readLine()) != null) {
-        System.out.println(s);
-      }
-      return Status.OK;
+      return LogTail.tail(logPath, logcount).isEmpty() ? Status.NOT_FOUND : Status.OK;
     } catch (IOException e) {
-      System.out.println("exception happened - here's what I know: ");
-      e.printStackTrace();
+      System.err.println("Error reading the audit log " + logPath + ": " + e);
       return Status.ERROR;
     }
   }
 
   @Override
-  public Status readMeta(String tableName, int fieldnum, String cond, 
-      String keymatch, Vector<HashMap<String, ByteIterator>> result) {
-    //TODO: No use for keyMatch whatsoever, so check if without queering for keys this will work.
+  public Status readMeta(final String tableName, final int fieldnum, final String cond,
+      final String keymatch, Vector<HashMap<String, ByteIterator>> result) {
     try {
-      HashSet<String> fields = null;
-      StatementType type = new StatementType(StatementType.Type.READ, tableName, 1, "", getShardIndexByKey(keymatch));
-      PreparedStatement readStatement = createAndCacheReadMetaStatement(type, keymatch);
-      ResultSet resultSet = readStatement.executeQuery();
-      if (!resultSet.next()) {
-        resultSet.close();
-        return Status.NOT_FOUND;
-      }
-
-//    if (result != null && fields != null) {
-//        HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
-//        for (String field : fields) {
-//          String value = resultSet.getString(field);
-//          values.put(field, new StringByteIterator(value));
-//        }
-//        result.add(values);
-//      }
-
-      if(result != null){
-        HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
-        String value = resultSet.getString("field0");
-        values.put("field0", new StringByteIterator(value));
-        result.add(values);
+      List<List<HashMap<String, ByteIterator>>> rows = onAllShards(
+          new ShardTask<List<HashMap<String, ByteIterator>>>() {
+            @Override
+            public List<HashMap<String, ByteIterator>> run(ShardConnection shard) throws SQLException {
+              StatementType type = new StatementType(StatementType.Type.READ_META, tableName, 1,
+                  META_FIELDS[fieldnum], shard.getShardIndex());
+              PreparedStatement readStatement = shard.getStatements().get(type);
+              if (readStatement == null) {
+                readStatement = createAndCacheReadMetaStatement(shard, type, keymatch);
+              }
+              setValue(readStatement, 1, META_FIELDS[fieldnum], dbFlavor.conditionValue(META_FIELDS[fieldnum], cond));
+              ResultSet resultSet = readStatement.executeQuery();
+              ResultSetMetaData meta = resultSet.getMetaData();
+              List<HashMap<String, ByteIterator>> shardRows = new ArrayList<HashMap<String, ByteIterator>>();
+              while (resultSet.next()) {
+                HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+                for (int j = 1; j <= meta.getColumnCount(); j++) {
+                  String col = meta.getColumnName(j);
+                  if (!col.equals(PRIMARY_KEY)) {
+                    values.put(col, new StringByteIterator(resultSet.getString(j)));
+                  }
+                }
+                shardRows.add(values);
+              }
+              resultSet.close();
+              return shardRows;
+            }
+          });
+      boolean found = false;
+      for (List<HashMap<String, ByteIterator>> shardRows : rows) {
+        found |= !shardRows.isEmpty();
+        if (result != null) {
+          result.addAll(shardRows);
+        }
       }
-
-      resultSet.close();
-      return Status.OK;
+      return found ? Status.OK : Status.NOT_FOUND;
     } catch (SQLException e) {
       System.err.println("Error in processing read of table " + tableName + ": " + e);
       return Status.ERROR;
@@ -437,11 +962,13 @@ public class JdbcDBClient extends DB {
   @Override
   public Status scan(String tableName, String startKey, int recordcount, Set<String> fields,
                      Vector<HashMap<String, ByteIterator>> result) {
+    ShardConnection shard = null;
     try {
-      StatementType type = new StatementType(StatementType.Type.SCAN, tableName, 1, "", getShardIndexByKey(startKey));
-      PreparedStatement scanStatement = cachedStatements.get(type);
+      shard = acquire(getShardIndexByKey(startKey));
+      StatementType type = new StatementType(StatementType.Type.SCAN, tableName, 1, "", shard.getShardIndex());
+      PreparedStatement scanStatement = shard.getStatements().get(type);
       if (scanStatement == null) {
-        scanStatement = createAndCacheScanStatement(type, startKey);
+        scanStatement = createAndCacheScanStatement(shard, type, startKey);
       }
       scanStatement.setString(1, startKey);
       scanStatement.setInt(2, recordcount);
@@ -473,58 +1000,100 @@ public class JdbcDBClient extends DB {
     } catch (SQLException e) {
       System.err.println("Error in processing scan of table: " + tableName + e);
       return Status.ERROR;
+    } finally {
+      release(shard);
     }
   }
 
   @Override
   public Status update(String tableName, String key, Map<String, ByteIterator> values) {
+    if (!normalized) {
+      return updateRow(tableName, key, values);
+    }
+    List<Status> results = new ArrayList<Status>();
+    for (Map.Entry<NormalizedLayout.Part, Map<String, ByteIterator>> part : NormalizedLayout.split(values).entrySet()) {
+      results.add(updateRow(part.getKey().table(tableName), key, part.getValue()));
+    }
+    return merge(results);
+  }
+
+  private Status updateRow(String tableName, String key, Map<String, ByteIterator> values) {
+    ShardConnection shard = null;
     try {
       //System.out.println("Key in update "+key);
+      shard = acquire(getShardIndexByKey(key));
       int numFields = values.size();
       OrderedFieldInfo fieldInfo = getFieldInfo(values);
       StatementType type = new StatementType(StatementType.Type.UPDATE, tableName,
-          numFields, fieldInfo.getFieldKeys(), getShardIndexByKey(key));
-      PreparedStatement updateStatement = cachedStatements.get(type);
-      if (updateStatement == null) {
-        updateStatement = createAndCacheUpdateStatement(type, key);
-      }
-      int index = 1;
-      for (String value: fieldInfo.getFieldValues()) {
-        updateStatement.setString(index++, value);
-      }
-      updateStatement.setString(index, key);
-      int result = updateStatement.executeUpdate();
-      if (result == 1) {
-        return Status.OK;
-      }
-      if (result == 0) {
-        return Status.NOT_FOUND;
+          numFields, fieldInfo.getFieldKeys(), shard.getShardIndex());
+      synchronized (shard) {
+        PreparedStatement updateStatement = shard.getStatements().get(type);
+        if (updateStatement == null) {
+          updateStatement = createAndCacheUpdateStatement(shard, type, key);
+        }
+        String[] columns = fieldInfo.getFieldKeys().split(",");
+        int index = 1;
+        for (String value: fieldInfo.getFieldValues()) {
+          setValue(updateStatement, index, columns[index - 1], value);
+          index++;
+        }
+        updateStatement.setString(index, key);
+        if (batchUpdates) {
+          return batch(shard, updateStatement);
+        }
+        int result = updateStatement.executeUpdate();
+        if (result == 1) {
+          return Status.OK;
+        }
+        if (result == 0) {
+          return Status.NOT_FOUND;
+        }
+        return Status.UNEXPECTED_STATE;
       }
-      return Status.UNEXPECTED_STATE;
     } catch (SQLException e) {
       System.err.println("Error in processing update to table: " + tableName + e);
       e.printStackTrace();
       return Status.ERROR;
+    } finally {
+      release(shard);
     }
   }
 
   @Override
-  public Status updateMeta(String table, int fieldnum, String condition, 
-      String keymatch, String fieldname, String metadatavalue) {
-    try{
-      StatementType type = new StatementType(StatementType.Type.UPDATE, table,
-          1, "", getShardIndexByKey(keymatch));
-      //System.out.println(type.getFieldString());
-      PreparedStatement updateStatement = createAndCacheUpdateMetaStatement(type, keymatch);
-      //updateStatement.setString(1,keymatch);
-      int result = updateStatement.executeUpdate();
-      //System.err.println("UpdateMeta statement "+updateStatement+" Result "+result);
-      if (result > 0) {
-        return Status.OK;
-      } else {
-        return Status.NOT_FOUND;
-      }
-    } catch(SQLException e) {
+  public Status updateMeta(final String table, final int fieldnum, final String condition,
+      final String keymatch, final String fieldname, final String metadatavalue) {
+    try {
+      List<Status> results = onAllShards(new ShardTask<Status>() {
+          @Override
+          public Status run(ShardConnection shard) throws SQLException {
+            String updateTable = table;
+            String predicateTable = null;
+            if (normalized) {
+              updateTable = NormalizedLayout.partOf(fieldname).table(table);
+              predicateTable = NormalizedLayout.partOf(META_FIELDS[fieldnum]).table(table);
+              if (predicateTable.equals(updateTable)) {
+                predicateTable = null;
+              }
+            }
+            StatementType type = new StatementType(StatementType.Type.UPDATE_META, updateTable, 1,
+                META_FIELDS[fieldnum] + "," + fieldname, shard.getShardIndex());
+            synchronized (shard) {
+              PreparedStatement updateStatement = shard.getStatements().get(type);
+              if (updateStatement == null) {
+                updateStatement = createAndCacheUpdateMetaStatement(shard, type, keymatch, predicateTable);
+              }
+              setValue(updateStatement, 1, fieldname, metadatavalue);
+              setValue(updateStatement, 2, META_FIELDS[fieldnum],
+                  dbFlavor.conditionValue(META_FIELDS[fieldnum], condition));
+              if (batchUpdates) {
+                return batch(shard, updateStatement);
+              }
+              return updateStatement.executeUpdate() > 0 ? Status.OK : Status.NOT_FOUND;
+            }
+          }
+        });
+      return merge(results);
+    } catch (SQLException e) {
       System.err.println("Error in processing update to table: " + table + e);
       e.printStackTrace();
       return Status.ERROR;
@@ -533,116 +1102,200 @@ public class JdbcDBClient extends DB {
 
   @Override
   public Status insert(String tableName, String key, Map<String, ByteIterator> values) {
+    if (!normalized) {
+      return insertRow(tableName, key, values);
+    }
+    List<Status> results = new ArrayList<Status>();
+    for (Map.Entry<NormalizedLayout.Part, Map<String, ByteIterator>> part : NormalizedLayout.split(values).entrySet()) {
+      Status result = insertRow(part.getKey().table(tableName), key, part.getValue());
+      if (!result.isOk()) {
+        return result;
+      }
+      results.add(result);
+    }
+    return merge(results);
+  }
+
+  private Status insertRow(String tableName, String key, Map<String, ByteIterator> values) {
+    ShardConnection shard = null;
     try {
+      shard = acquire(getShardIndexByKey(key));
       int numFields = values.size();
       OrderedFieldInfo fieldInfo = getFieldInfo(values);
       StatementType type = new StatementType(StatementType.Type.INSERT, tableName,
-          numFields, fieldInfo.getFieldKeys(), getShardIndexByKey(key));
-      PreparedStatement insertStatement = cachedStatements.get(type);
-      if (insertStatement == null) {
-        insertStatement = createAndCacheInsertStatement(type, key);
-      }
-      //System.err.println("In insert: "+insertStatement.toString());
-      insertStatement.setString(1, key);
-      int index = 2;
-      for (String value: fieldInfo.getFieldValues()) {
-        insertStatement.setString(index++, value);
+          numFields, fieldInfo.getFieldKeys(), shard.getShardIndex());
+      if (bulkLoad) {
+        String[] row = new String[numFields + 1];
+        row[0] = key;
+        int column = 1;
+        for (String value: fieldInfo.getFieldValues()) {
+          row[column++] = value;
+        }
+        return bulkInsert(shard, type, row);
       }
-      // Using the batch insert API
-      if (batchUpdates) {
-        insertStatement.addBatch();
-        // Check for a sane batch size
-        if (batchSize > 0) {
-          // Commit the batch after it grows beyond the configured size
-          if (++numRowsInBatch % batchSize == 0) {
-            int[] results = insertStatement.executeBatch();
-            for (int r : results) {
-              // Acceptable values are 1 and SUCCESS_NO_INFO (-2) from reWriteBatchedInserts=true
-              if (r != 1 && r != -2) { 
-                return Status.ERROR;
+      synchronized (shard) {
+        PreparedStatement insertStatement = shard.getStatements().get(type);
+        if (insertStatement == null) {
+          insertStatement = createAndCacheInsertStatement(shard, type, key);
+        }
+        //System.err.println("In insert: "+insertStatement.toString());
+        insertStatement.setString(1, key);
+        String[] columns = fieldInfo.getFieldKeys().split(",");
+        int index = 2;
+        for (String value: fieldInfo.getFieldValues()) {
+          setValue(insertStatement, index, columns[index - 2], value);
+          index++;
+        }
+        // Using the batch insert API
+        if (batchUpdates) {
+          // Added element to the batch, potentially committing the batch too.
+          return batch(shard, insertStatement);
+        } else {
+          // Normal update
+          int result = insertStatement.executeUpdate();
+          // If we are not autoCommit, we might have to commit now
+          if (!autoCommit) {
+            // Let updates be batcher locally
+            if (batchSize > 0) {
+              if (shard.addUncommitted() >= batchSize) {
+                // Send the batch of updates
+                shard.commit();
               }
+              // uhh
+              return Status.OK;
+            } else {
+              // Commit each update
+              shard.commit();
             }
-            // If autoCommit is off, make sure we commit the batch
-            if (!autoCommit) {
-              getShardConnectionByKey(key).commit();
-            }
-            return Status.OK;
-          } // else, the default value of -1 or a nonsense. Treat it as an infinitely large batch.
-        } // else, we let the batch accumulate
-        // Added element to the batch, potentially committing the batch too.
-        return Status.BATCHED_OK;
-      } else {
-        // Normal update
-        int result = insertStatement.executeUpdate();
-        // If we are not autoCommit, we might have to commit now
-        if (!autoCommit) {
-          // Let updates be batcher locally
-          if (batchSize > 0) {
-            if (++numRowsInBatch % batchSize == 0) {
-              // Send the batch of updates
-              getShardConnectionByKey(key).commit();
-            }
-            // uhh
+          }
+          if (result == 1) {
             return Status.OK;
-          } else {
-            // Commit each update
-            getShardConnectionByKey(key).commit();
           }
         }
-        if (result == 1) {
-          return Status.OK;
-        }
+        return Status.UNEXPECTED_STATE;
       }
-      return Status.UNEXPECTED_STATE;
     } catch (SQLException e) {
       System.err.println("Error in processing insert to table: " + tableName + e);
       return Status.ERROR;
+    } finally {
+      release(shard);
     }
   }
 
   @Override
   public Status delete(String tableName, String key) {
+    if (!normalized) {
+      return deleteRow(tableName, key);
+    }
+    List<Status> results = new ArrayList<Status>();
+    for (NormalizedLayout.Part part : NormalizedLayout.Part.values()) {
+      results.add(deleteRow(part.table(tableName), key));
+    }
+    return merge(results);
+  }
+
+  private Status deleteRow(String tableName, String key) {
+    ShardConnection shard = null;
     try {
-      StatementType type = new StatementType(StatementType.Type.DELETE, tableName, 1, "", getShardIndexByKey(key));
-      PreparedStatement deleteStatement = cachedStatements.get(type);
-      if (deleteStatement == null) {
-        deleteStatement = createAndCacheDeleteStatement(type, key);
-      }
-      deleteStatement.setString(1, key);
-      int result = deleteStatement.executeUpdate();
-      //System.err.println("Delete Jdbc key "+key+ "result "+ result);
-      if (result == 1) {
-        return Status.OK;
-      }
-      if (result == 0) {
-        return Status.NOT_FOUND;
+      shard = acquire(getShardIndexByKey(key));
+      StatementType type = new StatementType(StatementType.Type.DELETE, tableName, 1, "", shard.getShardIndex());
+      synchronized (shard) {
+        PreparedStatement deleteStatement = shard.getStatements().get(type);
+        if (deleteStatement == null) {
+          deleteStatement = createAndCacheDeleteStatement(shard, type, key);
+        }
+        deleteStatement.setString(1, key);
+        if (batchUpdates) {
+          return batch(shard, deleteStatement);
+        }
+        int result = deleteStatement.executeUpdate();
+        //System.err.println("Delete Jdbc key "+key+ "result "+ result);
+        if (result == 1) {
+          return Status.OK;
+        }
+        if (result == 0) {
+          return Status.NOT_FOUND;
+        }
+        // System.out.println(result);
+        return Status.UNEXPECTED_STATE;
       }
-      // System.out.println(result);
-      return Status.UNEXPECTED_STATE;
     } catch (SQLException e) {
       System.err.println("Error in processing delete to table: " + tableName + e);
       return Status.ERROR;
+    } finally {
+      release(shard);
     }
   }
 
   @Override
-  public Status deleteMeta(String table, int fieldnum, String condition, String keymatch) {
-    try{
-      StatementType type = new StatementType(StatementType.Type.DELETE, table, 1, "", getShardIndexByKey(keymatch));
-      PreparedStatement deleteStatement = createAndCacheDeleteMetaStatement(type, keymatch);
-      int result = deleteStatement.executeUpdate();
-      //System.err.println("DeleteMeta Jdbc key "+keymatch+ "result "+ result);
-      if (result > 0) {
-        return Status.OK;
-      } else {
-        return Status.NOT_FOUND;
-      }
+  public Status deleteMeta(final String table, final int fieldnum, final String condition, final String keymatch) {
+    try {
+      List<Status> results = onAllShards(new ShardTask<Status>() {
+          @Override
+          public Status run(ShardConnection shard) throws SQLException {
+            if (!normalized) {
+              return deleteMeta(shard, table, null, fieldnum, condition, keymatch);
+            }
+            // the table holding the field goes last, the others pick the records by their keys in it
+            NormalizedLayout.Part predicatePart = NormalizedLayout.partOf(META_FIELDS[fieldnum]);
+            List<Status> results = new ArrayList<Status>();
+            for (NormalizedLayout.Part part : NormalizedLayout.Part.values()) {
+              if (part != predicatePart) {
+                results.add(deleteMeta(shard, part.table(table), predicatePart.table(table), fieldnum, condition,
+                    keymatch));
+              }
+            }
+            results.add(deleteMeta(shard, predicatePart.table(table), null, fieldnum, condition, keymatch));
+            return merge(results);
+          }
+        });
+      return merge(results);
     } catch (SQLException e) {
       System.err.println("Error in processing delete to table: " + table + e);
       return Status.ERROR;
     }
   }
 
+  /**
+   * Deletes the records whose metadata field matches the condition from a table on one shard.
+   *
+   * @param predicateTable The table of the normalized layout holding the field, if not the one deleted from; null
+   *        otherwise.
+   */
+  private Status deleteMeta(ShardConnection shard, String table, String predicateTable, int fieldnum,
+      String condition, String keymatch) throws SQLException {
+    StatementType type = new StatementType(StatementType.Type.DELETE_META, table, 1,
+        META_FIELDS[fieldnum], shard.getShardIndex());
+    synchronized (shard) {
+      PreparedStatement deleteStatement = shard.getStatements().get(type);
+      if (deleteStatement == null) {
+        deleteStatement = createAndCacheDeleteMetaStatement(shard, type, keymatch, predicateTable);
+      }
+      setValue(deleteStatement, 1, META_FIELDS[fieldnum], dbFlavor.conditionValue(META_FIELDS[fieldnum], condition));
+      if (batchUpdates) {
+        return batch(shard, deleteStatement);
+      }
+      return deleteStatement.executeUpdate() > 0 ? Status.OK : Status.NOT_FOUND;
+    }
+  }
+
+  /**
+   * Combines the results of a meta mutation on all shards: an error on any shard fails the operation,
+   * otherwise it succeeded if it changed (or batched) rows on any shard.
+   */
+  private static Status merge(List<Status> results) {
+    Status merged = Status.NOT_FOUND;
+    for (Status result : results) {
+      if (!result.isOk() && result != Status.NOT_FOUND) {
+        return result;
+      }
+      if (result == Status.OK || merged == Status.NOT_FOUND) {
+        merged = result;
+      }
+    }
+    return merged;
+  }
+
   private OrderedFieldInfo getFieldInfo(Map<String, ByteIterator> values) {
     String fieldKeys = "";
     List<String> fieldValues = new ArrayList<>();
@@ -659,15 +1312,148 @@ public class JdbcDBClient extends DB {
     return new OrderedFieldInfo(fieldKeys, fieldValues);
   }
 
+  /**
+   * Waits until no record of the table is past its expiry on any shard, recording how long that took in the
+   * {@link #COMPLIANCE_MEASUREMENT} measurement. The record count is not needed, as expired records can be told
+   * apart by their expiry timestamp. Nothing but the reaper deletes expired records, so without a running one
+   * the wait fails right away instead of never ending.
+   */
   @Override
   public Status verifyTTL(String table, long recordcount) {
+    if (!ttlExpiry) {
+      return Status.OK;
+    }
+    long start = System.nanoTime();
+    try {
+      synchronized (VERIFY_LOCK) {
+        while (countExpired(table) > 0) {
+          if (!isReaping()) {
+            System.err.println("Expired records of table " + table + " are left, but no TTL reaper runs, set "
+                + JDBC_TTL_REAPER + "=true");
+            return Status.ERROR;
+          }
+          Thread.sleep(VERIFY_POLL_MILLIS);
+        }
+      }
+    } catch (SQLException e) {
+      System.err.println("Error in counting the expired records of table " + table + ": " + e);
+      return Status.ERROR;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Status.ERROR;
+    }
+    Measurements.getMeasurements().measureHdrHistogram(COMPLIANCE_MEASUREMENT,
+        (int) ((System.nanoTime() - start) / 1000));
     return Status.OK;
   }
 
+  private boolean isReaping() {
+    synchronized (SHARED_LOCK) {
+      return reaper != null && reaper.isAlive();
+    }
+  }
+
+  /**
+   * Runs an operation in the background if its connections are borrowed from the pool. The dedicated connections
+   * of a client thread take one request at a time, so without a pool the operation completes before returning.
+   */
+  private CompletionStage<Status> submit(Supplier<Status> operation) {
+    if (conns != null) {
+      return CompletableFuture.completedFuture(operation.get());
+    }
+    return CompletableFuture.supplyAsync(operation, fanout);
+  }
+
+  @Override
+  public CompletionStage<Status> readAsync(String table, String key, Set<String> fields,
+                                           Map<String, ByteIterator> result) {
+    return submit(() -> read(table, key, fields, result));
+  }
+
+  @Override
+  public CompletionStage<Status> readMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                               Vector<HashMap<String, ByteIterator>> result) {
+    return submit(() -> readMeta(table, fieldnum, cond, keymatch, result));
+  }
+
+  @Override
+  public CompletionStage<Status> scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                           Vector<HashMap<String, ByteIterator>> result) {
+    return submit(() -> scan(table, startkey, recordcount, fields, result));
+  }
+
+  @Override
+  public CompletionStage<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+    return submit(() -> update(table, key, values));
+  }
+
+  @Override
+  public CompletionStage<Status> updateMetaAsync(String table, int fieldnum, String cond, String keymatch,
+                                                 String fieldkey, String fieldvalue) {
+    return submit(() -> updateMeta(table, fieldnum, cond, keymatch, fieldkey, fieldvalue));
+  }
+
+  @Override
+  public CompletionStage<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+    return submit(() -> insert(table, key, values));
+  }
+
+  @Override
+  public CompletionStage<Status> insertTTLAsync(String table, String key, Map<String, ByteIterator> values,
+                                                int ttl) {
+    return submit(() -> insertTTL(table, key, values, ttl));
+  }
+
+  @Override
+  public CompletionStage<Status> deleteAsync(String table, String key) {
+    return submit(() -> delete(table, key));
+  }
+
+  @Override
+  public CompletionStage<Status> deleteMetaAsync(String table, int fieldnum, String cond, String keymatch) {
+    return submit(() -> deleteMeta(table, fieldnum, cond, keymatch));
+  }
+
+  /**
+   * The number of records of a table whose expiry timestamp has passed, on all shards.
+   */
+  private long countExpired(final String table) throws SQLException {
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    List<Long> counts = onAllShards(new ShardTask<Long>() {
+        @Override
+        public Long run(ShardConnection shard) throws SQLException {
+          StatementType type = new StatementType(StatementType.Type.COUNT_EXPIRED, table, 1, EXPIRY_COLUMN,
+              shard.getShardIndex());
+          PreparedStatement countStatement = shard.getStatements().get(type);
+          if (countStatement == null) {
+            countStatement = createAndCacheCountExpiredStatement(shard, type);
+          }
+          countStatement.setTimestamp(1, now);
+          ResultSet resultSet = countStatement.executeQuery();
+          try {
+            return resultSet.next() ? resultSet.getLong(1) : 0L;
+          } finally {
+            resultSet.close();
+          }
+        }
+      });
+    long expired = 0;
+    for (long count : counts) {
+      expired += count;
+    }
+    return expired;
+  }
+
   @Override
   public Status insertTTL(String table, String key,
                          Map<String, ByteIterator> values, int ttl) {
-    return this.insert(table, key, values);
-    // return Status.OK;
+    if (!ttlExpiry || ttl <= 0) {
+      return this.insert(table, key, values);
+    }
+    // in the text form of a timestamp, which setValue binds as such and COPY reads as is
+    Map<String, ByteIterator> expiring = new HashMap<String, ByteIterator>(values);
+    expiring.put(EXPIRY_COLUMN,
+        new StringByteIterator(new Timestamp(System.currentTimeMillis() + ttl * 1000L).toString()));
+    return this.insert(table, key, expiring);
   }
 }
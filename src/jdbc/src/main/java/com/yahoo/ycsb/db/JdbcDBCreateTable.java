@@ -16,16 +16,23 @@
  */
 package com.yahoo.ycsb.db;
 
+import com.yahoo.ycsb.MultiValuedMetadata;
+import com.yahoo.ycsb.db.flavors.DBFlavor;
+
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Utility class to create the table to be used by the benchmark.
@@ -40,62 +47,126 @@ public final class JdbcDBCreateTable {
     System.out.println("  -P   location of the properties file to load.");
     System.out.println("  -n   name of the table.");
     System.out.println("  -f   number of fields (default 10).");
+    System.out.println("  Set " + INDEXES_PROPERTY + " to the columns to index (default "
+        + INDEXES_PROPERTY_DEFAULT + ").");
+    System.out.println("  Set " + JdbcDBClient.JDBC_LAYOUT + "=" + JdbcDBClient.JDBC_LAYOUT_NORMALIZED
+        + " to split the table into data, owner and metadata tables joined by a view.");
+    System.out.println("  Set the workload's " + MultiValuedMetadata.PURPOSE_MAX_VALUES_PROPERTY + ", "
+        + MultiValuedMetadata.ACL_MAX_VALUES_PROPERTY + " and " + MultiValuedMetadata.SHARED_MAX_VALUES_PROPERTY
+        + " to store sets of values in those columns.");
   }
   
   public static final List<String> COLUMNS = Arrays.asList(
       new String[] {"DEC", "USR", "SRC", "OBJ", "CAT", "ACL", "Data", "PUR", "SHR", "TTL"});
 
-  private static void createTable(Properties props, String tablename) throws SQLException {
+  /** The comma separated columns to create secondary indexes on, empty for none. */
+  public static final String INDEXES_PROPERTY = "jdbc.indexes";
+
+  /** By default the columns filtered on by the meta operations and the TTL reaper are indexed. */
+  public static final String INDEXES_PROPERTY_DEFAULT = "PUR,USR," + JdbcDBClient.EXPIRY_COLUMN;
+
+  static void createTable(Properties props, String tablename) throws SQLException {
     String driver = props.getProperty(JdbcDBClient.DRIVER_CLASS);
     String username = props.getProperty(JdbcDBClient.CONNECTION_USER, "");
     String password = props.getProperty(JdbcDBClient.CONNECTION_PASSWD, "");
-    String url = props.getProperty(JdbcDBClient.CONNECTION_URL);
+    String urls = props.getProperty(JdbcDBClient.CONNECTION_URL);
     int fieldcount = Integer.parseInt(props.getProperty(JdbcDBClient.FIELD_COUNT_PROPERTY,
         JdbcDBClient.FIELD_COUNT_PROPERTY_DEFAULT));
+    boolean normalized = JdbcDBClient.JDBC_LAYOUT_NORMALIZED.equals(props.getProperty(JdbcDBClient.JDBC_LAYOUT,
+        JdbcDBClient.JDBC_LAYOUT_DEFAULT));
 
-    if (driver == null || username == null || url == null) {
+    if (driver == null || username == null || urls == null) {
       throw new SQLException("Missing connection information.");
     }
     if (fieldcount != COLUMNS.size()) {
       throw new SQLException("Unsupported number of columns");
     }
 
-    Connection conn = null;
+    List<String> columns = new ArrayList<String>(COLUMNS);
+    columns.add(JdbcDBClient.EXPIRY_COLUMN);
+    Set<String> multiValued = MultiValuedMetadata.fields(props);
+    List<String> indexes = new ArrayList<String>();
+    for (String column : props.getProperty(INDEXES_PROPERTY, INDEXES_PROPERTY_DEFAULT).split(",")) {
+      column = column.trim();
+      if (column.isEmpty()) {
+        continue;
+      }
+      if (!containsIgnoreCase(columns, column)) {
+        throw new SQLException("Cannot index unknown column " + column);
+      }
+      if (multiValued.contains(column.toUpperCase())) {
+        // the sets are matched by a LIKE pattern with a leading wildcard, which no index serves
+        System.out.println("Not indexing multi-valued column " + column + ".");
+        continue;
+      }
+      indexes.add(column);
+    }
 
     try {
       Class.forName(driver);
+    } catch (ClassNotFoundException e) {
+      throw new SQLException("JDBC Driver class not found.");
+    }
 
-      conn = DriverManager.getConnection(url, username, password);
-      Statement stmt = conn.createStatement();
-
-      StringBuilder sql = new StringBuilder("DROP TABLE IF EXISTS ");
-      sql.append(tablename);
-      sql.append(";");
-
-      stmt.execute(sql.toString());
-
-      sql = new StringBuilder("CREATE TABLE ");
-      sql.append(tablename);
-      sql.append(" (YCSB_KEY VARCHAR PRIMARY KEY");
+    // every shard holds a part of the table
+    for (String url : urls.split(",")) {
+      DBFlavor dbFlavor = DBFlavor.fromJdbcUrl(url);
+      dbFlavor.setMultiValuedColumns(multiValued);
+      Connection conn = null;
+
+      try {
+        conn = DriverManager.getConnection(url, username, password);
+        Statement stmt = conn.createStatement();
+
+        if (normalized) {
+          createNormalizedTables(stmt, dbFlavor, tablename, columns, indexes);
+        } else {
+          stmt.execute("DROP TABLE IF EXISTS " + tablename);
+          stmt.execute(dbFlavor.createTableStatement(tablename, columns));
+          for (String column : indexes) {
+            stmt.execute(dbFlavor.createIndexStatement(tablename, column));
+          }
+        }
 
-      for (String column : COLUMNS) {
-        sql.append(",");
-        sql.append(column);
-        sql.append(" TEXT");
+        System.out.println("Table " + tablename + " created on " + url + " with indexes on " + indexes + "..");
+      } finally {
+        if (conn != null) {
+          System.out.println("Closing database connection.");
+          conn.close();
+        }
       }
-      sql.append(");");
+    }
+  }
 
-      stmt.execute(sql.toString());
+  /**
+   * Creates the tables of the normalized layout, each with the indexes on its columns, and the view joining them
+   * under the name of the table.
+   */
+  private static void createNormalizedTables(Statement stmt, DBFlavor dbFlavor, String tablename,
+      List<String> columns, List<String> indexes) throws SQLException {
+    stmt.execute("DROP VIEW IF EXISTS " + tablename);
+    Map<String, List<String>> columnsByTable = new LinkedHashMap<String, List<String>>();
+    for (Map.Entry<NormalizedLayout.Part, List<String>> part : NormalizedLayout.split(columns).entrySet()) {
+      String parttable = part.getKey().table(tablename);
+      stmt.execute("DROP TABLE IF EXISTS " + parttable);
+      stmt.execute(dbFlavor.createTableStatement(parttable, part.getValue()));
+      for (String column : indexes) {
+        if (NormalizedLayout.partOf(column) == part.getKey()) {
+          stmt.execute(dbFlavor.createIndexStatement(parttable, column));
+        }
+      }
+      columnsByTable.put(parttable, part.getValue());
+    }
+    stmt.execute(dbFlavor.createJoinedViewStatement(tablename, columnsByTable));
+  }
 
-      System.out.println("Table " + tablename + " created..");
-    } catch (ClassNotFoundException e) {
-      throw new SQLException("JDBC Driver class not found.");
-    } finally {
-      if (conn != null) {
-        System.out.println("Closing database connection.");
-        conn.close();
+  private static boolean containsIgnoreCase(List<String> columns, String column) {
+    for (String c : columns) {
+      if (c.equalsIgnoreCase(column)) {
+        return true;
       }
     }
+    return false;
   }
 
   /**
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.db;
+
+import com.yahoo.ycsb.DBException;
+import com.yahoo.ycsb.db.flavors.DBFlavor;
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.workloads.CoreWorkload;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A background thread deleting the records of a table whose expiry timestamp
+ * has passed, the SQL counterpart of the TTLs Redis enforces natively.
+ *
+ * Every sweep deletes at most the batch size of expired rows per statement,
+ * picked through the index on the expiry column, so that reaping does not
+ * hold long locks or build huge transactions. A shard is swept again right
+ * away while it still had a full batch to delete; once no shard had, the
+ * reaper sleeps for the interval. The time each deleting statement took is
+ * recorded in the {@link #REAP_MEASUREMENT} measurement.
+ *
+ * In the normalized layout the expiry is held by the metadata table, so the
+ * data and owner rows of a batch are deleted first, picked by their keys in
+ * the metadata table, and the metadata rows of the same records last.
+ */
+class JdbcTTLReaper implements Runnable {
+
+  /**
+   * Measurement holding the time each batch of expired rows took to delete.
+   */
+  static final String REAP_MEASUREMENT = "TTL-REAP";
+
+  private final String[] urls;
+  private final String user;
+  private final String passwd;
+  private final DBFlavor dbFlavor;
+  private final String tableName;
+  private final boolean normalized;
+  private final int batchSize;
+  private final long intervalMillis;
+  private final Thread thread;
+  private volatile boolean running = true;
+  private long reaped = 0;
+
+  /**
+   * @param props The properties giving the table, the batch size and the interval of the reaper.
+   */
+  JdbcTTLReaper(String[] urls, String user, String passwd, DBFlavor dbFlavor, boolean normalized, Properties props)
+      throws DBException {
+    this.urls = urls;
+    this.user = user;
+    this.passwd = passwd;
+    this.dbFlavor = dbFlavor;
+    this.normalized = normalized;
+    this.tableName = props.getProperty(CoreWorkload.TABLENAME_PROPERTY, CoreWorkload.TABLENAME_PROPERTY_DEFAULT);
+    this.batchSize = Integer.parseInt(props.getProperty(JdbcDBClient.JDBC_TTL_REAPER_BATCH_SIZE,
+        JdbcDBClient.JDBC_TTL_REAPER_BATCH_SIZE_DEFAULT));
+    this.intervalMillis = Long.parseLong(props.getProperty(JdbcDBClient.JDBC_TTL_REAPER_INTERVAL,
+        JdbcDBClient.JDBC_TTL_REAPER_INTERVAL_DEFAULT));
+    if (batchSize <= 0 || intervalMillis <= 0) {
+      throw new DBException(JdbcDBClient.JDBC_TTL_REAPER_INTERVAL + " and "
+          + JdbcDBClient.JDBC_TTL_REAPER_BATCH_SIZE + " must be positive");
+    }
+    this.thread = new Thread(this, "jdbc-ttl-reaper");
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  /**
+   * Whether the reaper is still deleting expired records, false once it stopped on an error.
+   */
+  boolean isAlive() {
+    return thread.isAlive();
+  }
+
+  void stop() throws InterruptedException {
+    running = false;
+    thread.interrupt();
+    thread.join();
+    System.out.println("TTL reaper deleted " + reaped + " expired records from " + tableName);
+  }
+
+  @Override
+  public void run() {
+    List<Connection> conns = new ArrayList<Connection>();
+    try {
+      List<List<PreparedStatement>> statements = new ArrayList<List<PreparedStatement>>();
+      for (int i = 0; i < urls.length; i++) {
+        // every statement is its own transaction, so the deleted batches are committed right away
+        Connection conn = DriverManager.getConnection(urls[i], user, passwd);
+        conn.setAutoCommit(true);
+        conns.add(conn);
+        statements.add(prepareReapStatements(conn, i));
+      }
+      while (running) {
+        boolean backlog = false;
+        for (List<PreparedStatement> shardStatements : statements) {
+          Timestamp now = new Timestamp(System.currentTimeMillis());
+          int deleted = 0;
+          for (PreparedStatement statement : shardStatements) {
+            deleted = reap(statement, now);
+          }
+          // the last statement deleted from the table holding the expiry, one row per record
+          reaped += deleted;
+          backlog |= deleted >= batchSize;
+        }
+        if (!backlog) {
+          Thread.sleep(intervalMillis);
+        }
+      }
+    } catch (SQLException e) {
+      if (running) {
+        System.err.println("Error in reaping expired records of table " + tableName + ", reaper stopped: " + e);
+      }
+    } catch (InterruptedException e) {
+      // stopped
+    } finally {
+      for (Connection conn : conns) {
+        try {
+          conn.close();
+        } catch (SQLException e) {
+          System.err.println("Error in closing the reaper connection. " + e);
+        }
+      }
+    }
+  }
+
+  /**
+   * The statements deleting a batch of expired rows on one shard, the one deleting from the table holding the
+   * expiry last.
+   */
+  private List<PreparedStatement> prepareReapStatements(Connection conn, int shardIndex) throws SQLException {
+    List<PreparedStatement> statements = new ArrayList<PreparedStatement>();
+    if (!normalized) {
+      StatementType type = new StatementType(StatementType.Type.REAP, tableName, batchSize,
+          JdbcDBClient.EXPIRY_COLUMN, shardIndex);
+      statements.add(conn.prepareStatement(dbFlavor.createReapStatement(type, batchSize)));
+      return statements;
+    }
+    String expiryTable = NormalizedLayout.partOf(JdbcDBClient.EXPIRY_COLUMN).table(tableName);
+    for (NormalizedLayout.Part part : NormalizedLayout.Part.values()) {
+      if (!part.table(tableName).equals(expiryTable)) {
+        StatementType type = new StatementType(StatementType.Type.REAP, part.table(tableName), batchSize,
+            JdbcDBClient.EXPIRY_COLUMN, shardIndex);
+        statements.add(conn.prepareStatement(dbFlavor.createReapByKeyStatement(type, expiryTable, batchSize)));
+      }
+    }
+    StatementType type = new StatementType(StatementType.Type.REAP, expiryTable, batchSize,
+        JdbcDBClient.EXPIRY_COLUMN, shardIndex);
+    statements.add(conn.prepareStatement(dbFlavor.createReapByKeyStatement(type, expiryTable, batchSize)));
+    return statements;
+  }
+
+  /**
+   * Delete a batch of expired rows.
+   *
+   * @return The number of rows deleted. If it is the batch size, more rows may have expired.
+   */
+  private int reap(PreparedStatement statement, Timestamp now) throws SQLException {
+    long start = System.nanoTime();
+    statement.setTimestamp(1, now);
+    int deleted = statement.executeUpdate();
+    if (deleted > 0) {
+      Measurements.getMeasurements().measure(REAP_MEASUREMENT, (int) ((System.nanoTime() - start) / 1000));
+    }
+    return deleted;
+  }
+}
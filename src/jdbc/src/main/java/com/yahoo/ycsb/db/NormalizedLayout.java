@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.db;
+
+import com.yahoo.ycsb.ByteIterator;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The normalized layout of the GDPR schema. The personal data, the ownership
+ * of the records by users and the rest of the metadata of a table live in
+ * three tables sharing the primary key, and a view under the name of the table
+ * joins them back into the denormalized row, so that reads, scans and metadata
+ * queries are answered by the database. Writes go to the tables holding the
+ * written columns.
+ */
+final class NormalizedLayout {
+
+  /**
+   * A table of the layout.
+   */
+  enum Part {
+    DATA("_DATA"), OWNER("_OWNER"), META("_META");
+
+    private final String suffix;
+
+    Part(String suffix) {
+      this.suffix = suffix;
+    }
+
+    /**
+     * The name of this part of the given table.
+     */
+    String table(String tableName) {
+      return tableName + suffix;
+    }
+  }
+
+  /** The user owning a record, the column erasures by user filter on. */
+  static final String OWNER_COLUMN = "USR";
+
+  /**
+   * The table holding a column.
+   */
+  static Part partOf(String column) {
+    if (column.equalsIgnoreCase(JdbcDBClient.DATA_COLUMN)) {
+      return Part.DATA;
+    }
+    if (column.equalsIgnoreCase(OWNER_COLUMN)) {
+      return Part.OWNER;
+    }
+    return Part.META;
+  }
+
+  /**
+   * The columns of the denormalized row by the table holding them, in order. Every part is present, if only with
+   * the primary key.
+   */
+  static Map<Part, List<String>> split(List<String> columns) {
+    Map<Part, List<String>> parts = new EnumMap<Part, List<String>>(Part.class);
+    for (Part part : Part.values()) {
+      parts.put(part, new ArrayList<String>());
+    }
+    for (String column : columns) {
+      parts.get(partOf(column)).add(column);
+    }
+    return parts;
+  }
+
+  /**
+   * The written values by the table holding them. Only parts with values are present.
+   */
+  static Map<Part, Map<String, ByteIterator>> split(Map<String, ByteIterator> values) {
+    Map<Part, Map<String, ByteIterator>> parts = new EnumMap<Part, Map<String, ByteIterator>>(Part.class);
+    for (Map.Entry<String, ByteIterator> entry : values.entrySet()) {
+      Part part = partOf(entry.getKey());
+      Map<String, ByteIterator> partValues = parts.get(part);
+      if (partValues == null) {
+        partValues = new LinkedHashMap<String, ByteIterator>();
+        parts.put(part, partValues);
+      }
+      partValues.put(entry.getKey(), entry.getValue());
+    }
+    return parts;
+  }
+
+  /**
+   * Hidden constructor.
+   */
+  private NormalizedLayout() {
+    super();
+  }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A connection to one shard together with the prepared statements cached on
+ * it. Prepared statements are bound to the connection they were created on, so
+ * the cache travels with the connection, whether it is dedicated to a client
+ * thread or handed out by a {@link JdbcConnectionPool}.
+ */
+class ShardConnection {
+  private final int shardIndex;
+  private final Connection connection;
+  private final ConcurrentMap<StatementType, PreparedStatement> statements =
+      new ConcurrentHashMap<StatementType, PreparedStatement>();
+  /** The pending batches of the statements of this connection, oldest first. */
+  private final Map<PreparedStatement, Batch> pending = new LinkedHashMap<PreparedStatement, Batch>();
+
+  /** Rows written outside of batches since the last commit, and when the first of them was. */
+  private int uncommitted;
+  private long uncommittedSince;
+
+  /** Rows buffered for bulk loading, per insert statement type. */
+  private final Map<StatementType, List<String[]>> bulkRows = new LinkedHashMap<StatementType, List<String[]>>();
+
+  /**
+   * The rows added to the batch of a statement since it was last executed.
+   */
+  private static final class Batch {
+    private final long started = System.nanoTime();
+    private int rows;
+  }
+
+  ShardConnection(int shardIndex, Connection connection) {
+    this.shardIndex = shardIndex;
+    this.connection = connection;
+  }
+
+  int getShardIndex() {
+    return shardIndex;
+  }
+
+  Connection getConnection() {
+    return connection;
+  }
+
+  ConcurrentMap<StatementType, PreparedStatement> getStatements() {
+    return statements;
+  }
+
+  /**
+   * Add the current parameters of a statement to its batch.
+   *
+   * @return The number of rows now pending in the batch of the statement.
+   */
+  synchronized int addBatch(PreparedStatement statement) throws SQLException {
+    statement.addBatch();
+    Batch batch = pending.get(statement);
+    if (batch == null) {
+      batch = new Batch();
+      pending.put(statement, batch);
+    }
+    return ++batch.rows;
+  }
+
+  /**
+   * How long the oldest batch of this connection has been pending, in
+   * nanoseconds, or -1 if there is none.
+   */
+  synchronized long getPendingNanos() {
+    if (pending.isEmpty()) {
+      return -1;
+    }
+    return System.nanoTime() - pending.values().iterator().next().started;
+  }
+
+  /**
+   * Count a row written outside of a batch on a connection that does not
+   * commit automatically.
+   *
+   * @return The number of rows now written since the last commit.
+   */
+  synchronized int addUncommitted() {
+    if (uncommitted++ == 0) {
+      uncommittedSince = System.nanoTime();
+    }
+    return uncommitted;
+  }
+
+  synchronized void commit() throws SQLException {
+    connection.commit();
+    uncommitted = 0;
+  }
+
+  /**
+   * Execute the pending batches of this connection and commit what it wrote,
+   * if the oldest batch or uncommitted row has been pending for at least the
+   * given time.
+   *
+   * @return True if anything was flushed.
+   */
+  synchronized boolean flushOlderThan(long nanos) throws SQLException {
+    long now = System.nanoTime();
+    boolean batchAged = !pending.isEmpty() && now - pending.values().iterator().next().started >= nanos;
+    boolean rowsAged = uncommitted > 0 && now - uncommittedSince >= nanos;
+    if (!batchAged && !rowsAged || connection.isClosed()) {
+      return false;
+    }
+    executeBatches();
+    if (!connection.getAutoCommit()) {
+      commit();
+    }
+    return true;
+  }
+
+  /**
+   * Execute the batch of a single statement.
+   */
+  synchronized int[] executeBatch(PreparedStatement statement) throws SQLException {
+    pending.remove(statement);
+    return statement.executeBatch();
+  }
+
+  /**
+   * Execute the pending batches of all statements of this connection, oldest
+   * batch first.
+   *
+   * @return The update counts of all executed batches, concatenated.
+   */
+  synchronized List<Integer> executeBatches() throws SQLException {
+    List<Integer> results = new ArrayList<Integer>();
+    for (PreparedStatement statement : new ArrayList<PreparedStatement>(pending.keySet())) {
+      pending.remove(statement);
+      if (!statement.isClosed()) {
+        for (int result : statement.executeBatch()) {
+          results.add(result);
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Buffer a row for bulk loading.
+   *
+   * @return The number of rows now buffered for the statement type.
+   */
+  synchronized int addBulkRow(StatementType insertType, String[] row) {
+    List<String[]> rows = bulkRows.get(insertType);
+    if (rows == null) {
+      rows = new ArrayList<String[]>();
+      bulkRows.put(insertType, rows);
+    }
+    rows.add(row);
+    return rows.size();
+  }
+
+  /**
+   * Remove and return the rows buffered for a statement type.
+   */
+  synchronized List<String[]> takeBulkRows(StatementType insertType) {
+    List<String[]> rows = bulkRows.remove(insertType);
+    return rows == null ? new ArrayList<String[]>() : rows;
+  }
+
+  /**
+   * Remove and return all buffered rows, per statement type.
+   */
+  synchronized Map<StatementType, List<String[]>> takeAllBulkRows() {
+    Map<StatementType, List<String[]>> rows = new LinkedHashMap<StatementType, List<String[]>>(bulkRows);
+    bulkRows.clear();
+    return rows;
+  }
+}
@@ -22,7 +22,8 @@ package com.yahoo.ycsb.db;
 public class StatementType {
 
   enum Type {
-    INSERT(1), DELETE(2), READ(3), UPDATE(4), SCAN(5);
+    INSERT(1), DELETE(2), READ(3), UPDATE(4), SCAN(5), READ_META(6), UPDATE_META(7), DELETE_META(8), BULK_INSERT(9),
+    REAP(10), COUNT_EXPIRED(11);
 
     private final int internalType;
 
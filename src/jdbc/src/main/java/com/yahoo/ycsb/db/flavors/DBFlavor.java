@@ -16,8 +16,17 @@
  */
 package com.yahoo.ycsb.db.flavors;
 
+import com.yahoo.ycsb.MultiValuedMetadata;
 import com.yahoo.ycsb.db.StatementType;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
 /**
  * DBFlavor captures minor differences in syntax and behavior among JDBC implementations and SQL
  * dialects. This class also acts as a factory to instantiate concrete flavors based on the JDBC URL.
@@ -26,19 +35,50 @@ public abstract class DBFlavor {
 
   enum DBName {
     DEFAULT,
-    PHOENIX
+    MYSQL,
+    PHOENIX,
+    POSTGRES
   }
 
   private final DBName dbName;
 
+  private Set<String> multiValuedColumns = Collections.emptySet();
+
   public DBFlavor(DBName dbName) {
     this.dbName = dbName;
   }
 
+  /**
+   * Set the metadata columns holding sets of values, see {@link MultiValuedMetadata}. Conditions on them match
+   * the rows whose set contains the bound value.
+   */
+  public void setMultiValuedColumns(Set<String> columns) {
+    Set<String> multiValued = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+    multiValued.addAll(columns);
+    multiValuedColumns = multiValued;
+  }
+
+  public boolean isMultiValued(String column) {
+    return multiValuedColumns.contains(column);
+  }
+
+  /**
+   * The value to bind to the condition of a metadata statement on a column.
+   */
+  public String conditionValue(String column, String condition) {
+    return isMultiValued(column) ? MultiValuedMetadata.likePattern(condition) : condition;
+  }
+
   public static DBFlavor fromJdbcUrl(String url) {
     if (url.startsWith("jdbc:phoenix")) {
       return new PhoenixDBFlavor();
     }
+    if (url.startsWith("jdbc:postgresql")) {
+      return new PostgresDBFlavor();
+    }
+    if (url.startsWith("jdbc:mysql")) {
+      return new MySQLDBFlavor();
+    }
     return new DefaultDBFlavor();
   }
 
@@ -67,9 +107,90 @@ public abstract class DBFlavor {
    */
   public abstract String createScanStatement(StatementType scanType, String key);
 
+  /**
+   * Create and return a SQL statement for reading all records whose metadata field (the field string of the
+   * statement type) equals a bound value.
+   */
   public abstract String createReadMetaStatement(StatementType readType, String key);
 
+  /**
+   * Create and return a SQL statement for deleting all records whose metadata field (the field string of the
+   * statement type) equals a bound value.
+   */
   public abstract String createDeleteMetaStatement(StatementType deleteType, String key);
 
+  /**
+   * Create and return a SQL statement for setting a metadata field to a bound value on all records whose
+   * predicate field equals another bound value. The field string of the statement type is
+   * "predicate field,updated field".
+   */
   public abstract String createUpdateMetaStatement(StatementType updateType, String key);
+
+  /**
+   * Create and return a SQL statement like {@link #createUpdateMetaStatement(StatementType, String)}, for a
+   * predicate field held by another table of the normalized layout: the records are picked by their keys in the
+   * predicate table.
+   */
+  public abstract String createUpdateMetaByKeyStatement(StatementType updateType, String predicateTable);
+
+  /**
+   * Create and return a SQL statement like {@link #createDeleteMetaStatement(StatementType, String)}, for a
+   * metadata field held by another table of the normalized layout.
+   */
+  public abstract String createDeleteMetaByKeyStatement(StatementType deleteType, String predicateTable);
+
+  /**
+   * Create and return a SQL statement inserting the given number of rows at once, or null if the database does
+   * not support multi-row inserts.
+   */
+  public abstract String createBulkInsertStatement(StatementType insertType, int rows);
+
+  /**
+   * Return the SQL type of a column of the GDPR schema: the primary key, a metadata field, the integer TTL,
+   * the expiry timestamp or the data field.
+   */
+  public abstract String getColumnType(String column);
+
+  /**
+   * Create and return a SQL statement creating a table with the given columns after the primary key.
+   */
+  public abstract String createTableStatement(String tableName, List<String> columns);
+
+  /**
+   * Create and return a SQL statement creating a secondary index on a column.
+   */
+  public abstract String createIndexStatement(String tableName, String column);
+
+  /**
+   * Create and return a SQL statement creating a view joining tables on their primary key, with the key and the
+   * given columns of each table.
+   */
+  public abstract String createJoinedViewStatement(String viewName, Map<String, List<String>> columnsByTable);
+
+  /**
+   * Create and return a SQL statement deleting at most the given number of rows whose expiry timestamp is at or
+   * before a bound value, oldest first, so that the index on the expiry column is used.
+   */
+  public abstract String createReapStatement(StatementType reapType, int rows);
+
+  /**
+   * Create and return a SQL statement like {@link #createReapStatement(StatementType, int)}, deleting the rows
+   * whose expiry timestamp is held by another table of the normalized layout. Rows are picked oldest first and by
+   * key among equal timestamps, so that the statements reaping every table of a record pick the same records.
+   */
+  public abstract String createReapByKeyStatement(StatementType reapType, String expiryTable, int rows);
+
+  /**
+   * Create and return a SQL statement counting the rows whose expiry timestamp is at or before a bound value.
+   */
+  public abstract String createCountExpiredStatement(StatementType countType);
+
+  /**
+   * Load rows (the key followed by the values of the fields of the statement type) through a database specific
+   * bulk load facility.
+   *
+   * @return false if the database has none, in which case multi-row inserts are used.
+   */
+  public abstract boolean bulkLoad(Connection conn, StatementType insertType, List<String[]> rows)
+      throws SQLException;
 }
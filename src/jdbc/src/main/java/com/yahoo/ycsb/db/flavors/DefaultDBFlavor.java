@@ -19,9 +19,10 @@ package com.yahoo.ycsb.db.flavors;
 import com.yahoo.ycsb.db.JdbcDBClient;
 import com.yahoo.ycsb.db.StatementType;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Random;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A default flavor for relational databases.
@@ -30,21 +31,16 @@ public class DefaultDBFlavor extends DBFlavor {
   public DefaultDBFlavor() {
     super(DBName.DEFAULT);
   }
-  private Random rand = new Random();
+
   public DefaultDBFlavor(DBName dbName) {
     super(dbName);
   }
 
-  private ArrayList<String> purpose = new ArrayList<String>(
-      Arrays.asList("ads", "2fa", "msg", "backup", "random1", "random2", "random3", "random4", "random5", "random6"));
-  private ArrayList<String> dec = new ArrayList<>(
-      Arrays.asList("allow", "disallow", "inform"));
-
   @Override
   public String createInsertStatement(StatementType insertType, String key) {
     StringBuilder insert = new StringBuilder("INSERT INTO ");
     insert.append(insertType.getTableName());
-    insert.append(" (" + JdbcDBClient.PRIMARY_KEY + "," + insertType.getFieldString() + ")");
+    insert.append(" (" + quoteColumns(JdbcDBClient.PRIMARY_KEY + "," + insertType.getFieldString()) + ")");
     insert.append(" VALUES(?");
     for (int i = 0; i < insertType.getNumFields(); i++) {
       insert.append(",?");
@@ -70,12 +66,7 @@ public class DefaultDBFlavor extends DBFlavor {
     StringBuilder read = new StringBuilder("SELECT * FROM ");
     read.append(readType.getTableName());
     read.append(" WHERE ");
-    read.append("PUR");
-    read.append(" = ");
-    read.append("'");
-    read.append(purpose.get(rand.nextInt(purpose.size())));
-    read.append("'");
-    //System.out.println("ReadMeta: "+read.toString());
+    appendCondition(read, readType.getFieldString());
     return read.toString();
   }
 
@@ -96,12 +87,7 @@ public class DefaultDBFlavor extends DBFlavor {
     StringBuilder delete = new StringBuilder("DELETE FROM ");
     delete.append(deleteType.getTableName());
     delete.append(" WHERE ");
-    delete.append("PUR");
-    delete.append(" = ");
-    delete.append("'");
-    delete.append(purpose.get(rand.nextInt(purpose.size())));
-    delete.append("'");
-    //System.out.println("DeleteMeta: "+delete.toString());
+    appendCondition(delete, deleteType.getFieldString());
     return delete.toString();
   }
 
@@ -112,7 +98,7 @@ public class DefaultDBFlavor extends DBFlavor {
     update.append(updateType.getTableName());
     update.append(" SET ");
     for (int i = 0; i < fieldKeys.length; i++) {
-      update.append(fieldKeys[i]);
+      update.append(quote(fieldKeys[i]));
       update.append("=?");
       if (i < fieldKeys.length - 1) {
         update.append(", ");
@@ -127,24 +113,61 @@ public class DefaultDBFlavor extends DBFlavor {
 
   @Override
   public String createUpdateMetaStatement(StatementType updateType, String key) {
+    String[] fieldKeys = updateType.getFieldString().split(",");
     StringBuilder update = new StringBuilder("UPDATE ");
     update.append(updateType.getTableName());
     update.append(" SET ");
-    update.append("OBJ");
-    update.append(" = ");
-    update.append("'");
-    update.append(dec.get(rand.nextInt(dec.size())));
-    update.append("'");
+    update.append(quote(fieldKeys[1]));
+    update.append(" = ?");
     update.append(" WHERE ");
-    update.append("PUR");
-    update.append(" = ");
-    update.append("'");
-    update.append(purpose.get(rand.nextInt(purpose.size())));
-    update.append("'");
-    //System.out.println("UpdateMeta: "+update.toString());
+    appendCondition(update, fieldKeys[0]);
+    return update.toString();
+  }
+
+  @Override
+  public String createUpdateMetaByKeyStatement(StatementType updateType, String predicateTable) {
+    String[] fieldKeys = updateType.getFieldString().split(",");
+    StringBuilder update = new StringBuilder("UPDATE ");
+    update.append(updateType.getTableName());
+    update.append(" SET ");
+    update.append(quote(fieldKeys[1]));
+    update.append(" = ?");
+    appendKeyIn(update, predicateTable, fieldKeys[0]);
     return update.toString();
   }
 
+  @Override
+  public String createDeleteMetaByKeyStatement(StatementType deleteType, String predicateTable) {
+    StringBuilder delete = new StringBuilder("DELETE FROM ");
+    delete.append(deleteType.getTableName());
+    appendKeyIn(delete, predicateTable, deleteType.getFieldString());
+    return delete.toString();
+  }
+
+  /**
+   * Append a condition picking the keys of the rows of another table whose field matches a bound value.
+   */
+  private void appendKeyIn(StringBuilder statement, String table, String field) {
+    statement.append(" WHERE ");
+    statement.append(JdbcDBClient.PRIMARY_KEY);
+    statement.append(" IN (SELECT ");
+    statement.append(JdbcDBClient.PRIMARY_KEY);
+    statement.append(" FROM ");
+    statement.append(table);
+    statement.append(" WHERE ");
+    appendCondition(statement, field);
+    statement.append(")");
+  }
+
+  /**
+   * Append the condition of a metadata statement on a field: equality with a bound value, or a match of the bound
+   * pattern against the set stored in a multi-valued field.
+   */
+  private void appendCondition(StringBuilder statement, String field) {
+    statement.append(quote(field));
+    statement.append(isMultiValued(field) ? " LIKE ?" : " = ?");
+  }
+
   @Override
   public String createScanStatement(StatementType scanType, String key) {
     StringBuilder select = new StringBuilder("SELECT * FROM ");
@@ -157,4 +180,168 @@ public class DefaultDBFlavor extends DBFlavor {
     select.append(" LIMIT ?");
     return select.toString();
   }
+
+  @Override
+  public String createBulkInsertStatement(StatementType insertType, int rows) {
+    StringBuilder insert = new StringBuilder("INSERT INTO ");
+    insert.append(insertType.getTableName());
+    insert.append(" (" + quoteColumns(JdbcDBClient.PRIMARY_KEY + "," + insertType.getFieldString()) + ")");
+    insert.append(" VALUES");
+    for (int r = 0; r < rows; r++) {
+      insert.append(r == 0 ? "(?" : ",(?");
+      for (int i = 0; i < insertType.getNumFields(); i++) {
+        insert.append(",?");
+      }
+      insert.append(")");
+    }
+    return insert.toString();
+  }
+
+  @Override
+  public String getColumnType(String column) {
+    if (column.equalsIgnoreCase(JdbcDBClient.TTL_COLUMN)) {
+      return "INTEGER";
+    }
+    if (column.equalsIgnoreCase(JdbcDBClient.EXPIRY_COLUMN)) {
+      return "TIMESTAMP";
+    }
+    if (column.equalsIgnoreCase(JdbcDBClient.DATA_COLUMN) || isMultiValued(column)) {
+      // a set is matched by a pattern no index helps with, so it need not fit an index either
+      return getTextType();
+    }
+    // the key and the metadata fields are short and indexed, which no database allows for large text types
+    return "VARCHAR(255)";
+  }
+
+  /**
+   * The SQL type of unbounded text.
+   */
+  protected String getTextType() {
+    return "CLOB";
+  }
+
+  /**
+   * Quote a column name where the database reserves it as a keyword.
+   */
+  protected String quote(String column) {
+    return column;
+  }
+
+  private String quoteColumns(String columns) {
+    StringBuilder quoted = new StringBuilder();
+    for (String column : columns.split(",")) {
+      if (quoted.length() > 0) {
+        quoted.append(",");
+      }
+      quoted.append(quote(column));
+    }
+    return quoted.toString();
+  }
+
+  @Override
+  public String createTableStatement(String tableName, List<String> columns) {
+    StringBuilder create = new StringBuilder("CREATE TABLE ");
+    create.append(tableName);
+    create.append(" (" + JdbcDBClient.PRIMARY_KEY + " " + getColumnType(JdbcDBClient.PRIMARY_KEY) + " PRIMARY KEY");
+    for (String column : columns) {
+      create.append(", ");
+      create.append(quote(column));
+      create.append(" ");
+      create.append(getColumnType(column));
+    }
+    create.append(")");
+    return create.toString();
+  }
+
+  @Override
+  public String createIndexStatement(String tableName, String column) {
+    StringBuilder index = new StringBuilder("CREATE INDEX ");
+    index.append(tableName + "_" + column + "_IDX");
+    index.append(" ON ");
+    index.append(tableName);
+    index.append(" (" + quote(column) + ")");
+    return index.toString();
+  }
+
+  @Override
+  public String createJoinedViewStatement(String viewName, Map<String, List<String>> columnsByTable) {
+    StringBuilder view = new StringBuilder("CREATE VIEW ");
+    view.append(viewName);
+    view.append(" AS SELECT ");
+    String first = null;
+    StringBuilder from = new StringBuilder(" FROM ");
+    for (Map.Entry<String, List<String>> table : columnsByTable.entrySet()) {
+      if (first == null) {
+        first = table.getKey();
+        view.append(first + "." + JdbcDBClient.PRIMARY_KEY);
+        from.append(first);
+      } else {
+        from.append(" JOIN " + table.getKey() + " ON " + table.getKey() + "." + JdbcDBClient.PRIMARY_KEY + " = "
+            + first + "." + JdbcDBClient.PRIMARY_KEY);
+      }
+      for (String column : table.getValue()) {
+        view.append(", " + table.getKey() + "." + quote(column));
+      }
+    }
+    view.append(from);
+    return view.toString();
+  }
+
+  @Override
+  public String createReapStatement(StatementType reapType, int rows) {
+    // DELETE has no LIMIT in standard SQL, so the batch is selected by a subquery on the expiry index
+    StringBuilder reap = new StringBuilder("DELETE FROM ");
+    reap.append(reapType.getTableName());
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" IN (SELECT ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" FROM ");
+    reap.append(reapType.getTableName());
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(" <= ? ORDER BY ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(" LIMIT ");
+    reap.append(rows);
+    reap.append(")");
+    return reap.toString();
+  }
+
+  @Override
+  public String createReapByKeyStatement(StatementType reapType, String expiryTable, int rows) {
+    StringBuilder reap = new StringBuilder("DELETE FROM ");
+    reap.append(reapType.getTableName());
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" IN (SELECT ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" FROM ");
+    reap.append(expiryTable);
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(" <= ? ORDER BY ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(", ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" LIMIT ");
+    reap.append(rows);
+    reap.append(")");
+    return reap.toString();
+  }
+
+  @Override
+  public String createCountExpiredStatement(StatementType countType) {
+    StringBuilder count = new StringBuilder("SELECT COUNT(*) FROM ");
+    count.append(countType.getTableName());
+    count.append(" WHERE ");
+    count.append(JdbcDBClient.EXPIRY_COLUMN);
+    count.append(" <= ?");
+    return count.toString();
+  }
+
+  @Override
+  public boolean bulkLoad(Connection conn, StatementType insertType, List<String[]> rows) throws SQLException {
+    return false;
+  }
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.db.flavors;
+
+import com.yahoo.ycsb.db.JdbcDBClient;
+import com.yahoo.ycsb.db.StatementType;
+
+/**
+ * Database flavor for MySQL, which reserves the DEC column of the GDPR schema as a keyword, limits DELETE directly
+ * and neither takes LIMIT in an IN subquery nor a subquery on the table a statement deletes from.
+ */
+public class MySQLDBFlavor extends DefaultDBFlavor {
+  public MySQLDBFlavor() {
+    super(DBName.MYSQL);
+  }
+
+  @Override
+  public String getColumnType(String column) {
+    if (column.equalsIgnoreCase(JdbcDBClient.EXPIRY_COLUMN)) {
+      // otherwise the first TIMESTAMP column defaults to the time of the insert and every update
+      return "TIMESTAMP NULL";
+    }
+    return super.getColumnType(column);
+  }
+
+  @Override
+  public String createReapStatement(StatementType reapType, int rows) {
+    StringBuilder reap = new StringBuilder("DELETE FROM ");
+    reap.append(reapType.getTableName());
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(" <= ? ORDER BY ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(" LIMIT ");
+    reap.append(rows);
+    return reap.toString();
+  }
+
+  @Override
+  public String createReapByKeyStatement(StatementType reapType, String expiryTable, int rows) {
+    // the batch is materialized as a derived table, which MySQL allows to be limited and taken from the same table
+    StringBuilder reap = new StringBuilder("DELETE FROM ");
+    reap.append(reapType.getTableName());
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" IN (SELECT ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" FROM (SELECT ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" FROM ");
+    reap.append(expiryTable);
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(" <= ? ORDER BY ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(", ");
+    reap.append(JdbcDBClient.PRIMARY_KEY);
+    reap.append(" LIMIT ");
+    reap.append(rows);
+    reap.append(") AS REAPED)");
+    return reap.toString();
+  }
+
+  @Override
+  protected String getTextType() {
+    return "TEXT";
+  }
+
+  @Override
+  protected String quote(String column) {
+    return "`" + column + "`";
+  }
+}
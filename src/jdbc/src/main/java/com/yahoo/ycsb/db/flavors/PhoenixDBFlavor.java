@@ -62,4 +62,34 @@ public class PhoenixDBFlavor extends DefaultDBFlavor {
     update.append("?)");
     return update.toString();
   }
+
+  @Override
+  public String getColumnType(String column) {
+    String type = super.getColumnType(column);
+    // Phoenix VARCHARs need no maximum length and there is no CLOB type
+    return type.startsWith("VARCHAR") ? "VARCHAR" : type;
+  }
+
+  @Override
+  protected String getTextType() {
+    return "VARCHAR";
+  }
+
+  @Override
+  public String createReapStatement(StatementType reapType, int rows) {
+    // Phoenix limits DELETE directly
+    StringBuilder reap = new StringBuilder("DELETE FROM ");
+    reap.append(reapType.getTableName());
+    reap.append(" WHERE ");
+    reap.append(JdbcDBClient.EXPIRY_COLUMN);
+    reap.append(" <= ? LIMIT ");
+    reap.append(rows);
+    return reap.toString();
+  }
+
+  @Override
+  public String createBulkInsertStatement(StatementType insertType, int rows) {
+    // UPSERT VALUES takes a single row
+    return null;
+  }
 }
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.db.flavors;
+
+import com.yahoo.ycsb.db.JdbcDBClient;
+import com.yahoo.ycsb.db.StatementType;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Database flavor for PostgreSQL. Bulk loads go through COPY FROM STDIN.
+ */
+public class PostgresDBFlavor extends DefaultDBFlavor {
+  public PostgresDBFlavor() {
+    super(DBName.POSTGRES);
+  }
+
+  @Override
+  protected String getTextType() {
+    return "TEXT";
+  }
+
+  @Override
+  public boolean bulkLoad(Connection conn, StatementType insertType, List<String[]> rows) throws SQLException {
+    StringBuilder copy = new StringBuilder("COPY ");
+    copy.append(insertType.getTableName());
+    copy.append(" (" + JdbcDBClient.PRIMARY_KEY + "," + insertType.getFieldString() + ")");
+    copy.append(" FROM STDIN");
+
+    // The driver is not a compile time dependency of the binding, so its CopyManager is used reflectively.
+    try {
+      Class<?> pgConnection = Class.forName("org.postgresql.PGConnection");
+      Object copyApi = pgConnection.getMethod("getCopyAPI").invoke(conn.unwrap(pgConnection));
+      copyApi.getClass().getMethod("copyIn", String.class, Reader.class)
+          .invoke(copyApi, copy.toString(), new CopyReader(rows));
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw new SQLException("COPY failed", e.getCause());
+    } catch (ReflectiveOperationException e) {
+      // not the PostgreSQL driver after all, fall back to multi-row inserts
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * The rows in the text format of COPY, encoded one at a time as the driver reads them, so that a batch is never
+   * held as text in full.
+   */
+  static final class CopyReader extends Reader {
+    private final Iterator<String[]> rows;
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+
+    CopyReader(List<String[]> rows) {
+      this.rows = rows.iterator();
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      int read = 0;
+      while (read < length) {
+        if (position == line.length()) {
+          if (!rows.hasNext()) {
+            break;
+          }
+          encode(rows.next());
+        }
+        int count = Math.min(length - read, line.length() - position);
+        line.getChars(position, position + count, buffer, offset + read);
+        position += count;
+        read += count;
+      }
+      return read == 0 ? -1 : read;
+    }
+
+    private void encode(String[] row) {
+      line.setLength(0);
+      position = 0;
+      for (int i = 0; i < row.length; i++) {
+        if (i > 0) {
+          line.append('\t');
+        }
+        appendCopyValue(line, row[i]);
+      }
+      line.append('\n');
+    }
+
+    @Override
+    public void close() {
+      // nothing to release, the rows belong to the caller
+    }
+  }
+
+  /**
+   * Append a value in the text format of COPY, where NULL is \N and backslashes and the delimiters are escaped.
+   */
+  private static void appendCopyValue(StringBuilder data, String value) {
+    if (value == null) {
+      data.append("\\N");
+      return;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+      case '\\':
+        data.append("\\\\");
+        break;
+      case '\t':
+        data.append("\\t");
+        break;
+      case '\n':
+        data.append("\\n");
+        break;
+      case '\r':
+        data.append("\\r");
+        break;
+      default:
+        data.append(c);
+      }
+    }
+  }
+}
@@ -18,10 +18,15 @@
 -- Drop the table if it exists;
 DROP TABLE IF EXISTS usertable;
 
--- Create the user table with 5 fields.
+-- Create the user table with the GDPR schema: the metadata fields, the integer
+-- TTL in seconds, the expiry timestamp derived from it and the data field.
 CREATE TABLE usertable(YCSB_KEY VARCHAR PRIMARY KEY,
-  FIELD0 VARCHAR, FIELD1 VARCHAR,
-  FIELD2 VARCHAR, FIELD3 VARCHAR,
-  FIELD4 VARCHAR, FIELD5 VARCHAR,
-  FIELD6 VARCHAR, FIELD7 VARCHAR,
-  FIELD8 VARCHAR, FIELD9 VARCHAR);
+  PUR VARCHAR, TTL INTEGER, USR VARCHAR,
+  OBJ VARCHAR, DEC VARCHAR, ACL VARCHAR,
+  SHR VARCHAR, SRC VARCHAR, CAT VARCHAR,
+  Data VARCHAR, EXPIRY TIMESTAMP);
+
+-- Index the fields the meta operations filter on and the expiry timestamp.
+CREATE INDEX usertable_PUR_IDX ON usertable (PUR);
+CREATE INDEX usertable_USR_IDX ON usertable (USR);
+CREATE INDEX usertable_EXPIRY_IDX ON usertable (EXPIRY);
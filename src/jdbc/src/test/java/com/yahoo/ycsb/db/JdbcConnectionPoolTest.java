@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class JdbcConnectionPoolTest {
+  private static final String TEST_DB_URL = "jdbc:hsqldb:mem:ycsbpool";
+
+  @Test(timeout = 10000)
+  public void failedConnectTest() throws SQLException {
+    // with ifexists the connect fails until the database has been created
+    JdbcConnectionPool pool =
+        new JdbcConnectionPool(new String[] {TEST_DB_URL + ";ifexists=true"}, "sa", "", true, 1);
+    try {
+      pool.borrow(0);
+      fail("Connected to a database that does not exist");
+    } catch (SQLException e) {
+      // expected
+    }
+
+    try (Connection creator = DriverManager.getConnection(TEST_DB_URL, "sa", "")) {
+      // the failed connect must not have taken up the only slot of the shard
+      ShardConnection conn = pool.borrow(0);
+      assertEquals(0, conn.getShardIndex());
+      pool.release(conn);
+      assertSame(conn, pool.borrow(0));
+      pool.close();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void failedConnectWithWaiterTest() throws Exception {
+    final CountDownLatch connecting = new CountDownLatch(1);
+    final CountDownLatch failConnect = new CountDownLatch(1);
+    // the first connect blocks until told to fail, the next ones succeed
+    final JdbcConnectionPool pool =
+        new JdbcConnectionPool(new String[] {TEST_DB_URL}, "sa", "", true, 1) {
+          private boolean first = true;
+
+          @Override
+          Connection connect(int shardIndex) throws SQLException {
+            synchronized (this) {
+              if (!first) {
+                return super.connect(shardIndex);
+              }
+              first = false;
+            }
+            connecting.countDown();
+            try {
+              failConnect.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            throw new SQLException("Connect failed");
+          }
+        };
+
+    ExecutorService threads = Executors.newFixedThreadPool(2);
+    try {
+      Future<ShardConnection> failing = threads.submit(() -> pool.borrow(0));
+      assertTrue(connecting.await(5, TimeUnit.SECONDS));
+      // the only slot is taken, so this one waits
+      Future<ShardConnection> waiting = threads.submit(() -> pool.borrow(0));
+      Thread.sleep(JdbcConnectionPool.RETRY_INTERVAL_MS * 2);
+      assertFalse(waiting.isDone());
+
+      failConnect.countDown();
+      try {
+        failing.get();
+        fail("The first connect should have failed");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof SQLException);
+      }
+      // the waiter opens the connection itself once the slot is free again
+      ShardConnection conn = waiting.get(5, TimeUnit.SECONDS);
+      assertEquals(0, conn.getShardIndex());
+      pool.close();
+    } finally {
+      threads.shutdownNow();
+    }
+  }
+}
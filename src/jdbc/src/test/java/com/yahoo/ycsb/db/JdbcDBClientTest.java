@@ -21,22 +21,32 @@ import static org.junit.Assert.*;
 
 import com.yahoo.ycsb.ByteIterator;
 import com.yahoo.ycsb.DBException;
+import com.yahoo.ycsb.MultiValuedMetadata;
+import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.StringByteIterator;
+import com.yahoo.ycsb.db.flavors.DBFlavor;
+import com.yahoo.ycsb.measurements.Measurements;
 import org.junit.*;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 public class JdbcDBClientTest {
     private static final String TEST_DB_DRIVER = "org.hsqldb.jdbc.JDBCDriver";
     private static final String TEST_DB_URL = "jdbc:hsqldb:mem:ycsb";
     private static final String TEST_DB_USER = "sa";
     private static final String TABLE_NAME = "USERTABLE";
+    private static final String META_TABLE_NAME = "GDPRTABLE";
     private static final int FIELD_LENGTH = 32;
     private static final String FIELD_PREFIX = "FIELD";
     private static final String KEY_PREFIX = "user";
@@ -329,6 +339,330 @@ public class JdbcDBClientTest {
         }
     }
 
+    @Test
+    public void metaTest() throws SQLException {
+        jdbcConnection.prepareStatement(String.format("DROP TABLE IF EXISTS %s", META_TABLE_NAME)).execute();
+        jdbcConnection.prepareStatement(String.format(
+            "CREATE TABLE %s (%s VARCHAR(100) PRIMARY KEY, PUR VARCHAR(100), USR VARCHAR(100), OBJ VARCHAR(100))",
+            META_TABLE_NAME, KEY_FIELD)).execute();
+        String[][] rows = {{"key0", "ads", "u0"}, {"key1", "ads", "u1"}, {"key2", "msg", "u0"}};
+        for (String[] row : rows) {
+            jdbcConnection.prepareStatement(String.format("INSERT INTO %s VALUES ('%s', '%s', '%s', 'none')",
+                META_TABLE_NAME, row[0], row[1], row[2])).execute();
+        }
+
+        // Field 0 is PUR, field 2 is USR
+        Vector<HashMap<String, ByteIterator>> resultVector = new Vector<HashMap<String, ByteIterator>>();
+        assertEquals(Status.OK, jdbcDBClient.readMeta(META_TABLE_NAME, 0, "ads", "key*", resultVector));
+        assertEquals("Assert both records with the purpose were read", 2, resultVector.size());
+        for (Map<String, ByteIterator> result : resultVector) {
+            assertEquals("ads", result.get("PUR").toString());
+        }
+        assertEquals(Status.NOT_FOUND,
+            jdbcDBClient.readMeta(META_TABLE_NAME, 0, "backup", "key*", new Vector<HashMap<String, ByteIterator>>()));
+
+        assertEquals(Status.OK, jdbcDBClient.updateMeta(META_TABLE_NAME, 2, "u0", "key*", "OBJ", "allow"));
+        ResultSet resultSet = jdbcConnection.prepareStatement(
+            String.format("SELECT COUNT(*) FROM %s WHERE OBJ = 'allow'", META_TABLE_NAME)).executeQuery();
+        assertTrue(resultSet.next());
+        assertEquals("Assert only the records of the user were updated", 2, resultSet.getInt(1));
+        resultSet.close();
+
+        assertEquals(Status.OK, jdbcDBClient.deleteMeta(META_TABLE_NAME, 0, "ads", "key*"));
+        assertEquals(Status.NOT_FOUND, jdbcDBClient.deleteMeta(META_TABLE_NAME, 0, "ads", "key*"));
+        resultSet = jdbcConnection.prepareStatement(
+            String.format("SELECT %s FROM %s", KEY_FIELD, META_TABLE_NAME)).executeQuery();
+        assertTrue(resultSet.next());
+        assertEquals("key2", resultSet.getString(1));
+        assertFalse(resultSet.next());
+        resultSet.close();
+    }
+
+    @Test
+    public void multiValuedMetaTest() throws SQLException, DBException {
+        jdbcConnection.prepareStatement(String.format("DROP TABLE IF EXISTS %s", META_TABLE_NAME)).execute();
+        jdbcConnection.prepareStatement(String.format(
+            "CREATE TABLE %s (%s VARCHAR(100) PRIMARY KEY, PUR VARCHAR(100), USR VARCHAR(100), OBJ VARCHAR(100))",
+            META_TABLE_NAME, KEY_FIELD)).execute();
+        String[][] rows = {{"key0", ",ads,msg,", "u0"}, {"key1", ",ads,", "u1"}, {"key2", ",msg,backup,", "u0"},
+            {"key3", ",adsx,", "u1"}};
+        for (String[] row : rows) {
+            jdbcConnection.prepareStatement(String.format("INSERT INTO %s VALUES ('%s', '%s', '%s', 'none')",
+                META_TABLE_NAME, row[0], row[1], row[2])).execute();
+        }
+
+        JdbcDBClient multiValuedClient = new JdbcDBClient();
+        Properties p = new Properties();
+        p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+        p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+        p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+        p.setProperty(MultiValuedMetadata.PURPOSE_MAX_VALUES_PROPERTY, "3");
+        multiValuedClient.setProperties(p);
+        multiValuedClient.init();
+        try {
+            // Field 0 is PUR, field 2 is USR
+            Vector<HashMap<String, ByteIterator>> resultVector = new Vector<HashMap<String, ByteIterator>>();
+            assertEquals(Status.OK, multiValuedClient.readMeta(META_TABLE_NAME, 0, "msg", "key*", resultVector));
+            assertEquals("Assert the records whose purposes contain msg were read", 2, resultVector.size());
+            resultVector.clear();
+            assertEquals(Status.OK, multiValuedClient.readMeta(META_TABLE_NAME, 0, "ads", "key*", resultVector));
+            assertEquals("Assert a purpose does not match a longer one", 2, resultVector.size());
+
+            assertEquals(Status.OK, multiValuedClient.updateMeta(META_TABLE_NAME, 0, "backup", "key*", "OBJ", "allow"));
+            assertEquals(1, countRows(META_TABLE_NAME + " WHERE OBJ = 'allow'"));
+
+            assertEquals(Status.OK, multiValuedClient.deleteMeta(META_TABLE_NAME, 0, "ads", "key*"));
+            assertEquals("Assert the records with the purpose were deleted", 2, countRows(META_TABLE_NAME));
+        } finally {
+            multiValuedClient.cleanup();
+        }
+    }
+
+    @Test
+    public void metaFanOutTest() throws SQLException, DBException {
+        String secondShardUrl = TEST_DB_URL + "shard";
+        Connection[] shards = {jdbcConnection, DriverManager.getConnection(secondShardUrl)};
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].prepareStatement(String.format("DROP TABLE IF EXISTS %s", META_TABLE_NAME)).execute();
+            shards[i].prepareStatement(String.format(
+                "CREATE TABLE %s (%s VARCHAR(100) PRIMARY KEY, PUR VARCHAR(100))", META_TABLE_NAME, KEY_FIELD)).execute();
+            shards[i].prepareStatement(String.format(
+                "INSERT INTO %s VALUES ('key%d', 'ads')", META_TABLE_NAME, i)).execute();
+        }
+
+        JdbcDBClient pooledClient = new JdbcDBClient();
+        Properties p = new Properties();
+        p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL + "," + secondShardUrl);
+        p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+        p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+        p.setProperty(JdbcDBClient.JDBC_POOL_SIZE, "2");
+        pooledClient.setProperties(p);
+        pooledClient.init();
+        try {
+            Vector<HashMap<String, ByteIterator>> resultVector = new Vector<HashMap<String, ByteIterator>>();
+            assertEquals(Status.OK, pooledClient.readMeta(META_TABLE_NAME, 0, "ads", "key*", resultVector));
+            assertEquals("Assert the records of both shards were read", 2, resultVector.size());
+
+            assertEquals(Status.OK, pooledClient.deleteMeta(META_TABLE_NAME, 0, "ads", "key*"));
+            for (Connection shard : shards) {
+                ResultSet resultSet = shard.prepareStatement(
+                    String.format("SELECT * FROM %s", META_TABLE_NAME)).executeQuery();
+                assertFalse("Assert the records were deleted on every shard", resultSet.next());
+                resultSet.close();
+            }
+        } finally {
+            pooledClient.cleanup();
+            shards[1].close();
+        }
+    }
+
+    @Test
+    public void ttlReaperTest() throws SQLException, DBException, InterruptedException {
+        jdbcConnection.prepareStatement(String.format("DROP TABLE IF EXISTS %s", META_TABLE_NAME)).execute();
+        jdbcConnection.prepareStatement(String.format(
+            "CREATE TABLE %s (%s VARCHAR(100) PRIMARY KEY, PUR VARCHAR(100), TTL INTEGER, EXPIRY TIMESTAMP)",
+            META_TABLE_NAME, KEY_FIELD)).execute();
+
+        JdbcDBClient reapingClient = new JdbcDBClient();
+        Properties p = new Properties();
+        p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+        p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+        p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+        p.setProperty(JdbcDBClient.JDBC_TTL_EXPIRY, "true");
+        p.setProperty(JdbcDBClient.JDBC_TTL_REAPER, "true");
+        p.setProperty(JdbcDBClient.JDBC_TTL_REAPER_INTERVAL, "50");
+        p.setProperty(JdbcDBClient.JDBC_TTL_REAPER_BATCH_SIZE, "2");
+        p.setProperty("table", META_TABLE_NAME);
+        Measurements.setProperties(p);
+        reapingClient.setProperties(p);
+        reapingClient.init();
+        try {
+            for (int i = 0; i < 5; i++) {
+                HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+                values.put("PUR", new StringByteIterator("ads"));
+                values.put("TTL", new StringByteIterator("1"));
+                assertEquals(Status.OK, reapingClient.insertTTL(META_TABLE_NAME, "key" + i, values, 1));
+            }
+            HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+            values.put("PUR", new StringByteIterator("ads"));
+            values.put("TTL", new StringByteIterator("0"));
+            assertEquals(Status.OK, reapingClient.insertTTL(META_TABLE_NAME, "kept", values, 0));
+
+            // let the records expire, the reaper deletes them during verifyTTL at the latest
+            Thread.sleep(1100);
+            assertEquals(Status.OK, reapingClient.verifyTTL(META_TABLE_NAME, 1));
+            ResultSet resultSet = jdbcConnection.prepareStatement(
+                String.format("SELECT %s, TTL FROM %s", KEY_FIELD, META_TABLE_NAME)).executeQuery();
+            assertTrue(resultSet.next());
+            assertEquals("Assert only the record without a TTL was left", "kept", resultSet.getString(1));
+            assertEquals(0, resultSet.getInt(2));
+            assertFalse(resultSet.next());
+            resultSet.close();
+        } finally {
+            reapingClient.cleanup();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void ttlWithoutReaperTest() throws SQLException, DBException, InterruptedException {
+        jdbcConnection.prepareStatement(String.format("DROP TABLE IF EXISTS %s", META_TABLE_NAME)).execute();
+        jdbcConnection.prepareStatement(String.format(
+            "CREATE TABLE %s (%s VARCHAR(100) PRIMARY KEY, TTL INTEGER, EXPIRY TIMESTAMP)",
+            META_TABLE_NAME, KEY_FIELD)).execute();
+
+        JdbcDBClient client = new JdbcDBClient();
+        Properties p = new Properties();
+        p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+        p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+        p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+        p.setProperty(JdbcDBClient.JDBC_TTL_EXPIRY, "true");
+        Measurements.setProperties(p);
+        client.setProperties(p);
+        client.init();
+        try {
+            // nothing expired yet, so there is nothing to wait for
+            assertEquals(Status.OK, client.verifyTTL(META_TABLE_NAME, 1));
+
+            HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+            values.put("TTL", new StringByteIterator("1"));
+            assertEquals(Status.OK, client.insertTTL(META_TABLE_NAME, "key0", values, 1));
+            Thread.sleep(1100);
+            assertEquals("Assert the wait for a reaper that does not run fails",
+                Status.ERROR, client.verifyTTL(META_TABLE_NAME, 1));
+        } finally {
+            client.cleanup();
+        }
+    }
+
+    @Test
+    public void ttlIgnoredByDefaultTest() throws SQLException, DBException {
+        jdbcConnection.prepareStatement(String.format("DROP TABLE IF EXISTS %s", META_TABLE_NAME)).execute();
+        jdbcConnection.prepareStatement(String.format(
+            "CREATE TABLE %s (%s VARCHAR(100) PRIMARY KEY, TTL INTEGER)", META_TABLE_NAME, KEY_FIELD)).execute();
+
+        JdbcDBClient client = new JdbcDBClient();
+        Properties p = new Properties();
+        p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+        p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+        p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+        client.setProperties(p);
+        client.init();
+        try {
+            // the table has no EXPIRY column to write to
+            HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+            values.put("TTL", new StringByteIterator("1"));
+            assertEquals(Status.OK, client.insertTTL(META_TABLE_NAME, "key0", values, 1));
+            assertEquals(Status.OK, client.verifyTTL(META_TABLE_NAME, 1));
+        } finally {
+            client.cleanup();
+        }
+
+        JdbcDBClient reapingClient = new JdbcDBClient();
+        p.setProperty(JdbcDBClient.JDBC_TTL_REAPER, "true");
+        reapingClient.setProperties(p);
+        try {
+            reapingClient.init();
+            fail("Assert a reaper without expiry timestamps is rejected");
+        } catch (DBException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void normalizedLayoutTest() throws SQLException, DBException {
+        // the tables are typed like JdbcDBCreateTable types them for the database
+        DBFlavor flavor = DBFlavor.fromJdbcUrl(TEST_DB_URL);
+        jdbcConnection.prepareStatement(String.format("DROP VIEW IF EXISTS %s", META_TABLE_NAME)).execute();
+        Map<String, List<String>> columnsByTable = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<NormalizedLayout.Part, List<String>> part
+            : NormalizedLayout.split(Arrays.asList("Data", "USR", "PUR", "OBJ")).entrySet()) {
+            String table = part.getKey().table(META_TABLE_NAME);
+            jdbcConnection.prepareStatement(String.format("DROP TABLE IF EXISTS %s", table)).execute();
+            jdbcConnection.prepareStatement(flavor.createTableStatement(table, part.getValue())).execute();
+            columnsByTable.put(table, part.getValue());
+        }
+        jdbcConnection.prepareStatement(flavor.createJoinedViewStatement(META_TABLE_NAME, columnsByTable)).execute();
+
+        JdbcDBClient normalizedClient = new JdbcDBClient();
+        Properties p = new Properties();
+        p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+        p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+        p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+        p.setProperty(JdbcDBClient.JDBC_LAYOUT, JdbcDBClient.JDBC_LAYOUT_NORMALIZED);
+        normalizedClient.setProperties(p);
+        normalizedClient.init();
+        try {
+            String[][] rows = {{"key0", "ads", "u0"}, {"key1", "ads", "u1"}, {"key2", "msg", "u0"}};
+            for (String[] row : rows) {
+                HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+                values.put("Data", new StringByteIterator("data of " + row[0]));
+                values.put("PUR", new StringByteIterator(row[1]));
+                values.put("USR", new StringByteIterator(row[2]));
+                values.put("OBJ", new StringByteIterator("none"));
+                assertEquals(Status.OK, normalizedClient.insert(META_TABLE_NAME, row[0], values));
+            }
+            assertEquals(3, countRows(NormalizedLayout.Part.DATA.table(META_TABLE_NAME)));
+            assertEquals(3, countRows(NormalizedLayout.Part.OWNER.table(META_TABLE_NAME)));
+
+            // reads join the tables back into the row
+            HashMap<String, ByteIterator> result = new HashMap<String, ByteIterator>();
+            Set<String> fields = new HashSet<String>(Arrays.asList("Data", "PUR", "USR"));
+            assertEquals(Status.OK, normalizedClient.read(META_TABLE_NAME, "key2", fields, result));
+            assertEquals("data of key2", result.get("Data").toString());
+
+            // the data field is not limited to the length of the metadata fields
+            StringBuilder large = new StringBuilder();
+            while (large.length() <= 1000) {
+                large.append("data of key2 ");
+            }
+            HashMap<String, ByteIterator> update = new HashMap<String, ByteIterator>();
+            update.put("Data", new StringByteIterator(large.toString()));
+            assertEquals(Status.OK, normalizedClient.update(META_TABLE_NAME, "key2", update));
+            result.clear();
+            assertEquals(Status.OK, normalizedClient.read(META_TABLE_NAME, "key2", fields, result));
+            assertEquals(large.toString(), result.get("Data").toString());
+            assertEquals("msg", result.get("PUR").toString());
+            assertEquals("u0", result.get("USR").toString());
+
+            // the records of the user are picked in the owner table and updated in the metadata table
+            assertEquals(Status.OK, normalizedClient.updateMeta(META_TABLE_NAME, 2, "u0", "key*", "OBJ", "allow"));
+            ResultSet resultSet = jdbcConnection.prepareStatement(String.format(
+                "SELECT COUNT(*) FROM %s WHERE OBJ = 'allow'", NormalizedLayout.Part.META.table(META_TABLE_NAME)))
+                .executeQuery();
+            assertTrue(resultSet.next());
+            assertEquals(2, resultSet.getInt(1));
+            resultSet.close();
+
+            // erasing the records of a purpose deletes them from every table
+            assertEquals(Status.OK, normalizedClient.deleteMeta(META_TABLE_NAME, 0, "ads", "key*"));
+            for (NormalizedLayout.Part part : NormalizedLayout.Part.values()) {
+                assertEquals("Assert only one record is left in " + part, 1, countRows(part.table(META_TABLE_NAME)));
+            }
+            Vector<HashMap<String, ByteIterator>> resultVector = new Vector<HashMap<String, ByteIterator>>();
+            assertEquals(Status.OK, normalizedClient.readMeta(META_TABLE_NAME, 2, "u0", "key*", resultVector));
+            assertEquals(1, resultVector.size());
+            assertEquals("msg", resultVector.get(0).get("PUR").toString());
+
+            assertEquals(Status.OK, normalizedClient.delete(META_TABLE_NAME, "key2"));
+            for (NormalizedLayout.Part part : NormalizedLayout.Part.values()) {
+                assertEquals(0, countRows(part.table(META_TABLE_NAME)));
+            }
+        } finally {
+            normalizedClient.cleanup();
+        }
+    }
+
+    private long countRows(String table) throws SQLException {
+        ResultSet resultSet = jdbcConnection.prepareStatement(
+            String.format("SELECT COUNT(*) FROM %s", table)).executeQuery();
+        try {
+            assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        } finally {
+            resultSet.close();
+        }
+    }
+
     @Test
     public void insertBatchTest() throws DBException {
       insertBatchTest(20);
@@ -378,6 +712,176 @@ public class JdbcDBClientTest {
       }
     }
 
+    @Test
+    public void deleteBatchTest() throws DBException {
+      teardown();
+      setupWithBatch(2, true);
+      try {
+        for (int i = 0; i < 4; i++) {
+          insertRow("user" + i);
+        }
+        assertNumRows(4);
+
+        // deletes are batched per statement like inserts
+        assertEquals(Status.BATCHED_OK, jdbcDBClient.delete(TABLE_NAME, "user0"));
+        assertNumRows(4);
+        assertEquals(Status.OK, jdbcDBClient.delete(TABLE_NAME, "user1"));
+        assertNumRows(2);
+        assertEquals(Status.BATCHED_OK, jdbcDBClient.delete(TABLE_NAME, "user2"));
+
+        // call cleanup, which should execute the partial batch
+        jdbcDBClient.cleanup();
+        jdbcDBClient = null;
+        assertNumRows(1);
+      } catch (SQLException e) {
+        e.printStackTrace();
+        fail("Failed deleteBatchTest");
+      } finally {
+        teardown(); // for next tests
+        setup();
+      }
+    }
+
+    @Test(timeout = 10000)
+    public void batchTimeoutTest() throws DBException, SQLException, InterruptedException {
+      JdbcDBClient batchClient = new JdbcDBClient();
+      Properties p = new Properties();
+      p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+      p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+      p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+      p.setProperty(JdbcDBClient.DB_BATCH_SIZE, "10");
+      p.setProperty(JdbcDBClient.JDBC_BATCH_UPDATES, "true");
+      p.setProperty(JdbcDBClient.JDBC_BATCH_TIMEOUT, "100");
+      batchClient.setProperties(p);
+      batchClient.init();
+      try {
+        HashMap<String, ByteIterator> insertMap = new HashMap<String, ByteIterator>();
+        insertMap.put(FIELD_PREFIX + 0, new StringByteIterator(buildDeterministicValue("user0", FIELD_PREFIX + 0)));
+        assertEquals(Status.BATCHED_OK, batchClient.insert(TABLE_NAME, "user0", insertMap));
+
+        // no other write follows, the batch is executed once it is older than the timeout all the same
+        while (countRows() == 0) {
+          Thread.sleep(20);
+        }
+        assertNumRows(1);
+      } finally {
+        batchClient.cleanup();
+      }
+    }
+
+    @Test
+    public void bulkLoadTest() throws DBException, SQLException {
+      JdbcDBClient bulkClient = new JdbcDBClient();
+      Properties p = new Properties();
+      p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+      p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+      p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+      p.setProperty(JdbcDBClient.JDBC_BULK_LOAD, "true");
+      p.setProperty(JdbcDBClient.JDBC_BULK_LOAD_SIZE, "2");
+      bulkClient.setProperties(p);
+      bulkClient.init();
+
+      for (int i = 0; i < 5; i++) {
+        HashMap<String, ByteIterator> insertMap = new HashMap<String, ByteIterator>();
+        for (int j = 0; j < NUM_FIELDS; j++) {
+          insertMap.put(FIELD_PREFIX + j, new StringByteIterator(buildDeterministicValue("user" + i, FIELD_PREFIX + j)));
+        }
+        assertEquals(i % 2 == 0 ? Status.BATCHED_OK : Status.OK, bulkClient.insert(TABLE_NAME, "user" + i, insertMap));
+      }
+      // two full loads of two rows, one row still buffered
+      assertNumRows(4);
+
+      bulkClient.cleanup();
+      assertNumRows(5);
+    }
+
+    @Test(timeout = 10000)
+    public void asyncPoolTest() throws DBException, SQLException {
+        JdbcDBClient asyncClient = new JdbcDBClient();
+        Properties p = new Properties();
+        p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+        p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+        p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+        p.setProperty(JdbcDBClient.JDBC_POOL_SIZE, "4");
+        asyncClient.setProperties(p);
+        asyncClient.init();
+
+        try {
+            List<CompletableFuture<Status>> pending = new ArrayList<CompletableFuture<Status>>();
+            for (int i = 0; i < 20; i++) {
+                HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+                values.put(FIELD_PREFIX + 0, new StringByteIterator("value" + i));
+                pending.add(asyncClient.insertAsync(TABLE_NAME, KEY_PREFIX + i, values).toCompletableFuture());
+            }
+            for (CompletableFuture<Status> insert : pending) {
+                assertEquals(Status.OK, insert.join());
+            }
+            assertNumRows(20);
+
+            HashMap<String, ByteIterator> result = new HashMap<String, ByteIterator>();
+            Set<String> fields = new HashSet<String>(Arrays.asList(FIELD_PREFIX + 0));
+            assertEquals(Status.OK, asyncClient.readAsync(TABLE_NAME, KEY_PREFIX + 7, fields, result)
+                .toCompletableFuture().join());
+            assertEquals("value7", result.get(FIELD_PREFIX + 0).toString());
+        } finally {
+            asyncClient.cleanup();
+        }
+    }
+
+    @Test
+    public void asyncWithoutPoolTest() {
+        // dedicated connections take one request at a time, so the request is done once issued
+        HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+        values.put(FIELD_PREFIX + 0, new StringByteIterator("value"));
+        CompletableFuture<Status> insert = jdbcDBClient.insertAsync(TABLE_NAME, KEY_PREFIX + 0, values)
+            .toCompletableFuture();
+        assertTrue(insert.isDone());
+        assertEquals(Status.OK, insert.join());
+    }
+
+    @Test
+    public void largeBulkLoadTest() throws DBException, SQLException {
+      // a full load of the default size binds more parameters than MySQL and PostgreSQL take per statement
+      int rows = Integer.parseInt(JdbcDBClient.JDBC_BULK_LOAD_SIZE_DEFAULT);
+      assertTrue(rows * (NUM_FIELDS + 1) > JdbcDBClient.MAX_BIND_PARAMETERS);
+      int perInsert = JdbcDBClient.rowsPerInsert(NUM_FIELDS + 1, rows);
+      assertTrue(perInsert * (NUM_FIELDS + 1) <= JdbcDBClient.MAX_BIND_PARAMETERS);
+      assertTrue(perInsert < rows);
+      assertEquals(1, JdbcDBClient.rowsPerInsert(JdbcDBClient.MAX_BIND_PARAMETERS + 1, rows));
+      assertEquals(2, JdbcDBClient.rowsPerInsert(NUM_FIELDS + 1, 2));
+
+      JdbcDBClient bulkClient = new JdbcDBClient();
+      Properties p = new Properties();
+      p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+      p.setProperty(JdbcDBClient.DRIVER_CLASS, TEST_DB_DRIVER);
+      p.setProperty(JdbcDBClient.CONNECTION_USER, TEST_DB_USER);
+      p.setProperty(JdbcDBClient.JDBC_BULK_LOAD, "true");
+      bulkClient.setProperties(p);
+      bulkClient.init();
+
+      try {
+        for (int i = 0; i < rows; i++) {
+          HashMap<String, ByteIterator> insertMap = new HashMap<String, ByteIterator>();
+          for (int j = 0; j < NUM_FIELDS; j++) {
+            insertMap.put(FIELD_PREFIX + j, new StringByteIterator("value" + i));
+          }
+          assertEquals(i < rows - 1 ? Status.BATCHED_OK : Status.OK,
+              bulkClient.insert(TABLE_NAME, "user" + i, insertMap));
+        }
+        assertNumRows(rows);
+      } finally {
+        bulkClient.cleanup();
+      }
+    }
+
+    private long countRows() throws SQLException {
+      try (ResultSet resultSet = jdbcConnection.prepareStatement(
+          String.format("SELECT COUNT(*) FROM %s", TABLE_NAME)).executeQuery()) {
+        resultSet.next();
+        return resultSet.getLong(1);
+      }
+    }
+
     private void assertNumRows(long numRows) throws SQLException {
       ResultSet resultSet = jdbcConnection.prepareStatement(
         String.format("SELECT * FROM %s", TABLE_NAME)
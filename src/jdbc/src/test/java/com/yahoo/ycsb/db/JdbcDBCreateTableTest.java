@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.ycsb.MultiValuedMetadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+public class JdbcDBCreateTableTest {
+  private static final String TEST_DB_URL = "jdbc:hsqldb:mem:ycsbcreate";
+  private static final String TABLE_NAME = "USERTABLE";
+
+  private Connection connection;
+
+  @Before
+  public void connect() throws SQLException {
+    connection = DriverManager.getConnection(TEST_DB_URL, "sa", "");
+  }
+
+  @After
+  public void disconnect() throws SQLException {
+    connection.close();
+  }
+
+  private static Properties properties() {
+    Properties p = new Properties();
+    p.setProperty(JdbcDBClient.CONNECTION_URL, TEST_DB_URL);
+    p.setProperty(JdbcDBClient.DRIVER_CLASS, "org.hsqldb.jdbc.JDBCDriver");
+    p.setProperty(JdbcDBClient.CONNECTION_USER, "sa");
+    return p;
+  }
+
+  private Map<String, Integer> columnTypes(String table) throws SQLException {
+    Map<String, Integer> types = new HashMap<String, Integer>();
+    ResultSet columns = connection.getMetaData().getColumns(null, null, table, null);
+    while (columns.next()) {
+      types.put(columns.getString("COLUMN_NAME"), columns.getInt("DATA_TYPE"));
+    }
+    columns.close();
+    return types;
+  }
+
+  private Set<String> indexedColumns(String table) throws SQLException {
+    Set<String> indexed = new HashSet<String>();
+    ResultSet indexes = connection.getMetaData().getIndexInfo(null, null, table, false, false);
+    while (indexes.next()) {
+      if (indexes.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic) {
+        indexed.add(indexes.getString("COLUMN_NAME"));
+      }
+    }
+    indexes.close();
+    return indexed;
+  }
+
+  @Test
+  public void typedTableTest() throws SQLException {
+    JdbcDBCreateTable.createTable(properties(), TABLE_NAME);
+
+    Map<String, Integer> types = columnTypes(TABLE_NAME);
+    assertEquals(12, types.size());
+    assertEquals(Types.VARCHAR, (int) types.get(JdbcDBClient.PRIMARY_KEY));
+    assertEquals(Types.VARCHAR, (int) types.get("DEC"));
+    assertEquals(Types.VARCHAR, (int) types.get("PUR"));
+    assertEquals(Types.INTEGER, (int) types.get("TTL"));
+    assertEquals(Types.TIMESTAMP, (int) types.get("EXPIRY"));
+    assertEquals(Types.CLOB, (int) types.get("DATA"));
+
+    Set<String> indexed = indexedColumns(TABLE_NAME);
+    assertTrue(indexed.contains("PUR"));
+    assertTrue(indexed.contains("USR"));
+    assertTrue(indexed.contains("EXPIRY"));
+    assertFalse(indexed.contains("DEC"));
+  }
+
+  @Test
+  public void multiValuedTableTest() throws SQLException {
+    Properties p = properties();
+    p.setProperty(MultiValuedMetadata.PURPOSE_MAX_VALUES_PROPERTY, "3");
+    p.setProperty(JdbcDBCreateTable.INDEXES_PROPERTY, "PUR,DEC");
+    JdbcDBCreateTable.createTable(p, TABLE_NAME);
+
+    // the sets are unbounded text, matched by a pattern no index serves
+    assertEquals(Types.CLOB, (int) columnTypes(TABLE_NAME).get("PUR"));
+    Set<String> indexed = indexedColumns(TABLE_NAME);
+    assertFalse(indexed.contains("PUR"));
+    assertTrue(indexed.contains("DEC"));
+
+    connection.prepareStatement("INSERT INTO " + TABLE_NAME + " (YCSB_KEY, PUR) VALUES ('user0', '"
+        + MultiValuedMetadata.encode(Arrays.asList("ads", "msg")) + "')").execute();
+    ResultSet result = connection.prepareStatement("SELECT YCSB_KEY FROM " + TABLE_NAME + " WHERE PUR LIKE '"
+        + MultiValuedMetadata.likePattern("msg") + "'").executeQuery();
+    assertTrue(result.next());
+    assertEquals("user0", result.getString(1));
+    result.close();
+  }
+
+  @Test
+  public void normalizedTablesTest() throws SQLException {
+    Properties p = properties();
+    p.setProperty(JdbcDBClient.JDBC_LAYOUT, JdbcDBClient.JDBC_LAYOUT_NORMALIZED);
+    JdbcDBCreateTable.createTable(p, TABLE_NAME);
+
+    int columns = 0;
+    for (NormalizedLayout.Part part : NormalizedLayout.Part.values()) {
+      String table = part.table(TABLE_NAME);
+      Map<String, Integer> types = columnTypes(table);
+      assertFalse("Assert " + table + " was created", types.isEmpty());
+      assertEquals(Types.VARCHAR, (int) types.get(JdbcDBClient.PRIMARY_KEY));
+      columns += types.size() - 1;
+      for (String column : indexedColumns(table)) {
+        assertTrue("Assert " + table + " only indexes its own columns", column.equals(JdbcDBClient.PRIMARY_KEY)
+            || types.containsKey(column));
+      }
+    }
+    assertEquals(JdbcDBCreateTable.COLUMNS.size() + 1, columns);
+    assertTrue(indexedColumns(NormalizedLayout.Part.OWNER.table(TABLE_NAME)).contains("USR"));
+
+    // the view joins the tables back into the table of the GDPR schema
+    assertEquals(12, columnTypes(TABLE_NAME).size());
+  }
+}
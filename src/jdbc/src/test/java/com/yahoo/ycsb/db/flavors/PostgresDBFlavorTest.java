@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db.flavors;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PostgresDBFlavorTest {
+
+  private static String readAll(Reader reader, int bufferSize) throws IOException {
+    StringBuilder text = new StringBuilder();
+    char[] buffer = new char[bufferSize];
+    int read;
+    while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+      text.append(buffer, 0, read);
+    }
+    return text.toString();
+  }
+
+  @Test
+  public void copyTextTest() throws IOException {
+    List<String[]> rows = Arrays.asList(
+        new String[] {"key0", "a\tb", null},
+        new String[] {"key1", "back\\slash", "two\nlines\r"});
+    String expected = "key0\ta\\tb\t\\N\n"
+        + "key1\tback\\\\slash\ttwo\\nlines\\r\n";
+
+    // however the driver sizes its reads, rows are neither lost nor split wrongly
+    for (int bufferSize : new int[] {1, 3, 8, 4096}) {
+      assertEquals(expected, readAll(new PostgresDBFlavor.CopyReader(rows), bufferSize));
+    }
+    assertEquals(-1, new PostgresDBFlavor.CopyReader(Collections.<String[]>emptyList()).read(new char[8], 0, 8));
+  }
+}
@@ -25,19 +25,37 @@
 package com.yahoo.ycsb.db;
 
 import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Client;
 import com.yahoo.ycsb.DB;
 import com.yahoo.ycsb.DBException;
+import com.yahoo.ycsb.LogTail;
+import com.yahoo.ycsb.MultiValuedMetadata;
 import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.StringByteIterator;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import redis.clients.jedis.BasicCommands;
 import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.HashSet;
@@ -46,9 +64,12 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.Vector;
-
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * YCSB binding for <a href="http://redis.io/">Redis</a>.
@@ -66,10 +87,134 @@ public class RedisClient extends DB {
 
   public static final String INDEX_KEY = "_indices";
 
+  /**
+   * Whether to maintain per-value secondary index sets for metadata fields.
+   * When enabled, meta operations on an indexed field resolve their candidate
+   * keys through the index set instead of scanning the whole keyspace.
+   */
+  public static final String META_INDEX_PROPERTY = "redis.metaindex";
+  public static final String META_INDEX_PROPERTY_DEFAULT = "true";
+
+  /**
+   * Comma separated list of metadata fields to index (default: PUR,USR).
+   */
+  public static final String META_INDEX_FIELDS_PROPERTY = "redis.metaindexfields";
+  public static final String META_INDEX_FIELDS_PROPERTY_DEFAULT = "PUR,USR";
+
+  /**
+   * Prefix of the secondary index sets. The set holding all keys whose field
+   * F has value V, or holds a set of values containing V, is named
+   * {@code META_INDEX_PREFIX + F + ":" + V}. It is a sorted set scored by the
+   * epoch millisecond each record expires at (infinity for records without a
+   * TTL), so that the entries of expired records can be dropped by score.
+   */
+  public static final String META_INDEX_PREFIX = "_meta:";
+
+  /**
+   * Set of the names of all index sets, so that they can be swept and counted
+   * without scanning the keyspace.
+   */
+  public static final String META_INDEX_REGISTRY = "_metaindex";
+
+  /**
+   * Whether to send the command groups of a single operation (e.g. the hmset,
+   * zadd and expire of an insert) and the per-record commands of meta
+   * operations as Jedis pipelines. In cluster mode single operations go
+   * through the JedisCluster unpipelined, and only the per-record commands of
+   * keyspace meta operations are pipelined, over the connection of each master.
+   */
+  public static final String PIPELINE_PROPERTY = "redis.pipeline";
+  public static final String PIPELINE_PROPERTY_DEFAULT = "false";
+
+  /**
+   * Maximum number of records a meta operation reads or writes per pipeline.
+   */
+  public static final String PIPELINE_DEPTH_PROPERTY = "redis.pipelinedepth";
+  public static final String PIPELINE_DEPTH_PROPERTY_DEFAULT = "100";
+
+  /**
+   * Whether pipelined writes are additionally wrapped in MULTI/EXEC.
+   */
+  public static final String PIPELINE_MULTI_PROPERTY = "redis.pipelinemulti";
+  public static final String PIPELINE_MULTI_PROPERTY_DEFAULT = "false";
+
+  /**
+   * Whether meta operations on fields without a secondary index evaluate the
+   * predicate (and apply the update or delete) in server-side Lua scripts
+   * instead of fetching every record. Ignored in cluster mode.
+   */
+  public static final String LUA_META_PROPERTY = "redis.luameta";
+  public static final String LUA_META_PROPERTY_DEFAULT = "false";
+
+  /**
+   * COUNT hint for each SCAN (or SSCAN of an index set) step of a meta
+   * operation.
+   */
+  public static final String SCAN_COUNT_PROPERTY = "redis.scancount";
+  public static final String SCAN_COUNT_PROPERTY_DEFAULT = "1000";
+
+  /**
+   * Whether client threads borrow their connection from a JedisPool shared by
+   * all threads instead of opening a dedicated one. Cluster mode always shares
+   * a single JedisCluster.
+   */
+  public static final String POOL_PROPERTY = "redis.pool";
+  public static final String POOL_PROPERTY_DEFAULT = "false";
+
+  /**
+   * Maximum number of connections of the shared pool, per node in cluster
+   * mode (default: twice the threadcount, as meta operations borrow extra
+   * connections for their fan-out).
+   */
+  public static final String POOL_SIZE_PROPERTY = "redis.poolsize";
+
+  /**
+   * Whether verifyTTL waits for expired keyspace notifications instead of
+   * polling DBSIZE, recording the expiration lag of every record. The lag can
+   * only be computed for records loaded with this property enabled, as their
+   * deadlines are kept in {@link RedisExpiryVerifier#EXPIRY_KEY}.
+   */
+  public static final String TTL_NOTIFY_PROPERTY = "redis.ttlnotify";
+  public static final String TTL_NOTIFY_PROPERTY_DEFAULT = "false";
+
+  /**
+   * Path of the append only file whose last lines readLog returns. It has to
+   * be readable by the client, i.e. the client runs on the Redis host.
+   */
+  public static final String LOG_PATH_PROPERTY = "redis.logpath";
+  public static final String LOG_PATH_PROPERTY_DEFAULT = "/home/cc/gdpr-redis.aof";
+
+  /*
+   * Connections shared by all client threads in pool and cluster mode, created
+   * by the first and closed by the last client thread.
+   */
+  private static final int CLUSTER_MAX_ATTEMPTS = 5;
+  private static final Object SHARED_LOCK = new Object();
+  private static int sharedReferences = 0;
+  private static JedisPool sharedPool;
+  private static JedisCluster sharedCluster;
+  private static List<JedisPool> clusterMasters;
+  private static ExecutorService fanout;
+
+  /*
+   * Index sets already added to the registry by this process.
+   */
+  private static final Set<String> REGISTERED_INDICES = ConcurrentHashMap.newKeySet();
+
   private static String[] fieldnames = {
       "PUR", "TTL", "USR", "OBJ", "DEC", "ACL", "SHR", "SRC", "CAT", "Data"
   };
 
+  private Set<String> indexedFields;
+  private boolean pipelineEnabled;
+  private boolean pipelineMulti;
+  private int pipelineDepth;
+  private boolean luaMeta;
+  private int scanCount;
+  private RedisExpiryVerifier expiryVerifier;
+  private Path logPath;
+  private Map<String, String> scriptShas = new HashMap<>();
+
   public void init() throws DBException {
     Properties props = getProperties();
     int port;
@@ -81,26 +226,129 @@ public class RedisClient extends DB {
       port = Protocol.DEFAULT_PORT;
     }
     String host = props.getProperty(HOST_PROPERTY);
+    String password = props.getProperty(PASSWORD_PROPERTY);
 
     boolean clusterEnabled = Boolean.parseBoolean(props.getProperty(CLUSTER_PROPERTY));
-    if (clusterEnabled) {
-      Set<HostAndPort> jedisClusterNodes = new HashSet<>();
-      jedisClusterNodes.add(new HostAndPort(host, port));
-      jedis = new JedisCluster(jedisClusterNodes);
+    boolean poolEnabled = Boolean.parseBoolean(props.getProperty(POOL_PROPERTY, POOL_PROPERTY_DEFAULT));
+    if (clusterEnabled || poolEnabled) {
+      synchronized (SHARED_LOCK) {
+        if (sharedReferences == 0) {
+          GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+          int threads = Integer.parseInt(props.getProperty(Client.THREAD_COUNT_PROPERTY, "1"));
+          poolConfig.setMaxTotal(Integer.parseInt(
+              props.getProperty(POOL_SIZE_PROPERTY, Integer.toString(2 * threads))));
+          if (clusterEnabled) {
+            createSharedCluster(new HostAndPort(host, port), password, poolConfig);
+          } else {
+            sharedPool = new JedisPool(poolConfig, host, port, Protocol.DEFAULT_TIMEOUT, password);
+          }
+        }
+        sharedReferences++;
+      }
+      jedis = clusterEnabled ? sharedCluster : sharedPool.getResource();
     } else {
       jedis = new Jedis(host, port);
       ((Jedis) jedis).connect();
+      if (password != null) {
+        ((BasicCommands) jedis).auth(password);
+      }
     }
 
-    String password = props.getProperty(PASSWORD_PROPERTY);
-    if (password != null) {
-      ((BasicCommands) jedis).auth(password);
+    boolean metaIndexEnabled = Boolean.parseBoolean(
+        props.getProperty(META_INDEX_PROPERTY, META_INDEX_PROPERTY_DEFAULT));
+    indexedFields = new HashSet<>();
+    if (metaIndexEnabled) {
+      for (String field : props.getProperty(META_INDEX_FIELDS_PROPERTY,
+          META_INDEX_FIELDS_PROPERTY_DEFAULT).split(",")) {
+        if (!field.trim().isEmpty()) {
+          indexedFields.add(field.trim());
+        }
+      }
     }
+
+    logPath = Paths.get(props.getProperty(LOG_PATH_PROPERTY, LOG_PATH_PROPERTY_DEFAULT));
+
+    pipelineEnabled = Boolean.parseBoolean(
+        props.getProperty(PIPELINE_PROPERTY, PIPELINE_PROPERTY_DEFAULT));
+    pipelineMulti = Boolean.parseBoolean(
+        props.getProperty(PIPELINE_MULTI_PROPERTY, PIPELINE_MULTI_PROPERTY_DEFAULT));
+    pipelineDepth = Integer.parseInt(
+        props.getProperty(PIPELINE_DEPTH_PROPERTY, PIPELINE_DEPTH_PROPERTY_DEFAULT));
+    if (pipelineDepth <= 0) {
+      throw new DBException(PIPELINE_DEPTH_PROPERTY + " must be positive");
+    }
+
+    luaMeta = Boolean.parseBoolean(
+        props.getProperty(LUA_META_PROPERTY, LUA_META_PROPERTY_DEFAULT)) && jedis instanceof Jedis;
+    scanCount = Integer.parseInt(
+        props.getProperty(SCAN_COUNT_PROPERTY, SCAN_COUNT_PROPERTY_DEFAULT));
+    if (scanCount <= 0) {
+      throw new DBException(SCAN_COUNT_PROPERTY + " must be positive");
+    }
+    if (Boolean.parseBoolean(props.getProperty(TTL_NOTIFY_PROPERTY, TTL_NOTIFY_PROPERTY_DEFAULT))) {
+      List<HostAndPort> nodes = new ArrayList<>();
+      if (clusterEnabled) {
+        for (JedisPool master : clusterMasters) {
+          try (Jedis node = master.getResource()) {
+            nodes.add(new HostAndPort(node.getClient().getHost(), node.getClient().getPort()));
+          }
+        }
+      } else {
+        nodes.add(new HostAndPort(host, port));
+      }
+      expiryVerifier = new RedisExpiryVerifier(nodes, password, scanCount, this::sweepAuxiliary);
+    }
+
+    if (luaMeta) {
+      for (String script : new String[] {
+          RedisLuaScripts.READ_META, RedisLuaScripts.UPDATE_META, RedisLuaScripts.DELETE_META}) {
+        scriptShas.put(script, ((Jedis) jedis).scriptLoad(script));
+      }
+    }
+  }
+
+  /*
+   * Connect to the cluster and find its masters, which keyspace scans and
+   * server commands have to be sent to individually.
+   */
+  private static void createSharedCluster(HostAndPort node, String password,
+      GenericObjectPoolConfig poolConfig) {
+    sharedCluster = new JedisCluster(Collections.singleton(node), Protocol.DEFAULT_TIMEOUT,
+        Protocol.DEFAULT_TIMEOUT, CLUSTER_MAX_ATTEMPTS, password, poolConfig);
+    clusterMasters = new ArrayList<>();
+    for (JedisPool pool : sharedCluster.getClusterNodes().values()) {
+      try (Jedis conn = pool.getResource()) {
+        if (conn.info("replication").contains("role:master")) {
+          clusterMasters.add(pool);
+        }
+      }
+    }
+    fanout = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "redis-fanout");
+        thread.setDaemon(true);
+        return thread;
+      });
   }
 
   public void cleanup() throws DBException {
     try {
-      ((Closeable) jedis).close();
+      if (jedis != sharedCluster) {
+        ((Closeable) jedis).close();
+      }
+      if (sharedPool != null || sharedCluster != null) {
+        synchronized (SHARED_LOCK) {
+          if (--sharedReferences == 0) {
+            if (sharedCluster != null) {
+              fanout.shutdown();
+              sharedCluster.close();
+              sharedCluster = null;
+            } else {
+              sharedPool.destroy();
+              sharedPool = null;
+            }
+          }
+        }
+      }
     } catch (IOException e) {
       throw new DBException("Closing connection failed.");
     }
@@ -116,6 +364,324 @@ public class RedisClient extends DB {
     return key.hashCode();
   }
 
+  static String metaIndexKey(String fieldname, String value) {
+    return META_INDEX_PREFIX + fieldname + ":" + value;
+  }
+
+  /*
+   * Score of a record in the index sets: the epoch millisecond it expires at,
+   * given its remaining time to live in milliseconds (negative for none) at
+   * the epoch millisecond now.
+   */
+  static double indexExpiry(long pttl, long now) {
+    return pttl < 0 ? Double.POSITIVE_INFINITY : now + pttl;
+  }
+
+  private static ScanResult<String> elements(ScanResult<Tuple> step) {
+    List<String> elements = new ArrayList<>(step.getResult().size());
+    for (Tuple tuple : step.getResult()) {
+      elements.add(tuple.getElement());
+    }
+    return new ScanResult<>(step.getStringCursor(), elements);
+  }
+
+  /*
+   * Pipelines need a single connection, so operations going through the
+   * JedisCluster always fall back to synchronous commands.
+   */
+  private boolean isPipelined(JedisCommands conn) {
+    return pipelineEnabled && conn instanceof Jedis;
+  }
+
+  private boolean isPipelined() {
+    return isPipelined(jedis);
+  }
+
+  private Pipeline pipeline(JedisCommands conn) {
+    Pipeline pipeline = ((Jedis) conn).pipelined();
+    if (pipelineMulti) {
+      pipeline.multi();
+    }
+    return pipeline;
+  }
+
+  private Pipeline pipeline() {
+    return pipeline(jedis);
+  }
+
+  private void sync(Pipeline pipeline) {
+    if (pipelineMulti) {
+      pipeline.exec();
+    }
+    pipeline.sync();
+  }
+
+  /*
+   * Add the key to the index set of every indexed field present in values,
+   * one per value of a multi-valued field, scored by the epoch millisecond the
+   * record expires at, through the pipeline if there is one.
+   */
+  private void addToMetaIndex(Pipeline pipeline, String key, Map<String, String> values, double expiry) {
+    for (String field : indexedFields) {
+      String stored = values.get(field);
+      if (stored == null) {
+        continue;
+      }
+      for (String value : MultiValuedMetadata.values(stored)) {
+        String indexKey = metaIndexKey(field, value);
+        boolean register = REGISTERED_INDICES.add(indexKey);
+        if (pipeline != null) {
+          pipeline.zadd(indexKey, expiry, key);
+          if (register) {
+            pipeline.sadd(META_INDEX_REGISTRY, indexKey);
+          }
+        } else {
+          jedis.zadd(indexKey, expiry, key);
+          if (register) {
+            jedis.sadd(META_INDEX_REGISTRY, indexKey);
+          }
+        }
+      }
+    }
+  }
+
+  /*
+   * Remove the key from the index sets of the given (current) field values,
+   * through the pipeline if there is one.
+   */
+  private void removeFromMetaIndex(Pipeline pipeline, String key, Map<String, String> values) {
+    for (String field : indexedFields) {
+      String stored = values.get(field);
+      if (stored == null) {
+        continue;
+      }
+      for (String value : MultiValuedMetadata.values(stored)) {
+        if (pipeline != null) {
+          pipeline.zrem(metaIndexKey(field, value), key);
+        } else {
+          jedis.zrem(metaIndexKey(field, value), key);
+        }
+      }
+    }
+  }
+
+  /*
+   * Look up the stored values of the indexed fields in fields (or of all
+   * indexed fields if fields is null), i.e. the index sets the key is in.
+   */
+  private Map<String, String> storedIndexValues(String key, Set<String> fields) {
+    Map<String, String> stored = new HashMap<>();
+    List<String> lookup = new ArrayList<>();
+    for (String field : indexedFields) {
+      if (fields == null || fields.contains(field)) {
+        lookup.add(field);
+      }
+    }
+    if (lookup.isEmpty()) {
+      return stored;
+    }
+    List<String> old = jedis.hmget(key, lookup.toArray(new String[lookup.size()]));
+    for (int i = 0; i < lookup.size(); i++) {
+      if (old.get(i) != null) {
+        stored.put(lookup.get(i), old.get(i));
+      }
+    }
+    return stored;
+  }
+
+  /*
+   * The body of a meta operation. It is handed the candidate keys in chunks of
+   * at most pipelineDepth keys, and the connection the per-record commands for
+   * them have to go to.
+   */
+  private interface MetaTask {
+    Status run(JedisCommands conn, Iterator<List<String>> chunks);
+  }
+
+  /*
+   * Run a meta operation on fieldname. With an index on fieldname the
+   * candidates come from a ZSCAN of the index set for cond, after the entries
+   * of expired records have been dropped from it; otherwise from a SCAN of the
+   * keyspace, and the task has to filter them. In cluster mode the keyspace is
+   * scanned on all masters in parallel, each with its own connection, and the
+   * task runs once per master.
+   */
+  private Status runMeta(String fieldname, String cond, String keymatch, MetaTask task) {
+    ScanParams params = new ScanParams().match(keymatch).count(scanCount);
+    if (indexedFields.contains(fieldname)) {
+      String indexKey = metaIndexKey(fieldname, cond);
+      jedis.zremrangeByScore(indexKey, "-inf", Long.toString(System.currentTimeMillis()));
+      return task.run(jedis, new RedisScanIterator(
+          cursor -> elements(jedis.zscan(indexKey, cursor, params)), pipelineDepth));
+    }
+    if (jedis instanceof Jedis) {
+      return task.run(jedis, new RedisScanIterator(
+          cursor -> ((Jedis) jedis).scan(cursor, params), pipelineDepth));
+    }
+
+    List<Future<Status>> partitions = new ArrayList<>();
+    for (JedisPool master : clusterMasters) {
+      partitions.add(fanout.submit(() -> {
+          try (Jedis node = master.getResource()) {
+            return task.run(node, new RedisScanIterator(
+                cursor -> node.scan(cursor, params), pipelineDepth));
+          }
+        }));
+    }
+    return merge(partitions);
+  }
+
+  /*
+   * Wait for the parts of a meta operation fanned out to the masters. The
+   * operation is OK only if every part is; a part that failed with an
+   * exception counts as an error.
+   */
+  static Status merge(List<Future<Status>> partitions) {
+    Status status = Status.OK;
+    for (Future<Status> partition : partitions) {
+      try {
+        if (!partition.get().isOk()) {
+          status = Status.ERROR;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return Status.ERROR;
+      } catch (ExecutionException e) {
+        status = Status.ERROR;
+      }
+    }
+    return status;
+  }
+
+  /*
+   * Fetch whole records for a chunk of candidate keys, in a single round trip
+   * when pipelining is enabled. Missing records come back as empty maps.
+   */
+  private List<Map<String, String>> readChunk(JedisCommands conn, List<String> keys) {
+    List<Map<String, String>> rows = new ArrayList<>(keys.size());
+    if (isPipelined(conn)) {
+      Pipeline pipeline = ((Jedis) conn).pipelined();
+      List<Response<Map<String, String>>> responses = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        responses.add(pipeline.hgetAll(key));
+      }
+      pipeline.sync();
+      for (Response<Map<String, String>> response : responses) {
+        rows.add(response.get());
+      }
+    } else {
+      for (String key : keys) {
+        rows.add(conn.hgetAll(key));
+      }
+    }
+    return rows;
+  }
+
+  /*
+   * The scores in the index sets of a chunk of records, from their remaining
+   * time to live read in a single round trip when pipelining is enabled.
+   */
+  private List<Double> readExpiries(JedisCommands conn, List<String> keys) {
+    List<Double> expiries = new ArrayList<>(keys.size());
+    long now = System.currentTimeMillis();
+    if (isPipelined(conn)) {
+      Pipeline pipeline = ((Jedis) conn).pipelined();
+      List<Response<Long>> responses = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        responses.add(pipeline.pttl(key));
+      }
+      pipeline.sync();
+      for (Response<Long> response : responses) {
+        expiries.add(indexExpiry(response.get(), now));
+      }
+    } else {
+      for (String key : keys) {
+        expiries.add(indexExpiry(conn.pttl(key), now));
+      }
+    }
+    return expiries;
+  }
+
+  /*
+   * Returns true if the record still satisfies the predicate. Index entries of
+   * records that have expired or been deleted in the meantime are dropped here (only
+   * index lookups run on the client's own connection, so this is safe from
+   * fan-out threads).
+   */
+  private boolean matches(String key, Map<String, String> row, String fieldname, String cond) {
+    if (row.isEmpty()) {
+      if (indexedFields.contains(fieldname)) {
+        jedis.zrem(metaIndexKey(fieldname, cond), key);
+      }
+      return false;
+    }
+    return MultiValuedMetadata.matches(row.get(fieldname), cond);
+  }
+
+  private boolean isLuaMeta(String fieldname) {
+    return luaMeta && !indexedFields.contains(fieldname);
+  }
+
+  /*
+   * EVALSHA a meta script, loading it again if the script cache was flushed.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Object> evalScript(String script, List<String> keys, List<String> args) {
+    Jedis conn = (Jedis) jedis;
+    try {
+      return (List<Object>) conn.evalsha(scriptShas.get(script), keys, args);
+    } catch (JedisNoScriptException e) {
+      scriptShas.put(script, conn.scriptLoad(script));
+      return (List<Object>) conn.evalsha(scriptShas.get(script), keys, args);
+    }
+  }
+
+  /*
+   * Run one of the meta scripts over the whole keyspace, one SCAN step per
+   * call. Extra arguments follow the common ones; the replies of all steps are
+   * returned with their cursors stripped.
+   */
+  private List<Object> evalMetaScript(String script, String fieldname, String cond, String keymatch,
+      List<String> keys, String... extra) {
+    return scanSteps(cursor -> {
+        List<String> args = new ArrayList<>(Arrays.asList(
+            cursor, keymatch, Integer.toString(scanCount), fieldname, cond));
+        args.addAll(Arrays.asList(extra));
+        return evalScript(script, keys, args);
+      });
+  }
+
+  /*
+   * Run steps replying with the next cursor followed by their results, from
+   * the start cursor until the cursor comes back to it, and return the results
+   * of all steps.
+   */
+  static List<Object> scanSteps(Function<String, List<Object>> step) {
+    List<Object> replies = new ArrayList<>();
+    String cursor = ScanParams.SCAN_POINTER_START;
+    do {
+      List<Object> reply = step.apply(cursor);
+      cursor = (String) reply.get(0);
+      replies.addAll(reply.subList(1, reply.size()));
+    } while (!cursor.equals(ScanParams.SCAN_POINTER_START));
+    return replies;
+  }
+
+  /*
+   * Positions within a chunk of the records that satisfy the predicate. This
+   * is evaluated before any write pipeline is opened on the connection.
+   */
+  private List<Integer> matching(List<String> chunk, List<Map<String, String>> rows,
+      String fieldname, String cond) {
+    List<Integer> hits = new ArrayList<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      if (matches(chunk.get(i), rows.get(i), fieldname, cond)) {
+        hits.add(i);
+      }
+    }
+    return hits;
+  }
+
   // XXX jedis.select(int index) to switch to `table`
 
   @Override
@@ -141,44 +707,85 @@ public class RedisClient extends DB {
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public Status readMeta(String table, int fieldnum, String cond, String keymatch,
       Vector<HashMap<String, ByteIterator>> result) {
-    Set<String> keys = ((Jedis) jedis).keys(keymatch);
-    HashSet<String> fields = null;
-    HashMap<String, ByteIterator> values;
     String fieldname = fieldnames[fieldnum];
-
-    for (String key : keys) {
-      values = new HashMap<String, ByteIterator>();
-      read(table, key, fields, values);
-      if (!values.isEmpty() && values.get(fieldname).toString().equals(cond)) {
-        //System.out.println("Found key: "+ key + " matching cond " + cond + " fieldname: " + fieldname);
+    if (isLuaMeta(fieldname)) {
+      for (Object row : evalMetaScript(RedisLuaScripts.READ_META, fieldname, cond, keymatch,
+          Collections.<String>emptyList())) {
+        List<String> flat = (List<String>) row;
+        HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+          values.put(flat.get(i), new StringByteIterator(flat.get(i + 1)));
+        }
         result.add(values);
       }
+      return Status.OK;
     }
-
-    return Status.OK;
+    return runMeta(fieldname, cond, keymatch, (conn, chunks) -> {
+        while (chunks.hasNext()) {
+          List<String> chunk = chunks.next();
+          List<Map<String, String>> rows = readChunk(conn, chunk);
+          for (int i : matching(chunk, rows, fieldname, cond)) {
+            //System.out.println("Found key: "+ key + " matching cond " + cond + " fieldname: " + fieldname);
+            HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+            StringByteIterator.putAllAsByteIterators(values, rows.get(i));
+            result.add(values);
+          }
+        }
+        return Status.OK;
+      });
   }
 
   @Override
   public Status insert(String table, String key,
       Map<String, ByteIterator> values) {
-    if (jedis.hmset(key, StringByteIterator.getStringMap(values))
-        .equals("OK")) {
-      jedis.zadd(INDEX_KEY, hash(key), key);
-      return Status.OK;
-    }
-    return Status.ERROR;
+    return insertTTL(table, key, values, 0);
+  }
+
+  /*
+   * Epoch millisecond a record inserted now with the given TTL expires at.
+   */
+  private static double deadline(int ttl) {
+    return System.currentTimeMillis() + ttl * 1000L;
   }
 
   @Override
   public Status insertTTL(String table, String key,
       Map<String, ByteIterator> values, int ttl) {
-    if (jedis.hmset(key, StringByteIterator.getStringMap(values))
-        .equals("OK")) {
+    Map<String, String> stringValues = StringByteIterator.getStringMap(values);
+    // a record inserted again leaves the index sets of the values it overwrites
+    Map<String, String> stored = storedIndexValues(key, stringValues.keySet());
+    double expiry = ttl != 0 ? deadline(ttl) : Double.POSITIVE_INFINITY;
+    if (isPipelined()) {
+      Pipeline pipeline = pipeline();
+      removeFromMetaIndex(pipeline, key, stored);
+      Response<String> response = pipeline.hmset(key, stringValues);
+      pipeline.zadd(INDEX_KEY, hash(key), key);
+      addToMetaIndex(pipeline, key, stringValues, expiry);
+      if (ttl != 0)  {
+        pipeline.expire(key, ttl);
+        if (expiryVerifier != null) {
+          pipeline.zadd(RedisExpiryVerifier.EXPIRY_KEY, deadline(ttl), key);
+        }
+      }
+      try {
+        sync(pipeline);
+        return "OK".equals(response.get()) ? Status.OK : Status.ERROR;
+      } catch (JedisDataException e) {
+        return Status.ERROR;
+      }
+    }
+    removeFromMetaIndex(null, key, stored);
+    if (jedis.hmset(key, stringValues).equals("OK")) {
       jedis.zadd(INDEX_KEY, hash(key), key);
+      addToMetaIndex(null, key, stringValues, expiry);
       if (ttl != 0)  {
         jedis.expire(key, ttl);
+        if (expiryVerifier != null) {
+          jedis.zadd(RedisExpiryVerifier.EXPIRY_KEY, deadline(ttl), key);
+        }
       }
       return Status.OK;
     }
@@ -187,60 +794,181 @@ public class RedisClient extends DB {
 
   @Override
   public Status delete(String table, String key) {
+    Map<String, String> stored = storedIndexValues(key, null);
+    if (isPipelined()) {
+      Pipeline pipeline = pipeline();
+      removeFromMetaIndex(pipeline, key, stored);
+      Response<Long> deleted = pipeline.del(key);
+      Response<Long> unindexed = pipeline.zrem(INDEX_KEY, key);
+      if (expiryVerifier != null) {
+        pipeline.zrem(RedisExpiryVerifier.EXPIRY_KEY, key);
+      }
+      try {
+        sync(pipeline);
+        return deleted.get() == 0 && unindexed.get() == 0 ? Status.ERROR : Status.OK;
+      } catch (JedisDataException e) {
+        return Status.ERROR;
+      }
+    }
+    removeFromMetaIndex(null, key, stored);
+    if (expiryVerifier != null) {
+      jedis.zrem(RedisExpiryVerifier.EXPIRY_KEY, key);
+    }
     return jedis.del(key) == 0 && jedis.zrem(INDEX_KEY, key) == 0 ? Status.ERROR
         : Status.OK;
   }
 
   @Override
   public Status deleteMeta(String table, int fieldnum, String condition, String keymatch) {
-    Set<String> keys = ((Jedis) jedis).keys(keymatch);
+    String fieldname = fieldnames[fieldnum];
+    if (isLuaMeta(fieldname)) {
+      List<String> extra = new ArrayList<>();
+      extra.add(META_INDEX_PREFIX);
+      extra.addAll(indexedFields);
+      evalMetaScript(RedisLuaScripts.DELETE_META, fieldname, condition, keymatch,
+          Arrays.asList(INDEX_KEY, RedisExpiryVerifier.EXPIRY_KEY), extra.toArray(new String[extra.size()]));
+      return Status.OK;
+    }
     //System.out.println("deleteMeta got called - returned "+ keys.size());
 
-    HashSet<String> fields = null;
-    HashMap<String, ByteIterator> values;
-    String fieldname = fieldnames[fieldnum];
-    
-    for (String key : keys) {
-      values = new HashMap<String, ByteIterator>();
-      read(table, key, fields, values);
-      if (!values.isEmpty() && values.get(fieldname).toString().equals(condition)) {
-        if (jedis.del(key) == 0 && jedis.zrem(INDEX_KEY, key) == 0) {
-          return Status.ERROR;
+    return runMeta(fieldname, condition, keymatch, (conn, chunks) -> {
+        while (chunks.hasNext()) {
+          List<String> chunk = chunks.next();
+          List<Map<String, String>> rows = readChunk(conn, chunk);
+          List<Integer> hits = matching(chunk, rows, fieldname, condition);
+          if (isPipelined(conn)) {
+            Pipeline pipeline = pipeline(conn);
+            // index sets and the scan index may live on other cluster nodes
+            Pipeline local = conn == jedis ? pipeline : null;
+            List<Response<Long>> deleted = new ArrayList<>();
+            List<Response<Long>> unindexed = new ArrayList<>();
+            for (int i : hits) {
+              String key = chunk.get(i);
+              removeFromMetaIndex(local, key, rows.get(i));
+              deleted.add(pipeline.del(key));
+              if (local != null) {
+                unindexed.add(local.zrem(INDEX_KEY, key));
+                if (expiryVerifier != null) {
+                  local.zrem(RedisExpiryVerifier.EXPIRY_KEY, key);
+                }
+              }
+            }
+            try {
+              sync(pipeline);
+              for (int j = 0; j < hits.size(); j++) {
+                if (local == null && expiryVerifier != null) {
+                  jedis.zrem(RedisExpiryVerifier.EXPIRY_KEY, chunk.get(hits.get(j)));
+                }
+                long removed = local != null ? unindexed.get(j).get()
+                    : jedis.zrem(INDEX_KEY, chunk.get(hits.get(j)));
+                if (deleted.get(j).get() == 0 && removed == 0) {
+                  return Status.ERROR;
+                }
+              }
+            } catch (JedisDataException e) {
+              return Status.ERROR;
+            }
+          } else {
+            for (int i : hits) {
+              String key = chunk.get(i);
+              removeFromMetaIndex(null, key, rows.get(i));
+              if (expiryVerifier != null) {
+                jedis.zrem(RedisExpiryVerifier.EXPIRY_KEY, key);
+              }
+              if (conn.del(key) == 0 && jedis.zrem(INDEX_KEY, key) == 0) {
+                return Status.ERROR;
+              }
+            }
+          }
         }
-      }
-    }
-    
-    return Status.OK;    
+        return Status.OK;
+      });
   }
 
   @Override
   public Status update(String table, String key,
       Map<String, ByteIterator> values) {
-    return jedis.hmset(key, StringByteIterator.getStringMap(values))
-        .equals("OK") ? Status.OK : Status.ERROR;
+    Map<String, String> stringValues = StringByteIterator.getStringMap(values);
+    Map<String, String> stored = storedIndexValues(key, stringValues.keySet());
+    double expiry = Collections.disjoint(indexedFields, stringValues.keySet()) ? 0
+        : indexExpiry(jedis.pttl(key), System.currentTimeMillis());
+    if (isPipelined()) {
+      Pipeline pipeline = pipeline();
+      removeFromMetaIndex(pipeline, key, stored);
+      Response<String> response = pipeline.hmset(key, stringValues);
+      addToMetaIndex(pipeline, key, stringValues, expiry);
+      try {
+        sync(pipeline);
+        return "OK".equals(response.get()) ? Status.OK : Status.ERROR;
+      } catch (JedisDataException e) {
+        return Status.ERROR;
+      }
+    }
+    removeFromMetaIndex(null, key, stored);
+    if (jedis.hmset(key, stringValues).equals("OK")) {
+      addToMetaIndex(null, key, stringValues, expiry);
+      return Status.OK;
+    }
+    return Status.ERROR;
   }
 
   @Override
   public Status updateMeta(String table, int fieldnum, String condition, 
       String keymatch, String newfieldname, String newmetadatavalue) {
     //System.out.println("HELLO updateMeta got called with startkey "+ startkey);
-    Set<String> keys = ((Jedis) jedis).keys(keymatch);
-    HashSet<String> fields = null;
-    HashMap<String, ByteIterator> values;
     String fieldname = fieldnames[fieldnum];
-    
-    for (String key : keys) {
-      values = new HashMap<String, ByteIterator>();
-      read(table, key, fields, values);
-      if (!values.isEmpty() && values.get(fieldname).toString().equals(condition)) {
-        values.put(newfieldname, new StringByteIterator(newmetadatavalue));
-        jedis.hmset(key, StringByteIterator.getStringMap(values));
-        //System.err.println("Found key: " + key + " with matching cond: "+ condition +
-        //    "new field name: " + newfieldname + " new value: " + newmetadatavalue);
-      }
+    boolean reindex = indexedFields.contains(newfieldname);
+    if (isLuaMeta(fieldname)) {
+      evalMetaScript(RedisLuaScripts.UPDATE_META, fieldname, condition, keymatch,
+          Collections.<String>emptyList(), newfieldname, newmetadatavalue,
+          reindex ? META_INDEX_PREFIX + newfieldname + ":" : "",
+          Long.toString(System.currentTimeMillis()), META_INDEX_REGISTRY);
+      return Status.OK;
     }
-
-    return Status.OK;
+    return runMeta(fieldname, condition, keymatch, (conn, chunks) -> {
+        while (chunks.hasNext()) {
+          List<String> chunk = chunks.next();
+          List<Map<String, String>> rows = readChunk(conn, chunk);
+          List<Integer> hits = matching(chunk, rows, fieldname, condition);
+          List<Double> expiries = null;
+          if (reindex) {
+            List<String> keys = new ArrayList<>(hits.size());
+            for (int i : hits) {
+              keys.add(chunk.get(i));
+            }
+            expiries = readExpiries(conn, keys);
+          }
+          Pipeline pipeline = isPipelined(conn) ? pipeline(conn) : null;
+          // index sets may live on other cluster nodes
+          Pipeline local = conn == jedis ? pipeline : null;
+          for (int n = 0; n < hits.size(); n++) {
+            int i = hits.get(n);
+            String key = chunk.get(i);
+            if (reindex) {
+              Map<String, String> old = Collections.singletonMap(newfieldname, rows.get(i).get(newfieldname));
+              removeFromMetaIndex(local, key, old);
+            }
+            if (pipeline != null) {
+              pipeline.hset(key, newfieldname, newmetadatavalue);
+            } else {
+              conn.hset(key, newfieldname, newmetadatavalue);
+            }
+            if (reindex) {
+              addToMetaIndex(local, key, Collections.singletonMap(newfieldname, newmetadatavalue), expiries.get(n));
+            }
+            //System.err.println("Found key: " + key + " with matching cond: "+ condition +
+            //    "new field name: " + newfieldname + " new value: " + newmetadatavalue);
+          }
+          if (pipeline != null) {
+            try {
+              sync(pipeline);
+            } catch (JedisDataException e) {
+              return Status.ERROR;
+            }
+          }
+        }
+        return Status.OK;
+      });
   }
 
   @Override
@@ -259,53 +987,108 @@ public class RedisClient extends DB {
     return Status.OK;
   }
 
+  /*
+   * Number of keys in the database, summed over all masters in cluster mode.
+   */
+  private long dbSize() {
+    if (jedis instanceof Jedis) {
+      return ((Jedis) jedis).dbSize();
+    }
+    long size = 0;
+    for (JedisPool master : clusterMasters) {
+      try (Jedis node = master.getResource()) {
+        size += node.dbSize();
+      }
+    }
+    return size;
+  }
+
+  /*
+   * Drop the entries of expired records from all index sets and count the
+   * auxiliary keys (the index sets, their registry, the scan index and the
+   * expiry set) that exist, as the key count of the database includes them.
+   * Only the registered index sets are looked at, never the whole keyspace; in
+   * cluster mode each of them takes its own round trips.
+   */
+  long sweepAuxiliary() {
+    String now = Long.toString(System.currentTimeMillis());
+    Set<String> indices = jedis.smembers(META_INDEX_REGISTRY);
+    List<String> keys = new ArrayList<>(indices);
+    keys.addAll(Arrays.asList(INDEX_KEY, RedisExpiryVerifier.EXPIRY_KEY, META_INDEX_REGISTRY));
+    long count = 0;
+    if (jedis instanceof Jedis) {
+      Pipeline pipeline = ((Jedis) jedis).pipelined();
+      for (String index : indices) {
+        pipeline.zremrangeByScore(index, "-inf", now);
+      }
+      List<Response<Boolean>> exist = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        exist.add(pipeline.exists(key));
+      }
+      pipeline.sync();
+      for (Response<Boolean> response : exist) {
+        if (response.get()) {
+          count++;
+        }
+      }
+    } else {
+      for (String index : indices) {
+        jedis.zremrangeByScore(index, "-inf", now);
+      }
+      for (String key : keys) {
+        if (jedis.exists(key)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  private void bgrewriteaof() {
+    if (jedis instanceof Jedis) {
+      ((Jedis) jedis).bgrewriteaof();
+      return;
+    }
+    for (JedisPool master : clusterMasters) {
+      try (Jedis node = master.getResource()) {
+        node.bgrewriteaof();
+      }
+    }
+  }
+
   @Override
   public Status verifyTTL(String table, long recordcount) {
-    long keys = ((Jedis)jedis).dbSize();
-    recordcount++;
-    while (keys > recordcount) {
+    if (expiryVerifier != null) {
+      try {
+        expiryVerifier.verify(jedis, recordcount);
+        return Status.OK;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return Status.ERROR;
+      } catch (JedisException e) {
+        return Status.ERROR;
+      }
+    }
+    long records = dbSize() - sweepAuxiliary();
+    while (records > recordcount) {
       //Pause for 1 seconds
       try { 
         Thread.sleep(1000);
       } catch (InterruptedException e) {
         System.out.println(e);
       }
-      keys = ((Jedis)jedis).dbSize();
+      records = dbSize() - sweepAuxiliary();
     }
     return Status.OK;
   }
 
   @Override
   public Status readLog(String table, int logcount) {
-
-    ((BasicCommands)jedis).bgrewriteaof();
-    
-    String s = null, query;
+    bgrewriteaof();
     try {
-      // using the Runtime exec method:
-      query = "tail -n " + logcount + " /home/cc/gdpr-redis.aof";
-      Process p = Runtime.getRuntime().exec(query);
-          
-      BufferedReader stdInput = new BufferedReader(new 
-           InputStreamReader(p.getInputStream()));
-
-      BufferedReader stdError = new BufferedReader(new 
-           InputStreamReader(p.getErrorStream()));
-
-      // read the output from the command
-      while ((s = stdInput.readLine()) != null) {
-        System.out.println(s);
-      }
-      // read any errors from the attempted command
-      while ((s = stdError.readLine()) != null) {
-        System.out.println(s);
-      }
-
-      return Status.OK;
-
+      return LogTail.tail(logPath, logcount).isEmpty() ? Status.NOT_FOUND : Status.OK;
     } catch (IOException e) {
-      System.out.println("exception happened - here's what I know: ");
-      e.printStackTrace();
+      System.err.println("Error reading the append only file " + logPath + ": " + e);
       return Status.ERROR;
     }
   }
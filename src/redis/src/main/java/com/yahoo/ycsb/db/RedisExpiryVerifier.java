@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2012 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * TTL compliance verification driven by keyspace notifications.
+ *
+ * Instead of polling DBSIZE, the verifier subscribes to the expired events of
+ * every node and counts records down as Redis reports them gone. For every
+ * expired record whose deadline was recorded in {@link #EXPIRY_KEY} at insert
+ * time, the difference between the arrival of the event and the deadline is
+ * recorded in the {@link #LAG_MEASUREMENT} measurement (in microseconds), i.e.
+ * how long personal data outlived its TTL. Both measurements of the verifier
+ * are kept in HdrHistograms whatever the measurement type, so that their
+ * percentiles are reported.
+ */
+class RedisExpiryVerifier {
+
+  /**
+   * Sorted set of the keys inserted with a TTL, scored by the epoch
+   * millisecond they are due to expire at.
+   */
+  static final String EXPIRY_KEY = "_expiry";
+
+  /**
+   * Measurement holding the expiration lag of individual records.
+   */
+  static final String LAG_MEASUREMENT = "TTL-EXPIRY-LAG";
+
+  /**
+   * Measurement holding the time each verifyTTL call took until the database
+   * was compliant.
+   */
+  static final String COMPLIANCE_MEASUREMENT = "TTL-COMPLIANCE";
+
+  private static final String EXPIRED_PATTERN = "__keyevent@*__:expired";
+  private static final String NOTIFY_CONFIG = "notify-keyspace-events";
+
+  /*
+   * Keys of auxiliary structures (index sets, the expiry set, ...) all start
+   * with this prefix, so that their events can be told apart from those of
+   * records.
+   */
+  private static final String AUXILIARY_PREFIX = "_";
+
+  /*
+   * Without any event for this long the remaining records are counted again,
+   * in case notifications were lost (pub/sub is fire and forget).
+   */
+  private static final long RESYNC_MILLIS = 1000;
+
+  /*
+   * Only one client thread waits for expirations at a time; the others find
+   * the database already compliant once they get the lock.
+   */
+  private static final Object VERIFY_LOCK = new Object();
+
+  /**
+   * A key reported expired and the epoch millisecond the report arrived.
+   */
+  private static final class Expired {
+    private final String key;
+    private final long received;
+
+    Expired(String key, long received) {
+      this.key = key;
+      this.received = received;
+    }
+  }
+
+  private final List<HostAndPort> nodes;
+  private final String password;
+  private final int scanCount;
+  private final LongSupplier auxiliary;
+  private final BlockingQueue<Expired> events = new LinkedBlockingQueue<>();
+
+  /**
+   * @param scanCount The most expired keys whose deadlines are looked up at once.
+   * @param auxiliary Counts the auxiliary keys on all nodes, which are left out of the key count. It is called
+   *        whenever the records are counted, as the auxiliary keys come and go (e.g. the expiry set is removed
+   *        once it is drained), and must not scan the keyspace.
+   */
+  RedisExpiryVerifier(List<HostAndPort> nodes, String password, int scanCount, LongSupplier auxiliary) {
+    this.nodes = nodes;
+    this.password = password;
+    this.scanCount = scanCount;
+    this.auxiliary = auxiliary;
+  }
+
+  /**
+   * Block until at most {@code recordcount} records are left.
+   *
+   * @param deadlines The connection the deadlines in {@link #EXPIRY_KEY} are
+   *        looked up and removed through.
+   * @param recordcount The number of records the database is compliant at.
+   * @throws JedisException If a node cannot be reached or its subscription
+   *         fails, as the expirations on it would go unmeasured.
+   */
+  void verify(JedisCommands deadlines, long recordcount) throws InterruptedException {
+    long start = System.nanoTime();
+    synchronized (VERIFY_LOCK) {
+      List<Jedis> commands = new ArrayList<>();
+      List<JedisPubSub> subscriptions = new ArrayList<>();
+      AtomicReference<JedisException> failure = new AtomicReference<>();
+      try {
+        for (HostAndPort node : nodes) {
+          commands.add(connect(node));
+        }
+        for (Jedis conn : commands) {
+          enableNotifications(conn);
+        }
+        subscribe(subscriptions, failure);
+
+        long remaining = countRecords(commands);
+        while (remaining > recordcount) {
+          checkSubscriptions(failure);
+          Expired first = events.poll(RESYNC_MILLIS, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            remaining = countRecords(commands);
+            continue;
+          }
+          List<Expired> batch = new ArrayList<>();
+          batch.add(first);
+          events.drainTo(batch, scanCount - 1);
+          recordLag(deadlines, batch);
+          remaining -= batch.size();
+        }
+      } finally {
+        for (JedisPubSub subscription : subscriptions) {
+          if (subscription.isSubscribed()) {
+            subscription.punsubscribe();
+          }
+        }
+        for (Jedis conn : commands) {
+          conn.close();
+        }
+        events.clear();
+      }
+    }
+    Measurements.getMeasurements().measureHdrHistogram(COMPLIANCE_MEASUREMENT,
+        (int) ((System.nanoTime() - start) / 1000));
+  }
+
+  private static void checkSubscriptions(AtomicReference<JedisException> failure) {
+    JedisException e = failure.get();
+    if (e != null) {
+      System.err.println("Expired events of a node are lost, cannot verify the TTLs: " + e);
+      throw e;
+    }
+  }
+
+  private Jedis connect(HostAndPort node) {
+    Jedis conn = new Jedis(node.getHost(), node.getPort());
+    conn.connect();
+    if (password != null) {
+      conn.auth(password);
+    }
+    return conn;
+  }
+
+  /*
+   * Expired events are off by default; add them to whatever else the server
+   * is configured to publish.
+   */
+  private static void enableNotifications(Jedis conn) {
+    List<String> config = conn.configGet(NOTIFY_CONFIG);
+    String flags = config.size() > 1 ? config.get(1) : "";
+    String enabled = notifyFlags(flags);
+    if (!enabled.equals(flags)) {
+      conn.configSet(NOTIFY_CONFIG, enabled);
+    }
+  }
+
+  /**
+   * The notify-keyspace-events flags that publish expired key events in
+   * addition to the given ones.
+   */
+  static String notifyFlags(String flags) {
+    boolean keyevents = flags.contains("E");
+    boolean expired = flags.contains("x") || flags.contains("A");
+    return flags + (keyevents ? "" : "E") + (expired ? "" : "x");
+  }
+
+  private long countRecords(List<Jedis> commands) {
+    long size = 0;
+    for (Jedis conn : commands) {
+      size += conn.dbSize();
+    }
+    return size - auxiliary.getAsLong();
+  }
+
+  /*
+   * Start one subscriber thread per node and wait until all subscriptions are
+   * active, so that no expiration after this point goes unnoticed. A
+   * subscription that fails, at once or later, leaves its exception in the
+   * failure.
+   */
+  private void subscribe(List<JedisPubSub> subscriptions, AtomicReference<JedisException> failure)
+      throws InterruptedException {
+    CountDownLatch subscribed = new CountDownLatch(nodes.size());
+    for (HostAndPort node : nodes) {
+      JedisPubSub subscription = new JedisPubSub() {
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+          subscribed.countDown();
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String key) {
+          if (!key.startsWith(AUXILIARY_PREFIX)) {
+            events.add(new Expired(key, System.currentTimeMillis()));
+          }
+        }
+      };
+      subscriptions.add(subscription);
+      Thread thread = new Thread(() -> {
+          try (Jedis conn = connect(node)) {
+            conn.psubscribe(subscription, EXPIRED_PATTERN);
+          } catch (JedisException e) {
+            failure.compareAndSet(null, e);
+            subscribed.countDown();
+          }
+        }, "redis-expired-" + node);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    subscribed.await();
+    checkSubscriptions(failure);
+  }
+
+  /*
+   * Look up the deadlines of a batch of expired keys (in one pipeline where
+   * possible), record their lag and drop them from the expiry set.
+   */
+  private static void recordLag(JedisCommands deadlines, List<Expired> batch) {
+    String[] keys = new String[batch.size()];
+    List<Double> scores = new ArrayList<>(batch.size());
+    if (deadlines instanceof Jedis) {
+      Pipeline pipeline = ((Jedis) deadlines).pipelined();
+      List<Response<Double>> responses = new ArrayList<>(batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        keys[i] = batch.get(i).key;
+        responses.add(pipeline.zscore(EXPIRY_KEY, keys[i]));
+      }
+      pipeline.zrem(EXPIRY_KEY, keys);
+      pipeline.sync();
+      for (Response<Double> response : responses) {
+        scores.add(response.get());
+      }
+    } else {
+      for (int i = 0; i < batch.size(); i++) {
+        keys[i] = batch.get(i).key;
+        scores.add(deadlines.zscore(EXPIRY_KEY, keys[i]));
+      }
+      deadlines.zrem(EXPIRY_KEY, keys);
+    }
+
+    Measurements measurements = Measurements.getMeasurements();
+    for (int i = 0; i < batch.size(); i++) {
+      Double deadline = scores.get(i);
+      if (deadline != null) {
+        long lag = Math.max(0, batch.get(i).received - deadline.longValue());
+        measurements.measureHdrHistogram(LAG_MEASUREMENT, (int) Math.min(Integer.MAX_VALUE, lag * 1000));
+      }
+    }
+  }
+}
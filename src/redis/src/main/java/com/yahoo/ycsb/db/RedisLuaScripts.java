@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2012 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+/**
+ * Lua scripts used by {@link RedisClient} to evaluate metadata predicates on
+ * the server.
+ *
+ * Every script performs a single SCAN step and works on the keys it returns,
+ * so one EVALSHA never blocks the server for longer than COUNT keys. The
+ * common arguments are:
+ * <ol>
+ * <li>the SCAN cursor</li>
+ * <li>the MATCH pattern</li>
+ * <li>the COUNT hint</li>
+ * <li>the name of the metadata field the predicate is on</li>
+ * <li>the value the field has to be equal to, or to contain if it holds a
+ * set as stored by {@link com.yahoo.ycsb.MultiValuedMetadata}</li>
+ * </ol>
+ * The first element of every reply is the cursor for the next step ("0" once
+ * the iteration is complete).
+ */
+final class RedisLuaScripts {
+
+  private RedisLuaScripts() {
+    // utility class
+  }
+
+  /*
+   * SCAN followed by writes is only allowed with effects replication, which
+   * has to be switched on explicitly before Redis 5.
+   */
+  private static final String REPLICATE_COMMANDS =
+      "if redis.replicate_commands then redis.replicate_commands() end\n";
+
+  private static final String SCAN_STEP =
+      "local step = redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])\n"
+      + "local function matches(k)\n"
+      + "  if redis.call('TYPE', k)['ok'] ~= 'hash' then return false end\n"
+      + "  local v = redis.call('HGET', k, ARGV[4])\n"
+      + "  return v == ARGV[5] or (v and string.find(v, ',' .. ARGV[5] .. ',', 1, true) ~= nil)\n"
+      + "end\n"
+      + "local function values(v)\n"
+      + "  return string.gmatch(v, '[^,]+')\n"
+      + "end\n";
+
+  /**
+   * Replies with the cursor followed by the HGETALL of every matching record.
+   */
+  static final String READ_META =
+      SCAN_STEP
+      + "local reply = {step[1]}\n"
+      + "for _, k in ipairs(step[2]) do\n"
+      + "  if matches(k) then reply[#reply + 1] = redis.call('HGETALL', k) end\n"
+      + "end\n"
+      + "return reply\n";
+
+  /**
+   * Sets field ARGV[6] to ARGV[7] on every matching record. If ARGV[8] is not
+   * empty it is the prefix of the index sets of ARGV[6], which are kept up to
+   * date for every value of a set: the record is scored by when it expires,
+   * from its remaining time to live and the epoch millisecond ARGV[9], and the
+   * index sets are added to the registry ARGV[10]. Replies with the cursor and
+   * the number of updated records.
+   */
+  static final String UPDATE_META =
+      REPLICATE_COMMANDS
+      + SCAN_STEP
+      + "local n = 0\n"
+      + "for _, k in ipairs(step[2]) do\n"
+      + "  if matches(k) then\n"
+      + "    if ARGV[8] ~= '' then\n"
+      + "      local old = redis.call('HGET', k, ARGV[6])\n"
+      + "      if old then\n"
+      + "        for e in values(old) do redis.call('ZREM', ARGV[8] .. e, k) end\n"
+      + "      end\n"
+      + "      local ttl = redis.call('PTTL', k)\n"
+      + "      local expiry = ttl < 0 and '+inf' or tonumber(ARGV[9]) + ttl\n"
+      + "      for e in values(ARGV[7]) do\n"
+      + "        redis.call('ZADD', ARGV[8] .. e, expiry, k)\n"
+      + "        redis.call('SADD', ARGV[10], ARGV[8] .. e)\n"
+      + "      end\n"
+      + "    end\n"
+      + "    redis.call('HSET', k, ARGV[6], ARGV[7])\n"
+      + "    n = n + 1\n"
+      + "  end\n"
+      + "end\n"
+      + "return {step[1], n}\n";
+
+  /**
+   * Deletes every matching record and removes it from KEYS[1] (the sorted set
+   * used by scans) and KEYS[2] (the deadlines of the records inserted with a
+   * TTL). ARGV[6] is the index set prefix and ARGV[7..] the indexed
+   * fields whose index sets the record is removed from. Replies with the cursor
+   * and the number of deleted records.
+   */
+  static final String DELETE_META =
+      REPLICATE_COMMANDS
+      + SCAN_STEP
+      + "local n = 0\n"
+      + "for _, k in ipairs(step[2]) do\n"
+      + "  if matches(k) then\n"
+      + "    for i = 7, #ARGV do\n"
+      + "      local v = redis.call('HGET', k, ARGV[i])\n"
+      + "      if v then\n"
+      + "        for e in values(v) do redis.call('ZREM', ARGV[6] .. ARGV[i] .. ':' .. e, k) end\n"
+      + "      end\n"
+      + "    end\n"
+      + "    n = n + redis.call('DEL', k)\n"
+      + "    redis.call('ZREM', KEYS[1], k)\n"
+      + "    redis.call('ZREM', KEYS[2], k)\n"
+      + "  end\n"
+      + "end\n"
+      + "return {step[1], n}\n";
+}
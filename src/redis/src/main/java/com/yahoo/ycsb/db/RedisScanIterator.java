@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2012 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Incremental iteration over the result of a SCAN-family cursor (SCAN, SSCAN,
+ * ...), handed out in chunks of at most a fixed number of elements.
+ *
+ * Only a single cursor step is buffered at a time, so memory stays bounded by
+ * the COUNT hint plus the chunk size regardless of the size of the keyspace.
+ */
+class RedisScanIterator implements Iterator<List<String>> {
+
+  /**
+   * A single cursor, advanced one step per call.
+   */
+  interface Cursor {
+    ScanResult<String> step(String cursor);
+  }
+
+  private final Cursor cursor;
+  private final int chunkSize;
+  private final ArrayDeque<String> buffer = new ArrayDeque<>();
+  private String position = ScanParams.SCAN_POINTER_START;
+  private boolean done = false;
+
+  RedisScanIterator(Cursor cursor, int chunkSize) {
+    this.cursor = cursor;
+    this.chunkSize = chunkSize;
+  }
+
+  /*
+   * Fetch cursor steps until there is something buffered or the cursor is
+   * exhausted. SCAN may legitimately return empty steps.
+   */
+  private void fill() {
+    while (buffer.isEmpty() && !done) {
+      ScanResult<String> step = cursor.step(position);
+      buffer.addAll(step.getResult());
+      position = step.getStringCursor();
+      done = position.equals(ScanParams.SCAN_POINTER_START);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    fill();
+    return !buffer.isEmpty();
+  }
+
+  @Override
+  public List<String> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    List<String> chunk = new ArrayList<>(Math.min(chunkSize, buffer.size()));
+    while (chunk.size() < chunkSize && !buffer.isEmpty()) {
+      chunk.add(buffer.poll());
+    }
+    return chunk;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+}
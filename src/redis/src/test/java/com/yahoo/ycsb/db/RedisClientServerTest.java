@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNoException;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DBException;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.StringByteIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCommands;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * Behaviour of the client against a Redis server on redis.host:redis.port
+ * (system properties, default localhost:6379), whose database is flushed
+ * before each test. The tests are skipped when no server is running.
+ *
+ * Subclasses run the same tests in other modes of the client by adding to
+ * {@link #properties()}.
+ */
+public class RedisClientServerTest {
+  protected static final String HOST = System.getProperty(RedisClient.HOST_PROPERTY, "localhost");
+  protected static final int PORT = Integer.getInteger(RedisClient.PORT_PROPERTY, 6379);
+  protected static final String TABLE = "usertable";
+
+  /** Field numbers of the meta operations. */
+  protected static final int PUR = 0;
+  protected static final int USR = 2;
+
+  /** A connection of the test's own, to check what the client stored. */
+  protected JedisCommands redis;
+  protected RedisClient client;
+
+  @BeforeClass
+  public static void setUpBeforeClass() {
+    assumeServer(HOST, PORT);
+  }
+
+  /**
+   * Skip the tests unless a server listens on the given port.
+   */
+  protected static void assumeServer(String host, int port) {
+    try (Socket socket = new Socket(host, port)) {
+      assertTrue("Socket is not bound.", socket.getLocalPort() != -1);
+    } catch (IOException connectFailed) {
+      assumeNoException("Redis is not running on " + host + ":" + port + ". Skipping tests.", connectFailed);
+    }
+  }
+
+  /**
+   * The properties the client is initialized with.
+   */
+  protected Properties properties() {
+    Properties p = new Properties();
+    p.setProperty(RedisClient.HOST_PROPERTY, HOST);
+    p.setProperty(RedisClient.PORT_PROPERTY, Integer.toString(PORT));
+    return p;
+  }
+
+  /**
+   * Open the connection of the test and empty the database through it.
+   */
+  protected JedisCommands connect() {
+    Jedis conn = new Jedis(HOST, PORT);
+    conn.flushDB();
+    return conn;
+  }
+
+  @Before
+  public void setUp() throws DBException {
+    redis = connect();
+    client = new RedisClient();
+    client.setProperties(properties());
+    client.init();
+  }
+
+  @After
+  public void tearDown() throws DBException, IOException {
+    if (client != null) {
+      client.cleanup();
+    }
+    if (redis != null) {
+      ((Closeable) redis).close();
+    }
+  }
+
+  protected static Map<String, ByteIterator> record(String purpose, String user) {
+    return record(purpose, user, "obj");
+  }
+
+  protected static Map<String, ByteIterator> record(String purpose, String user, String object) {
+    Map<String, String> values = new HashMap<>();
+    values.put("PUR", purpose);
+    values.put("USR", user);
+    values.put("OBJ", object);
+    values.put("Data", "data");
+    return StringByteIterator.getByteIteratorMap(values);
+  }
+
+  protected Double indexScore(String field, String value, String key) {
+    return redis.zscore(RedisClient.metaIndexKey(field, value), key);
+  }
+
+  /**
+   * The users of the records a readMeta finds.
+   */
+  protected Set<String> readMetaUsers(int fieldnum, String cond) {
+    Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    assertEquals(Status.OK, client.readMeta(TABLE, fieldnum, cond, "user*", result));
+    Set<String> users = new HashSet<>();
+    for (HashMap<String, ByteIterator> row : result) {
+      users.add(row.get("USR").toString());
+    }
+    assertEquals("a record was found twice", result.size(), users.size());
+    return users;
+  }
+
+  protected static Set<String> users(String... users) {
+    return new HashSet<>(Arrays.asList(users));
+  }
+
+  @Test
+  public void insertIndexesMetaFieldsTest() {
+    assertEquals(Status.OK, client.insert(TABLE, "user1", record("p1", "u1")));
+
+    assertEquals(Double.POSITIVE_INFINITY, indexScore("PUR", "p1", "user1"), 0);
+    assertEquals(Double.POSITIVE_INFINITY, indexScore("USR", "u1", "user1"), 0);
+    // only the indexed fields are
+    assertNull(indexScore("OBJ", "obj", "user1"));
+
+    // the process registers each index set once, so the flushed registry only learns of new ones
+    String purpose = "p" + System.nanoTime();
+    client.insert(TABLE, "user2", record(purpose, "u2"));
+    assertTrue(redis.smembers(RedisClient.META_INDEX_REGISTRY).contains(RedisClient.metaIndexKey("PUR", purpose)));
+  }
+
+  @Test
+  public void insertTTLScoresIndexByDeadlineTest() {
+    long before = System.currentTimeMillis();
+    assertEquals(Status.OK, client.insertTTL(TABLE, "user1", record("p1", "u1"), 100));
+    long after = System.currentTimeMillis();
+
+    double score = indexScore("PUR", "p1", "user1");
+    assertTrue(score >= before + 100000 && score <= after + 100000);
+    assertTrue(redis.ttl("user1") > 0);
+  }
+
+  @Test
+  public void reinsertUnindexesOverwrittenValuesTest() {
+    assertEquals(Status.OK, client.insertTTL(TABLE, "user1", record("p1", "u1"), 100));
+    assertEquals(Status.OK, client.insertTTL(TABLE, "user1", record("p2", "u1"), 100));
+
+    assertNull(indexScore("PUR", "p1", "user1"));
+    assertNotNull(indexScore("PUR", "p2", "user1"));
+    assertNotNull(indexScore("USR", "u1", "user1"));
+    assertEquals(users(), readMetaUsers(PUR, "p1"));
+    assertEquals(users("u1"), readMetaUsers(PUR, "p2"));
+  }
+
+  @Test
+  public void updateMovesIndexEntriesTest() {
+    client.insert(TABLE, "user1", record("p1", "u1"));
+    Map<String, String> values = new HashMap<>();
+    values.put("PUR", "p2");
+    assertEquals(Status.OK, client.update(TABLE, "user1", StringByteIterator.getByteIteratorMap(values)));
+
+    assertNull(indexScore("PUR", "p1", "user1"));
+    assertNotNull(indexScore("PUR", "p2", "user1"));
+    // fields left alone stay indexed
+    assertNotNull(indexScore("USR", "u1", "user1"));
+  }
+
+  @Test
+  public void deleteUnindexesTest() {
+    client.insert(TABLE, "user1", record("p1", "u1"));
+    assertEquals(Status.OK, client.delete(TABLE, "user1"));
+
+    assertFalse(redis.exists("user1"));
+    assertNull(indexScore("PUR", "p1", "user1"));
+    assertNull(indexScore("USR", "u1", "user1"));
+    assertEquals(Status.ERROR, client.delete(TABLE, "user1"));
+  }
+
+  @Test
+  public void readMetaTest() {
+    client.insert(TABLE, "user1", record("p1", "u1"));
+    client.insert(TABLE, "user2", record("p1", "u2"));
+    client.insert(TABLE, "user3", record("p2", "u3"));
+
+    // through the index on PUR
+    assertEquals(users("u1", "u2"), readMetaUsers(PUR, "p1"));
+    // through a scan of the keyspace, as OBJ is not indexed
+    Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    assertEquals(Status.OK, client.readMeta(TABLE, 3, "obj", "user*", result));
+    assertEquals(3, result.size());
+    assertEquals(users(), readMetaUsers(PUR, "p3"));
+  }
+
+  @Test
+  public void multiValuedIndexTest() {
+    client.insert(TABLE, "user1", record(",p1,p2,", "u1"));
+    client.insert(TABLE, "user2", record(",p2,", "u2"));
+
+    assertNotNull(indexScore("PUR", "p1", "user1"));
+    assertNotNull(indexScore("PUR", "p2", "user1"));
+    assertEquals(users("u1"), readMetaUsers(PUR, "p1"));
+    assertEquals(users("u1", "u2"), readMetaUsers(PUR, "p2"));
+  }
+
+  @Test
+  public void updateMetaReindexesTest() {
+    client.insert(TABLE, "user1", record("p1", "u1"));
+    client.insert(TABLE, "user2", record("p1", "u2"));
+    client.insert(TABLE, "user3", record("p2", "u3"));
+
+    assertEquals(Status.OK, client.updateMeta(TABLE, PUR, "p1", "user*", "USR", "u9"));
+
+    assertEquals("u9", redis.hget("user1", "USR"));
+    assertEquals("u9", redis.hget("user2", "USR"));
+    assertEquals("u3", redis.hget("user3", "USR"));
+    assertNull(indexScore("USR", "u1", "user1"));
+    assertNull(indexScore("USR", "u2", "user2"));
+    Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    assertEquals(Status.OK, client.readMeta(TABLE, USR, "u9", "user*", result));
+    assertEquals(2, result.size());
+  }
+
+  @Test
+  public void deleteMetaTest() {
+    client.insert(TABLE, "user1", record("p1", "u1"));
+    client.insert(TABLE, "user2", record("p1", "u2"));
+    client.insert(TABLE, "user3", record("p2", "u3"));
+
+    assertEquals(Status.OK, client.deleteMeta(TABLE, PUR, "p1", "user*"));
+
+    assertFalse(redis.exists("user1"));
+    assertFalse(redis.exists("user2"));
+    assertTrue(redis.exists("user3"));
+    assertNull(indexScore("USR", "u1", "user1"));
+    assertNull(indexScore("PUR", "p1", "user2"));
+    assertNull(redis.zscore(RedisClient.INDEX_KEY, "user1"));
+    assertEquals(users(), readMetaUsers(PUR, "p1"));
+    assertEquals(users("u3"), readMetaUsers(PUR, "p2"));
+  }
+
+  @Test
+  public void expiredRecordsLeaveTheIndexTest() throws InterruptedException {
+    client.insertTTL(TABLE, "user1", record("p1", "u1"), 1);
+    client.insert(TABLE, "user2", record("p1", "u2"));
+    Thread.sleep(1500);
+
+    assertEquals(users("u2"), readMetaUsers(PUR, "p1"));
+    // the meta operation dropped the entry of the expired record
+    assertNull(indexScore("PUR", "p1", "user1"));
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.ycsb.Status;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+public class RedisClientTest {
+
+  @Test
+  public void metaIndexKeyTest() {
+    assertEquals("_meta:PUR:purpose1", RedisClient.metaIndexKey("PUR", "purpose1"));
+    assertEquals("_meta:USR:user42", RedisClient.metaIndexKey("USR", "user42"));
+    // the index sets are auxiliary keys, which the record count leaves out
+    assertTrue(RedisClient.metaIndexKey("USR", "user42").startsWith("_"));
+    assertTrue(RedisClient.META_INDEX_REGISTRY.startsWith("_"));
+    assertFalse(RedisClient.META_INDEX_REGISTRY.startsWith(RedisClient.META_INDEX_PREFIX));
+  }
+
+  @Test
+  public void indexExpiryTest() {
+    long now = 1500000000000L;
+    assertEquals(now + 30000, RedisClient.indexExpiry(30000, now), 0);
+    assertEquals(now, RedisClient.indexExpiry(0, now), 0);
+    // no TTL (-1) and a key that does not exist (-2) never expire from the index
+    assertEquals(Double.POSITIVE_INFINITY, RedisClient.indexExpiry(-1, now), 0);
+    assertEquals(Double.POSITIVE_INFINITY, RedisClient.indexExpiry(-2, now), 0);
+  }
+
+  @Test
+  public void scanStepsTest() {
+    List<String> cursors = new ArrayList<>();
+    List<Object> replies = RedisClient.scanSteps(cursor -> {
+        cursors.add(cursor);
+        switch (cursor) {
+        case "0":
+          return Arrays.<Object>asList("17", "user1", "user2");
+        case "17":
+          // a step may find nothing
+          return Arrays.<Object>asList("5");
+        default:
+          return Arrays.<Object>asList("0", "user3");
+        }
+      });
+    assertEquals(Arrays.asList("0", "17", "5"), cursors);
+    assertEquals(Arrays.<Object>asList("user1", "user2", "user3"), replies);
+
+    assertEquals(Collections.emptyList(), RedisClient.scanSteps(cursor -> Arrays.<Object>asList("0")));
+  }
+
+  @Test
+  public void mergeTest() {
+    CompletableFuture<Status> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("connection lost"));
+
+    assertEquals(Status.OK, RedisClient.merge(Collections.<Future<Status>>emptyList()));
+    assertEquals(Status.OK, RedisClient.merge(Arrays.<Future<Status>>asList(
+        CompletableFuture.completedFuture(Status.OK), CompletableFuture.completedFuture(Status.OK))));
+    assertEquals(Status.ERROR, RedisClient.merge(Arrays.<Future<Status>>asList(
+        CompletableFuture.completedFuture(Status.OK), CompletableFuture.completedFuture(Status.ERROR))));
+    assertEquals(Status.ERROR, RedisClient.merge(Arrays.<Future<Status>>asList(
+        failed, CompletableFuture.completedFuture(Status.OK))));
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Status;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.JedisPool;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * The server tests against a Redis cluster, one of whose nodes listens on
+ * redis.cluster.host:redis.cluster.port (system properties, default
+ * localhost:7000). Meta operations without an index scan every master in
+ * parallel. The tests are skipped when no cluster node is running.
+ */
+public class RedisClusterServerTest extends RedisClientServerTest {
+  private static final String CLUSTER_HOST = System.getProperty("redis.cluster.host", "localhost");
+  private static final int CLUSTER_PORT = Integer.getInteger("redis.cluster.port", 7000);
+  private static final int RECORDS = 50;
+  /** Field number of OBJ, which is not indexed. */
+  private static final int OBJ = 3;
+
+  /**
+   * Shadows the check for a single server.
+   */
+  @BeforeClass
+  public static void setUpBeforeClass() {
+    assumeServer(CLUSTER_HOST, CLUSTER_PORT);
+  }
+
+  @Override
+  protected Properties properties() {
+    Properties p = super.properties();
+    p.setProperty(RedisClient.HOST_PROPERTY, CLUSTER_HOST);
+    p.setProperty(RedisClient.PORT_PROPERTY, Integer.toString(CLUSTER_PORT));
+    p.setProperty(RedisClient.CLUSTER_PROPERTY, "true");
+    return p;
+  }
+
+  @Override
+  protected JedisCommands connect() {
+    JedisCluster cluster = new JedisCluster(new HostAndPort(CLUSTER_HOST, CLUSTER_PORT));
+    for (JedisPool pool : cluster.getClusterNodes().values()) {
+      try (Jedis node = pool.getResource()) {
+        if (node.info("replication").contains("role:master")) {
+          node.flushDB();
+        }
+      }
+    }
+    return cluster;
+  }
+
+  private void insertRecords() {
+    for (int i = 0; i < RECORDS; i++) {
+      client.insert(TABLE, "user" + i, record("p" + (i % 2), "u" + i, i % 2 == 0 ? "even" : "odd"));
+    }
+  }
+
+  private static Set<String> evenUsers() {
+    Set<String> users = new HashSet<>();
+    for (int i = 0; i < RECORDS; i += 2) {
+      users.add("u" + i);
+    }
+    return users;
+  }
+
+  @Test
+  public void fanOutReadMetaTest() {
+    insertRecords();
+
+    // the records of every master, each once
+    assertEquals(evenUsers(), readMetaUsers(OBJ, "even"));
+  }
+
+  @Test
+  public void fanOutUpdateMetaTest() {
+    insertRecords();
+
+    assertEquals(Status.OK, client.updateMeta(TABLE, OBJ, "even", "user*", "USR", "u99"));
+
+    for (int i = 0; i < RECORDS; i++) {
+      assertEquals("user" + i, i % 2 == 0 ? "u99" : "u" + i, redis.hget("user" + i, "USR"));
+    }
+    // the index sets, on whatever node they live, follow
+    assertNull(indexScore("USR", "u0", "user0"));
+    Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    assertEquals(Status.OK, client.readMeta(TABLE, USR, "u99", "user*", result));
+    assertEquals(RECORDS / 2, result.size());
+  }
+
+  @Test
+  public void fanOutDeleteMetaTest() {
+    insertRecords();
+
+    assertEquals(Status.OK, client.deleteMeta(TABLE, OBJ, "even", "user*"));
+
+    for (int i = 0; i < RECORDS; i++) {
+      assertEquals("user" + i, i % 2 != 0, redis.exists("user" + i));
+      assertEquals("user" + i, i % 2 != 0, redis.zscore(RedisClient.INDEX_KEY, "user" + i) != null);
+    }
+    assertEquals(users(), readMetaUsers(PUR, "p0"));
+  }
+
+  @Test(timeout = 30000)
+  public void verifyTTLCountsEveryMasterTest() {
+    insertRecords();
+    for (int i = 0; i < RECORDS; i++) {
+      client.insertTTL(TABLE, "expiring" + i, record("p0", "x" + i), 1);
+    }
+
+    // waits until the expiring records are gone from all masters, leaving out the index sets
+    assertEquals(Status.OK, client.verifyTTL(TABLE, RECORDS));
+    for (int i = 0; i < RECORDS; i++) {
+      assertFalse(redis.exists("expiring" + i));
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RedisExpiryVerifierTest {
+
+  @Test
+  public void notifyFlagsTest() {
+    // notifications are off by default
+    assertEquals("Ex", RedisExpiryVerifier.notifyFlags(""));
+    // keyspace events alone do not publish on __keyevent@*__ channels
+    assertEquals("KxE", RedisExpiryVerifier.notifyFlags("Kx"));
+    assertEquals("Elx", RedisExpiryVerifier.notifyFlags("El"));
+    // A is the alias for all event classes, expired included
+    assertEquals("KEA", RedisExpiryVerifier.notifyFlags("KEA"));
+    assertEquals("Ex", RedisExpiryVerifier.notifyFlags("Ex"));
+  }
+}
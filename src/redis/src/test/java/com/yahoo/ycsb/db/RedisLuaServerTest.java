@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Status;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.Vector;
+
+/**
+ * The server tests with the meta operations on fields without an index
+ * evaluated by the Lua scripts, two keys per SCAN step so that every
+ * operation takes several EVALSHA calls.
+ */
+public class RedisLuaServerTest extends RedisClientServerTest {
+  /** Field number of OBJ, which is not indexed. */
+  private static final int OBJ = 3;
+
+  @Override
+  protected Properties properties() {
+    Properties p = super.properties();
+    p.setProperty(RedisClient.LUA_META_PROPERTY, "true");
+    p.setProperty(RedisClient.SCAN_COUNT_PROPERTY, "2");
+    return p;
+  }
+
+  private void insertRecords() {
+    client.insert(TABLE, "user1", record("p1", "u1", "o1"));
+    client.insertTTL(TABLE, "user2", record("p1", "u2", ",o1,o2,"), 100);
+    client.insert(TABLE, "user3", record("p2", "u3", "o2"));
+    client.insert(TABLE, "user4", record("p2", "u4", "o10"));
+    // neither outside of the key pattern nor not a hash can match
+    client.insert(TABLE, "other1", record("p1", "u5", "o1"));
+    redis.set("user5", "o1");
+  }
+
+  @Test
+  public void luaReadMetaTest() {
+    insertRecords();
+
+    assertEquals(users("u1", "u2"), readMetaUsers(OBJ, "o1"));
+    assertEquals(users("u2", "u3"), readMetaUsers(OBJ, "o2"));
+    assertEquals(users(), readMetaUsers(OBJ, "o3"));
+
+    Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    assertEquals(Status.OK, client.readMeta(TABLE, OBJ, "o10", "user*", result));
+    assertEquals(1, result.size());
+    // whole records come back
+    assertEquals("p2", result.get(0).get("PUR").toString());
+    assertEquals("data", result.get(0).get("Data").toString());
+  }
+
+  @Test
+  public void luaUpdateMetaReindexesTest() {
+    insertRecords();
+
+    assertEquals(Status.OK, client.updateMeta(TABLE, OBJ, "o1", "user*", "USR", "u9"));
+
+    assertEquals("u9", redis.hget("user1", "USR"));
+    assertEquals("u9", redis.hget("user2", "USR"));
+    assertEquals("u3", redis.hget("user3", "USR"));
+    assertEquals("u5", redis.hget("other1", "USR"));
+    assertNull(indexScore("USR", "u1", "user1"));
+    assertNull(indexScore("USR", "u2", "user2"));
+    // scored by when the records expire
+    assertEquals(Double.POSITIVE_INFINITY, indexScore("USR", "u9", "user1"), 0);
+    double deadline = indexScore("USR", "u9", "user2");
+    assertTrue(deadline > System.currentTimeMillis() && deadline <= System.currentTimeMillis() + 100000);
+    assertTrue(redis.smembers(RedisClient.META_INDEX_REGISTRY).contains(RedisClient.metaIndexKey("USR", "u9")));
+
+    // a field without an index is only set
+    assertEquals(Status.OK, client.updateMeta(TABLE, OBJ, "o2", "user*", "DEC", "d1"));
+    assertEquals("d1", redis.hget("user3", "DEC"));
+    assertNull(indexScore("DEC", "d1", "user3"));
+  }
+
+  @Test
+  public void luaDeleteMetaTest() {
+    insertRecords();
+
+    assertEquals(Status.OK, client.deleteMeta(TABLE, OBJ, "o1", "user*"));
+
+    assertFalse(redis.exists("user1"));
+    assertFalse(redis.exists("user2"));
+    assertTrue(redis.exists("user3"));
+    assertTrue(redis.exists("other1"));
+    assertTrue(redis.exists("user5"));
+    assertNull(indexScore("PUR", "p1", "user1"));
+    assertNull(indexScore("USR", "u2", "user2"));
+    assertNull(redis.zscore(RedisClient.INDEX_KEY, "user1"));
+    assertNull(redis.zscore(RedisClient.INDEX_KEY, "user2"));
+    assertNotNull(redis.zscore(RedisClient.INDEX_KEY, "user3"));
+  }
+
+  @Test
+  public void flushedScriptsAreLoadedAgainTest() {
+    insertRecords();
+    ((Jedis) redis).scriptFlush();
+
+    assertEquals(users("u1", "u2"), readMetaUsers(OBJ, "o1"));
+  }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import java.util.Properties;
+
+/**
+ * The pipelined server tests with each pipeline wrapped in MULTI/EXEC.
+ */
+public class RedisMultiServerTest extends RedisPipelineServerTest {
+
+  @Override
+  protected Properties properties() {
+    Properties p = super.properties();
+    p.setProperty(RedisClient.PIPELINE_MULTI_PROPERTY, "true");
+    return p;
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.StringByteIterator;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * The server tests with the commands of each operation sent as a pipeline,
+ * and meta operations working on chunks of two records.
+ */
+public class RedisPipelineServerTest extends RedisClientServerTest {
+
+  @Override
+  protected Properties properties() {
+    Properties p = super.properties();
+    p.setProperty(RedisClient.PIPELINE_PROPERTY, "true");
+    p.setProperty(RedisClient.PIPELINE_DEPTH_PROPERTY, "2");
+    return p;
+  }
+
+  @Test
+  public void failedCommandIsAnErrorTest() {
+    // a string where the client expects a hash fails HMSET inside the pipeline (without indexed fields nothing
+    // reads the record before)
+    redis.set("user1", "not a hash");
+
+    assertEquals(Status.ERROR, client.insert(TABLE, "user1",
+        StringByteIterator.getByteIteratorMap(Collections.singletonMap("OBJ", "obj1"))));
+    assertEquals(Status.ERROR, client.update(TABLE, "user1",
+        StringByteIterator.getByteIteratorMap(Collections.singletonMap("OBJ", "obj2"))));
+    assertEquals("not a hash", redis.get("user1"));
+  }
+
+  @Test
+  public void pipelinedWritesAreAppliedTest() {
+    assertEquals(Status.OK, client.insertTTL(TABLE, "user1", record("p1", "u1"), 100));
+    assertEquals("u1", redis.hget("user1", "USR"));
+    assertTrue(redis.ttl("user1") > 0);
+    assertNotNull(redis.zscore(RedisClient.INDEX_KEY, "user1"));
+
+    assertEquals(Status.OK, client.update(TABLE, "user1",
+        StringByteIterator.getByteIteratorMap(Collections.singletonMap("OBJ", "obj2"))));
+    assertEquals("obj2", redis.hget("user1", "OBJ"));
+
+    assertEquals(Status.OK, client.delete(TABLE, "user1"));
+    assertFalse(redis.exists("user1"));
+    assertNull(redis.zscore(RedisClient.INDEX_KEY, "user1"));
+    // nothing was left to delete
+    assertEquals(Status.ERROR, client.delete(TABLE, "user1"));
+  }
+}
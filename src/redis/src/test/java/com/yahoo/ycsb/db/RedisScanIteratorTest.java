@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class RedisScanIteratorTest {
+
+  /**
+   * A cursor over fixed steps: step i is returned for cursor i, and the last
+   * one returns the start cursor again.
+   */
+  private static RedisScanIterator.Cursor steps(List<List<String>> steps, List<String> calls) {
+    return cursor -> {
+      calls.add(cursor);
+      int step = Integer.parseInt(cursor);
+      String next = step + 1 == steps.size() ? ScanParams.SCAN_POINTER_START : Integer.toString(step + 1);
+      return new ScanResult<>(next, steps.get(step));
+    };
+  }
+
+  private static List<String> keys(int from, int to) {
+    List<String> keys = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      keys.add("user" + i);
+    }
+    return keys;
+  }
+
+  @Test
+  public void chunksTest() {
+    // a meta operation pipelines the commands of one chunk at a time, so no chunk may exceed the depth
+    List<String> calls = new ArrayList<>();
+    RedisScanIterator chunks = new RedisScanIterator(steps(Arrays.asList(keys(0, 250)), calls), 100);
+    assertEquals(keys(0, 100), chunks.next());
+    assertEquals(keys(100, 200), chunks.next());
+    // the rest is flushed as a smaller chunk
+    assertEquals(keys(200, 250), chunks.next());
+    assertFalse(chunks.hasNext());
+    assertEquals(Arrays.asList("0"), calls);
+  }
+
+  @Test
+  public void pagingTest() {
+    List<String> calls = new ArrayList<>();
+    RedisScanIterator chunks = new RedisScanIterator(steps(Arrays.asList(
+        keys(0, 3), Collections.<String>emptyList(), Collections.<String>emptyList(), keys(3, 5),
+        Collections.<String>emptyList()), calls), 10);
+
+    // the cursor is only advanced as far as needed, one step is buffered at a time
+    assertEquals(keys(0, 3), chunks.next());
+    assertEquals(Arrays.asList("0"), calls);
+
+    // empty steps do not end the iteration, only the cursor coming back to the start does
+    assertTrue(chunks.hasNext());
+    assertEquals(keys(3, 5), chunks.next());
+    assertEquals(Arrays.asList("0", "1", "2", "3"), calls);
+    assertFalse(chunks.hasNext());
+    assertFalse(chunks.hasNext());
+    assertEquals(Arrays.asList("0", "1", "2", "3", "4"), calls);
+  }
+
+  @Test
+  public void emptyTest() {
+    List<String> calls = new ArrayList<>();
+    RedisScanIterator chunks = new RedisScanIterator(
+        steps(Arrays.asList(Collections.<String>emptyList()), calls), 10);
+    assertFalse(chunks.hasNext());
+    try {
+      chunks.next();
+      fail("next() after the last chunk");
+    } catch (NoSuchElementException e) {
+      // expected
+    }
+    assertEquals(Arrays.asList("0"), calls);
+  }
+}
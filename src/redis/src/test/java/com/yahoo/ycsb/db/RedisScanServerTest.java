@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db;
+
+import static org.junit.Assert.*;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Status;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * The server tests with SCAN and ZSCAN asked for two keys per step and the
+ * candidates handed to meta operations in chunks of three, so that the
+ * operations page through many cursors and chunks that do not line up with
+ * them.
+ */
+public class RedisScanServerTest extends RedisClientServerTest {
+  private static final int RECORDS = 100;
+  /** Field number of OBJ, which is not indexed and found by scanning the keyspace. */
+  private static final int OBJ = 3;
+
+  @Override
+  protected Properties properties() {
+    Properties p = super.properties();
+    p.setProperty(RedisClient.SCAN_COUNT_PROPERTY, "2");
+    p.setProperty(RedisClient.PIPELINE_DEPTH_PROPERTY, "3");
+    return p;
+  }
+
+  /**
+   * Insert records user0..user99, every other one with OBJ even, and as many
+   * keys outside the pattern.
+   */
+  private void insertRecords() {
+    for (int i = 0; i < RECORDS; i++) {
+      client.insert(TABLE, "user" + i, record("p" + (i % 2), "u" + i, i % 2 == 0 ? "even" : "odd"));
+      client.insert(TABLE, "other" + i, record("p" + (i % 2), "v" + i, i % 2 == 0 ? "even" : "odd"));
+    }
+  }
+
+  private static Set<String> evenUsers() {
+    Set<String> users = new HashSet<>();
+    for (int i = 0; i < RECORDS; i += 2) {
+      users.add("u" + i);
+    }
+    return users;
+  }
+
+  @Test
+  public void scanFindsEveryRecordOnceTest() {
+    insertRecords();
+
+    // readMetaUsers fails on a record found twice
+    assertEquals(evenUsers(), readMetaUsers(OBJ, "even"));
+    // the same through the index set of PUR
+    assertEquals(evenUsers(), readMetaUsers(PUR, "p0"));
+  }
+
+  @Test
+  public void scanUpdatesEveryRecordTest() {
+    insertRecords();
+
+    assertEquals(Status.OK, client.updateMeta(TABLE, OBJ, "even", "user*", "DEC", "d1"));
+
+    for (int i = 0; i < RECORDS; i++) {
+      assertEquals("user" + i, i % 2 == 0 ? "d1" : null, redis.hget("user" + i, "DEC"));
+      assertNull(redis.hget("other" + i, "DEC"));
+    }
+  }
+
+  @Test
+  public void scanDeletesEveryRecordTest() {
+    insertRecords();
+
+    // deleting while scanning must not make the cursor skip records
+    assertEquals(Status.OK, client.deleteMeta(TABLE, OBJ, "even", "user*"));
+
+    for (int i = 0; i < RECORDS; i++) {
+      assertEquals("user" + i, i % 2 != 0, redis.exists("user" + i));
+      assertTrue(redis.exists("other" + i));
+    }
+    Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    assertEquals(Status.OK, client.readMeta(TABLE, OBJ, "odd", "user*", result));
+    assertEquals(RECORDS / 2, result.size());
+  }
+}